@@ -0,0 +1,109 @@
+package com.example.moodmento;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.futuredevs.images.ImageEncoder;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented benchmark of the {@code ImageEncoder} against the original
+ * compression loop, which lowered the JPEG quality by 10 until the image fit.
+ * Encoding needs the platform's {@code Bitmap}, so this runs on a device. The
+ * timings and sizes are written to the log under {@value #TAG}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImageEncoderBenchmarkTest {
+    private static final String TAG = "ImageEncoderBenchmark";
+    // Maximum allowed image size in bytes (64 KB).
+    private static final int MAX_IMAGE_SIZE_BYTES = 64 * 1024;
+    // Number of times each approach encodes the photo in the benchmark.
+    private static final int BENCHMARK_RUNS = 5;
+
+    /**
+     * Creates a photo-sized Bitmap of a gradient with noise, which unlike a blank
+     * Bitmap does not compress to almost nothing.
+     */
+    private Bitmap createNoisyBitmap(int width, int height) {
+        Random random = new Random(42);
+        int[] pixels = new int[width * height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(64);
+                int red = Math.min(255, x * 255 / width + noise);
+                int green = Math.min(255, y * 255 / height + noise);
+                int blue = Math.min(255, 128 + noise);
+                pixels[y * width + x] = 0xFF000000 | (red << 16) | (green << 8) | blue;
+            }
+        }
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Config.ARGB_8888);
+        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        return bitmap;
+    }
+
+    /**
+     * The original compression loop, lowering the quality by 10 until the image fits.
+     */
+    private byte[] compressWithLoop(Bitmap bitmap) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        int quality = 100;
+        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, baos);
+
+        while (baos.toByteArray().length > MAX_IMAGE_SIZE_BYTES && quality > 10) {
+            baos.reset();
+            quality -= 10;
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, baos);
+        }
+
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testEncoderBenchmarkAgainstLoop() {
+        Bitmap photo = createNoisyBitmap(2048, 1536);
+        ImageEncoder jpegEncoder = new ImageEncoder(1080, MAX_IMAGE_SIZE_BYTES, ImageEncoder.Format.JPEG);
+        ImageEncoder webpEncoder = new ImageEncoder(1080, MAX_IMAGE_SIZE_BYTES, ImageEncoder.Format.WEBP);
+        byte[] loopImage = null;
+        byte[] jpegImage = null;
+        byte[] webpImage = null;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_RUNS; i++) {
+            loopImage = compressWithLoop(photo);
+        }
+        long loopTime = (System.nanoTime() - start) / BENCHMARK_RUNS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_RUNS; i++) {
+            jpegImage = jpegEncoder.encode(photo);
+        }
+        long jpegTime = (System.nanoTime() - start) / BENCHMARK_RUNS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_RUNS; i++) {
+            webpImage = webpEncoder.encode(photo);
+        }
+        long webpTime = (System.nanoTime() - start) / BENCHMARK_RUNS;
+
+        Log.i(TAG, String.format("Loop: %d ms, %d bytes", loopTime / 1_000_000, loopImage.length));
+        Log.i(TAG, String.format("Encoder (JPEG): %d ms, %d bytes", jpegTime / 1_000_000, jpegImage.length));
+        Log.i(TAG, String.format("Encoder (WebP): %d ms, %d bytes", webpTime / 1_000_000, webpImage.length));
+
+        assertNotNull(jpegImage);
+        assertNotNull(webpImage);
+        assertTrue("Encoded JPEG should be at most 64 KB", jpegImage.length <= MAX_IMAGE_SIZE_BYTES);
+        assertTrue("Encoded WebP should be at most 64 KB", webpImage.length <= MAX_IMAGE_SIZE_BYTES);
+    }
+}
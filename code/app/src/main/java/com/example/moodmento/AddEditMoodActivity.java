@@ -2,22 +2,19 @@ package com.example.moodmento;
 
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.location.Location;
 import android.location.LocationManager;
 import android.net.Uri;
 import android.os.Bundle;
-import android.provider.MediaStore;
 import android.text.Editable;
 import android.text.TextWatcher;
-import android.util.Base64;
 import android.util.Log;
 import android.view.View;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.ImageView;
+import android.widget.ProgressBar;
 import android.widget.Spinner;
 import android.widget.Toast;
 
@@ -27,14 +24,19 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.futuredevs.database.Database;
+import com.futuredevs.database.DatabaseResult;
+import com.futuredevs.geo.GeocodingService;
+import com.futuredevs.images.CompressedImage;
+import com.futuredevs.images.ICompressionListener;
+import com.futuredevs.images.ImageCompressor;
+import com.futuredevs.images.ImageEncoder;
+import com.futuredevs.images.ImageLoader;
 import com.futuredevs.models.items.MoodPost;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.materialswitch.MaterialSwitch;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -58,7 +60,10 @@ import java.util.List;
 public class AddEditMoodActivity extends AppCompatActivity {
 	private LocationPerm locationPerm;
 	private static final int REQUEST_CODE_PICK_IMAGE = 100;
-	private static final int MAX_IMAGE_SIZE_BYTES = 64 * 1024; // 64 KB
+	/** WebP images fit within the size limit at a higher quality than JPEG. */
+	private static final ImageEncoder.Format IMAGE_FORMAT = ImageEncoder.Format.WEBP;
+	/** The longest time spent looking up the city of a mood before posting it. */
+	private static final long CITY_TIMEOUT_MILLIS = 2000;
 
 	private Button uploadPhotoButton;
 	private Button postButton;
@@ -67,12 +72,21 @@ public class AddEditMoodActivity extends AppCompatActivity {
 	private TextInputEditText reasonTextView;
 	private View dividerPhoto;
 	private ImageView imageView;
+	private ProgressBar compressionProgress;
+	private ImageCompressor imageCompressor;
 
 	private MoodPost.Emotion selectedEmotion;
 	private MoodPost.SocialSituation socialSituation;
 	private Location postLocation;
 	// Holds the compressed image data if valid (< 64 KB).
 	private byte[] selectedImageData = null;
+	// Holds the thumbnail of the selected image shown in lists of moods.
+	private byte[] selectedThumbnailData = null;
+	// Holds the blurhash of the selected image shown while it is loading.
+	private String selectedBlurHash = null;
+	// Set while the image of the mood being edited has not been loaded, in
+	// which case the mood's image is left unchanged.
+	private boolean keepExistingImage;
 	private boolean shouldPrivatePost;
 	private boolean isEditingMood;
 
@@ -197,6 +211,8 @@ public class AddEditMoodActivity extends AppCompatActivity {
 		this.dividerPhoto.setVisibility(View.GONE);
 		this.imageView = this.findViewById(R.id.mood_view_image);
 		this.imageView.setImageDrawable(null);
+		this.compressionProgress = this.findViewById(R.id.progress_image_compression);
+		this.imageCompressor = new ImageCompressor(this.getContentResolver(), IMAGE_FORMAT);
 		this.locationSwitch = this.findViewById(R.id.switch_location_add);
 		this.postButton = this.findViewById(R.id.button_post_mood);
 		this.postButton.setEnabled(false);
@@ -212,14 +228,26 @@ public class AddEditMoodActivity extends AppCompatActivity {
 				this.reasonTextView.setText(editingMood.getReason());
 			}
 
-			if (editingMood.getImageData() != null && !editingMood.getImageData().isEmpty()) {
-				byte[] imageBytes = Base64.decode(editingMood.getImageData(), Base64.NO_PADDING | Base64.NO_WRAP | Base64.URL_SAFE);
-				Bitmap bitmap = BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
-				this.imageView.setImageBitmap(bitmap);
-				this.imageView.setVisibility(View.VISIBLE);
-				this.dividerPhoto.setVisibility(View.VISIBLE);
-				this.selectedImageData = imageBytes;
-				this.uploadPhotoButton.setText("Remove Photo");
+			this.selectedThumbnailData = editingMood.getThumbnailData();
+			this.selectedBlurHash = editingMood.getBlurHash();
+
+			if (editingMood.getImageData() != null) {
+				this.showExistingImage(editingMood);
+			}
+			else if (editingMood.hasImage()) {
+				// The image is not loaded with the mood, so it is requested
+				// separately and left unchanged unless it is replaced.
+				this.keepExistingImage = true;
+				Database.getInstance().requestMoodImage(editingMood, (result, images) -> {
+					if (result == DatabaseResult.SUCCESS && this.keepExistingImage) {
+						this.keepExistingImage = false;
+
+						if (!images.isEmpty()) {
+							editingMood.setImageData(images.get(0));
+							this.showExistingImage(editingMood);
+						}
+					}
+				});
 			}
 
 			if (editingMood.getEmotion() != null) {
@@ -261,14 +289,14 @@ public class AddEditMoodActivity extends AppCompatActivity {
 					editingMood.setSocialSituation(socialSituation);
 					editingMood.setLocation(postLocation);
 					editingMood.setPrivateStatus(shouldPrivatePost);
-					editingMood.setImageData(selectedImageData);
-					editingMood.setEdited(true);
+					if (!keepExistingImage) {
+						editingMood.setImageData(selectedImageData);
+						editingMood.setThumbnailData(selectedThumbnailData);
+						editingMood.setBlurHash(selectedBlurHash);
+					}
 
-					Intent intent = new Intent(AddEditMoodActivity.this, HomeActivity.class);
-					intent.putExtra("edit_post", true);
-					intent.putExtra("mood", editingMood);
-					intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
-					startActivity(intent);
+					editingMood.setEdited(true);
+					postMood(editingMood, "edit_post");
 				}
 			}
 			else {
@@ -284,18 +312,22 @@ public class AddEditMoodActivity extends AppCompatActivity {
 				mood.setLocation(postLocation);
 				mood.setPrivateStatus(this.shouldPrivatePost);
 				mood.setImageData(this.selectedImageData);
-
-				Intent intent = new Intent(AddEditMoodActivity.this, HomeActivity.class);
-				intent.putExtra("added_post", true);
-				intent.putExtra("mood", mood);
-				intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
-				startActivity(intent);
+				mood.setThumbnailData(this.selectedThumbnailData);
+				mood.setBlurHash(this.selectedBlurHash);
+				this.postMood(mood, "added_post");
 			}
 		});
 
 		this.uploadPhotoButton.setOnClickListener(v -> {
-			if (selectedImageData != null) {
+			if (imageCompressor.isCompressing()) {
+				imageCompressor.cancel();
+				finishCompression();
+			}
+			else if (selectedImageData != null) {
 				selectedImageData = null;
+				selectedThumbnailData = null;
+				selectedBlurHash = null;
+				ImageLoader.getInstance().cancel(imageView);
 				imageView.setImageDrawable(null);
 				uploadPhotoButton.setText("Upload Photo");
 				dividerPhoto.setVisibility(View.GONE);
@@ -309,6 +341,84 @@ public class AddEditMoodActivity extends AppCompatActivity {
 		});
 	}
 
+	/**
+	 * Looks up the city of the given {@code mood} in the background and then
+	 * returns to the home activity, which adds or updates the mood. The city
+	 * is stored with the mood so that viewers of the mood never look it up.
+	 * If the city takes too long to find the mood is posted without it, and
+	 * its owner stores the city once they next view the mood.
+	 *
+	 * @param mood     the mood to post
+	 * @param postType the extra telling the home activity whether the mood
+	 *                 was added or edited
+	 */
+	private void postMood(MoodPost mood, String postType) {
+		if (!mood.hasValidLocation()) {
+			mood.setCity(null);
+			this.returnToHome(mood, postType);
+			return;
+		}
+
+		this.postButton.setEnabled(false);
+		this.postButton.setText("Posting...");
+		GeocodingService.getInstance().resolveCity(this, mood.getLatitude(), mood.getLongitude(),
+			CITY_TIMEOUT_MILLIS, city -> {
+				if (!isDestroyed()) {
+					mood.setCity(city);
+					returnToHome(mood, postType);
+				}
+			});
+	}
+
+	/**
+	 * Returns to the home activity with the given {@code mood} to post.
+	 *
+	 * @param mood     the mood to post
+	 * @param postType the extra telling the home activity whether the mood
+	 *                 was added or edited
+	 */
+	private void returnToHome(MoodPost mood, String postType) {
+		Intent intent = new Intent(AddEditMoodActivity.this, HomeActivity.class);
+		intent.putExtra(postType, true);
+		intent.putExtra("mood", mood);
+		intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
+		this.startActivity(intent);
+	}
+
+	/**
+	 * Shows the existing image of the {@code editingMood}, whose image data
+	 * has been loaded, as the selected image.
+	 *
+	 * @param editingMood the mood being edited
+	 */
+	private void showExistingImage(MoodPost editingMood) {
+		byte[] imageBytes = editingMood.getImageData();
+		ImageLoader.getInstance().loadImage(editingMood, this.imageView);
+		this.imageView.setVisibility(View.VISIBLE);
+		this.dividerPhoto.setVisibility(View.VISIBLE);
+		this.selectedImageData = imageBytes;
+		this.uploadPhotoButton.setText("Remove Photo");
+
+		// Moods posted before thumbnails and blurhashes were generated gain
+		// them when edited. They are created in the background and only kept
+		// if the image has not been replaced or removed in the meantime.
+		if (this.selectedThumbnailData == null || this.selectedBlurHash == null) {
+			this.imageCompressor.createThumbnail(imageBytes, (thumbnailData, blurHash) -> {
+				if (this.selectedImageData != imageBytes) {
+					return;
+				}
+
+				if (this.selectedThumbnailData == null) {
+					this.selectedThumbnailData = thumbnailData;
+				}
+
+				if (this.selectedBlurHash == null) {
+					this.selectedBlurHash = blurHash;
+				}
+			});
+		}
+	}
+
 	@Override
 	protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
 		super.onActivityResult(requestCode, resultCode, data);
@@ -317,47 +427,87 @@ public class AddEditMoodActivity extends AppCompatActivity {
 			Uri imageUri = data.getData();
 
 			if (imageUri != null) {
-				try {
-					Bitmap bitmap = MediaStore.Images.Media.getBitmap(getContentResolver(), imageUri);
-
-					// Compress the image in a loop until it’s under 64 KB or quality hits 10
-					ByteArrayOutputStream baos = new ByteArrayOutputStream();
-					int quality = 100;
-					bitmap.compress(Bitmap.CompressFormat.JPEG, quality, baos);
-
-					while (baos.toByteArray().length > MAX_IMAGE_SIZE_BYTES && quality > 10) {
-						baos.reset();
-						quality -= 10;
-						bitmap.compress(Bitmap.CompressFormat.JPEG, quality, baos);
-					}
-
-					if (baos.toByteArray().length > MAX_IMAGE_SIZE_BYTES) {
-						new AlertDialog.Builder(this)
-								.setTitle("Photo too large!")
-								.setMessage("The selected photo must be under 64kB.")
-								.setNeutralButton("", (d, i) -> {
-									selectedImageData = null;
-									imageView.setImageDrawable(null);
-									uploadPhotoButton.setText("Upload Photo");
-									dividerPhoto.setVisibility(View.GONE);
-								})
-								.show();
-					}
-					else {
-						selectedImageData = baos.toByteArray();
-						imageView.setImageBitmap(bitmap);
-						uploadPhotoButton.setText("Remove Photo");
-						imageView.setVisibility(View.VISIBLE);
-						dividerPhoto.setVisibility(View.VISIBLE);
-					}
-				}
-				catch (IOException e) {
-					Log.e("MOOD_ADD", "Failed to load the image", e);
-				}
+				this.compressImage(imageUri);
 			}
 		}
 	}
 
+	/**
+	 * Compresses the chosen image with the given {@code imageUri} in the
+	 * background, showing the progress of the compression and allowing it
+	 * to be cancelled with the upload button. The post button is disabled
+	 * until the compression has finished.
+	 *
+	 * @param imageUri the image chosen for the mood
+	 */
+	private void compressImage(Uri imageUri) {
+		this.compressionProgress.setProgress(0);
+		this.compressionProgress.setVisibility(View.VISIBLE);
+		this.uploadPhotoButton.setText("Cancel");
+		this.imageCompressor.compress(imageUri, new ICompressionListener() {
+			@Override
+			public void onProgress(int percent) {
+				compressionProgress.setProgress(percent);
+			}
+
+			@Override
+			public void onCompressed(CompressedImage image) {
+				finishCompression();
+				selectedImageData = image.getImageData();
+				selectedThumbnailData = image.getThumbnailData();
+				selectedBlurHash = image.getBlurHash();
+				keepExistingImage = false;
+				ImageLoader.getInstance().cancel(imageView);
+				imageView.setImageBitmap(image.getPreview());
+				uploadPhotoButton.setText("Remove Photo");
+				imageView.setVisibility(View.VISIBLE);
+				dividerPhoto.setVisibility(View.VISIBLE);
+			}
+
+			@Override
+			public void onTooLarge() {
+				finishCompression();
+				new AlertDialog.Builder(AddEditMoodActivity.this)
+						.setTitle("Photo too large!")
+						.setMessage("The selected photo must be under 64kB.")
+						.setNeutralButton("", (d, i) -> {
+							selectedImageData = null;
+							selectedThumbnailData = null;
+							selectedBlurHash = null;
+							imageView.setImageDrawable(null);
+							uploadPhotoButton.setText("Upload Photo");
+							dividerPhoto.setVisibility(View.GONE);
+						})
+						.show();
+			}
+
+			@Override
+			public void onFailure() {
+				finishCompression();
+				Toast.makeText(AddEditMoodActivity.this, "Failed to load the photo", Toast.LENGTH_SHORT).show();
+			}
+		});
+		this.validatePostDetails();
+	}
+
+	/**
+	 * Hides the progress of the image compression once it has finished or
+	 * been cancelled, restoring the upload button to match the selected
+	 * image.
+	 */
+	private void finishCompression() {
+		this.compressionProgress.setVisibility(View.GONE);
+		boolean hasImage = (this.selectedImageData != null || this.keepExistingImage);
+		this.uploadPhotoButton.setText(hasImage ? "Remove Photo" : "Upload Photo");
+		this.validatePostDetails();
+	}
+
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+		this.imageCompressor.shutdown();
+	}
+
 	@Override
 	public void onRequestPermissionsResult(int requestCode,
 										   @NonNull String[] permissions,
@@ -386,6 +536,10 @@ public class AddEditMoodActivity extends AppCompatActivity {
 		this.locationPerm.getLastKnownLocation(l -> {
 			if (l != null) {
 				postLocation = l;
+				// The city is looked up now so that it is usually cached by
+				// the time the mood is posted.
+				GeocodingService.getInstance().resolveCity(this, l.getLatitude(), l.getLongitude(),
+														   city -> {});
 				String locationLog = "Location: %f, %f";
 				Log.d("MainActivity", String.format(locationLog, l.getLatitude(), l.getLongitude()));
 			}
@@ -415,7 +569,9 @@ public class AddEditMoodActivity extends AppCompatActivity {
 			this.postButton.setEnabled(false);
 		}
 		else {
-			this.postButton.setEnabled(this.selectedEmotion != null);
+			// A chosen image must finish compressing before it can be posted.
+			this.postButton.setEnabled(this.selectedEmotion != null
+									   && !this.imageCompressor.isCompressing());
 		}
 	}
 }
\ No newline at end of file
@@ -24,9 +24,7 @@ import com.futuredevs.models.ViewModelUserProfile;
 import com.futuredevs.models.items.MoodPost;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * The {@code FollowingHistoryFragment} class is a fragment that acts as a
@@ -146,40 +144,9 @@ public class FollowingHistoryFragment extends Fragment {
                 emptyFollowingMessage.setVisibility(View.GONE);
             }
 
-            Map<String, List<MoodPost>> postsByUser = new HashMap<>();
-
-            // Obtain only the three most recent posts of each user
-            for (MoodPost post : posts) {
-                String user = post.getUser();
-                postsByUser.computeIfAbsent(user, k -> new ArrayList<>());
-                List<MoodPost> userPosts = postsByUser.get(user);
-
-                if (userPosts.size() < 3) {
-                    userPosts.add(post);
-                }
-                else {
-                    int indexOfOldest = 0;
-                    long oldestTime = userPosts.get(0).getTimePosted();
-
-                    for (int i = 1; i < userPosts.size(); i++) {
-                        if (userPosts.get(i).getTimePosted() < oldestTime) {
-                            oldestTime = userPosts.get(i).getTimePosted();
-                            indexOfOldest = i;
-                        }
-                    }
-
-                    if (post.getTimePosted() > oldestTime) {
-                        userPosts.set(indexOfOldest, post);
-                    }
-                }
-            }
-
-            List<MoodPost> aggregatedPosts = new ArrayList<>();
-
-            for (List<MoodPost> userPosts : postsByUser.values()) {
-                aggregatedPosts.addAll(userPosts);
-            }
-
+            // The model already holds only the most recent posts of each
+            // user, so the posts just need to be merged into a single timeline
+            List<MoodPost> aggregatedPosts = new ArrayList<>(posts);
             aggregatedPosts.sort((p1, p2) -> Long.compare(p2.getTimePosted(), p1.getTimePosted()));
 
             allMoods.clear();
@@ -46,6 +46,8 @@ public class HomeActivity extends AppCompatActivity {
 
     private boolean showFilterIconFlag = true;
     private static final int FILTER_REQUEST_CODE = 1001;
+    /** The number of the most recent posts shown for each followed user. */
+    private static final int RECENT_POSTS_PER_USER = 3;
 
     private FilterCriteria currentFilter;
 
@@ -72,6 +74,10 @@ public class HomeActivity extends AppCompatActivity {
                     showSignOutConfirmation();
                     return true;
                 }
+                else if (item.getItemId() == R.id.menu_delete_account) {
+                    showDeleteAccountConfirmation();
+                    return true;
+                }
 
                 return false;
             });
@@ -79,8 +85,8 @@ public class HomeActivity extends AppCompatActivity {
         });
 
         String username = Database.getInstance().getCurrentUser();
-        ViewModelMoodsFactory userFactory = new ViewModelMoodsFactory(username);
-        ViewModelMoodsFollowingFactory followingFactory = new ViewModelMoodsFollowingFactory(username);
+        ViewModelMoodsFactory userFactory = new ViewModelMoodsFactory(username, true);
+        ViewModelMoodsFollowingFactory followingFactory = new ViewModelMoodsFollowingFactory(username, RECENT_POSTS_PER_USER);
         this.viewModelMoods = new ViewModelProvider(this, userFactory).get(ViewModelMoods.class);
         this.viewModelMoodsFollowing = new ViewModelProvider(this, followingFactory)
                                             .get(ViewModelMoodsFollowing.class);
@@ -237,6 +243,46 @@ public class HomeActivity extends AppCompatActivity {
                 .show();
     }
 
+    /**
+     * Shows an alert dialog popup asking the user to confirm the deletion of
+     * their account and all of their moods.
+     */
+    private void showDeleteAccountConfirmation() {
+        new AlertDialog.Builder(this)
+                .setTitle("Delete Account")
+                .setMessage("Are you sure you wish to delete your account? "
+                            + "All of your moods will be permanently deleted.")
+                .setPositiveButton("Delete", (dialog, which) -> deleteAccount())
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Deletes the account of the current user, showing the progress of the
+     * deletion, and signs them out once the account has been deleted.
+     */
+    private void deleteAccount() {
+        AlertDialog progressDialog = new AlertDialog.Builder(this)
+                .setTitle("Deleting Account")
+                .setMessage("Deleting your data...")
+                .setCancelable(false)
+                .show();
+        String username = Database.getInstance().getCurrentUser();
+        Database.getInstance().deleteAccount(username, numDocuments -> {
+            progressDialog.setMessage(String.format("Deleted %d items...", numDocuments));
+        }, result -> {
+            progressDialog.dismiss();
+
+            if (result == DatabaseResult.SUCCESS) {
+                Toast.makeText(HomeActivity.this, "Account deleted", Toast.LENGTH_SHORT).show();
+                signOut();
+            }
+            else {
+                Toast.makeText(HomeActivity.this, "Failed to delete account", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         this.getMenuInflater().inflate(R.menu.top_app_bar_menu, menu);
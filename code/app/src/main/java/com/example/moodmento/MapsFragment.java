@@ -9,6 +9,7 @@ import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.SeekBar;
 import android.widget.Spinner;
 import android.widget.TextView;
@@ -18,30 +19,62 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.futuredevs.database.Database;
+import com.futuredevs.geo.MoodSpatialIndex;
+import com.futuredevs.models.IModelListener;
+import com.futuredevs.models.ModelMoodTiles;
 import com.futuredevs.models.ViewModelMoods;
-import com.futuredevs.models.ViewModelMoodsFollowing;
 import com.futuredevs.models.items.MoodPost;
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
-import com.google.android.gms.maps.model.BitmapDescriptorFactory;
-import com.google.android.gms.maps.model.CircleOptions;
 import com.google.android.gms.maps.model.LatLng;
-import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.LatLngBounds;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 public class MapsFragment extends Fragment implements OnMapReadyCallback {
 
     private GoogleMap mMap;
+    private MoodMarkerManager moodMarkerManager;
+    private MoodHeatmapOverlay moodHeatmapOverlay;
+    // Filters and moods may change many times within a frame, such as when
+    // several tiles finish loading at once, but the map is redrawn once.
+    private final RedrawScheduler redrawScheduler = new RedrawScheduler(this::applyAllFilters);
     private LatLng userLocation = new LatLng(53.5461, -113.4938);
     private static final float DEFAULT_ZOOM = 12f;
     private final List<MoodPost> filteredMoodPosts = new ArrayList<>();
     private final List<MoodPost> originalMoodPosts = new ArrayList<>();
-    private final List<MoodPost> personalMoodPosts = new ArrayList();
-    private final List<MoodPost> followingMoodPosts = new ArrayList();
+    // The located posts of the user and of followed users, indexed so that
+    // the posts within the filter radius are found without measuring the
+    // distance to every post.
+    private final MoodSpatialIndex personalMoodIndex = new MoodSpatialIndex();
+    private final MoodSpatialIndex followingMoodIndex = new MoodSpatialIndex();
+    // Only the posts of the visible part of the filter circle are loaded,
+    // a tile at a time, and the loaded tiles are kept while the fragment
+    // exists so that returning to an area does not load it again.
+    private ModelMoodTiles moodTiles;
+    private List<MoodPost> lastPersonalMoods;
+    private final IModelListener<MoodPost> moodTilesListener = model -> {
+        List<MoodPost> personalPosts = new ArrayList<>();
+        List<MoodPost> followingPosts = new ArrayList<>();
+
+        for (MoodPost post : model.getModelData()) {
+            if (post.getUser().equals(currentUserId)) {
+                personalPosts.add(post);
+            } else {
+                followingPosts.add(post);
+            }
+        }
+
+        personalMoodIndex.setPosts(personalPosts);
+        followingMoodIndex.setPosts(followingPosts);
+        redrawScheduler.invalidate();
+    };
     private LocationPerm locationPerm;
     private String currentUserId;
 
@@ -52,6 +85,8 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
     private TextView distanceTextView;
     private TextView textViewShowingPosts;
     private Button applyFilterButton;
+    private CheckBox heatmapCheckBox;
+    private boolean isHeatmapShown;
     private int currentFilterDistance = 10;
     private String currentViewType = "ALL"; // ALL, PERSONAL, FOLLOWING
 
@@ -66,6 +101,7 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
         distanceTextView = view.findViewById(R.id.textViewFilterRadius);
         textViewShowingPosts = view.findViewById(R.id.textViewShowingPosts);
         viewTypeSpinner = view.findViewById(R.id.mood_filter_spinner); // Reusing the existing spinner
+        heatmapCheckBox = view.findViewById(R.id.heatmapCheckBox);
 
         setupViewTypeSpinner();
 
@@ -78,7 +114,8 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
             public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
                 currentFilterDistance = progress + 1;
                 updateDistanceText(currentFilterDistance);
-                applyAllFilters();
+                redrawScheduler.invalidate();
+                loadVisibleMoods();
             }
 
             @Override public void onStartTrackingTouch(SeekBar seekBar) {}
@@ -86,6 +123,13 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
             @Override public void onStopTrackingTouch(SeekBar seekBar) {}
         });
 
+        // The heatmap replaces the markers, showing the same filtered moods.
+        heatmapCheckBox.setChecked(isHeatmapShown);
+        heatmapCheckBox.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            isHeatmapShown = isChecked;
+            redrawScheduler.invalidate();
+        });
+
         // Set click listener for filter button to open FilterActivity
         applyFilterButton.setOnClickListener(v -> {
             Intent intent = new Intent(getActivity(), FilterActivity.class);
@@ -111,7 +155,7 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
                 currentViewType = parent.getItemAtPosition(position).toString();
-                applyAllFilters();
+                redrawScheduler.invalidate();
             }
 
             @Override public void onNothingSelected(AdapterView<?> parent) {}
@@ -132,7 +176,7 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
 
     private void updateFiltersFromActivity(String moodFilter, String timeFilter, String wordFilter) {
         currentMoodFilter = moodFilter;
-        applyAllFilters();
+        redrawScheduler.invalidate();
     }
 
     private void updateDistanceText(int distance) {
@@ -142,63 +186,36 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
     private void applyAllFilters() {
         if (mMap == null || userLocation == null) return;
 
-        mMap.clear();
         filteredMoodPosts.clear();
 
         // Determine which posts to filter based on view type
-        List<MoodPost> postsToFilter = new ArrayList<>();
-        switch (currentViewType) {
-            case "YOUR MOODS":
-                postsToFilter.addAll(personalMoodPosts);
-                break;
-            case "FOLLOWING MOODS":
-                postsToFilter.addAll(followingMoodPosts);
-                break;
-            default: // ALL MOODS
-                postsToFilter.addAll(personalMoodPosts);
-                postsToFilter.addAll(followingMoodPosts);
-                break;
+        List<MoodPost> nearbyPosts = new ArrayList<>();
+        if (!currentViewType.equals("FOLLOWING MOODS")) {
+            nearbyPosts.addAll(personalMoodIndex.findWithin(
+                    userLocation.latitude, userLocation.longitude, currentFilterDistance));
+        }
+        if (!currentViewType.equals("YOUR MOODS")) {
+            nearbyPosts.addAll(followingMoodIndex.findWithin(
+                    userLocation.latitude, userLocation.longitude, currentFilterDistance));
         }
 
-        for (MoodPost post : postsToFilter) {
-            float[] results = new float[1];
-            android.location.Location.distanceBetween(
-                    userLocation.latitude,
-                    userLocation.longitude,
-                    post.getLatitude(),
-                    post.getLongitude(),
-                    results
-            );
-            float distanceInKm = results[0] / 1000;
-
+        for (MoodPost post : nearbyPosts) {
             boolean moodMatches = currentMoodFilter.equals("ALL") ||
                     post.getEmotion().toString().equals(currentMoodFilter);
 
-            if (distanceInKm <= currentFilterDistance && moodMatches) {
+            if (moodMatches) {
                 filteredMoodPosts.add(post);
             }
         }
 
-        for (MoodPost post : filteredMoodPosts) {
-            LatLng position = new LatLng(post.getLatitude(), post.getLongitude());
-            boolean isPersonalPost = post.getUser().equals(currentUserId);
-
-            mMap.addMarker(new MarkerOptions()
-                    .position(position)
-                    .title(isPersonalPost ? "You" : post.getUser())
-                    .snippet(post.getEmotion().toString())
-                    .icon(BitmapDescriptorFactory.defaultMarker(
-                            isPersonalPost ? BitmapDescriptorFactory.HUE_CYAN :
-                                    getMoodColor(post.getEmotion().toString())
-                    )));
+        if (isHeatmapShown) {
+            moodMarkerManager.setPosts(new ArrayList<>(), currentUserId);
+            moodHeatmapOverlay.setPosts(filteredMoodPosts);
+        } else {
+            moodMarkerManager.setPosts(filteredMoodPosts, currentUserId);
         }
-
-        mMap.addCircle(new CircleOptions()
-                .center(userLocation)
-                .radius(currentFilterDistance * 1000)
-                .strokeColor(0x30ff0000)
-                .fillColor(0x30ff0000)
-                .strokeWidth(2));
+        moodHeatmapOverlay.setVisible(isHeatmapShown);
+        moodMarkerManager.setRadius(userLocation, currentFilterDistance * 1000);
 
         textViewShowingPosts.setText(String.format(
                 "Showing %s %s posts within %d km",
@@ -216,20 +233,6 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
         }
     }
 
-    private float getMoodColor(String mood) {
-        switch(mood) {
-            case "HAPPY": return BitmapDescriptorFactory.HUE_GREEN;
-            case "SADNESS": return BitmapDescriptorFactory.HUE_BLUE;
-            case "ANGER": return BitmapDescriptorFactory.HUE_RED;
-            case "CONFUSED": return BitmapDescriptorFactory.HUE_ORANGE;
-            case "FEAR": return BitmapDescriptorFactory.HUE_VIOLET;
-            case "SURPRISED": return BitmapDescriptorFactory.HUE_YELLOW;
-            case "SHAME": return BitmapDescriptorFactory.HUE_ROSE;
-            case "DISGUSTED": return BitmapDescriptorFactory.HUE_MAGENTA;
-            default: return BitmapDescriptorFactory.HUE_AZURE;
-        }
-    }
-
     @Override
     public void onViewCreated(@NonNull View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
@@ -243,38 +246,92 @@ public class MapsFragment extends Fragment implements OnMapReadyCallback {
 
         currentUserId = Database.getInstance().getCurrentUser();
 
-        // Personal moods
+        if (moodTiles == null) {
+            moodTiles = new ModelMoodTiles(currentUserId);
+        }
+
+        moodTiles.addChangeListener(moodTilesListener);
+
+        // The user's own moods change when they post, edit or delete a mood,
+        // so the loaded tiles may no longer hold them.
         ViewModelMoods viewModelMoods = new ViewModelProvider(requireActivity())
                 .get(ViewModelMoods.class);
 
+        // The last list is delivered again whenever the view is recreated.
+        // Unchanged moods are kept as the same objects from one list to the
+        // next, so only the moods which are not in both lists are updated
+        // in the loaded tiles. Refreshing the list only loads its first page
+        // again, so moods older than the list which are no longer in it have
+        // not been removed.
         viewModelMoods.getData().observe(getViewLifecycleOwner(), moods -> {
-            personalMoodPosts.clear();
-            for (MoodPost post : moods) {
-                if (post.hasValidLocation()) {
-                    personalMoodPosts.add(post);
+            if (lastPersonalMoods != null && moods != lastPersonalMoods) {
+                Set<MoodPost> previous = Collections.newSetFromMap(new IdentityHashMap<>());
+                Set<MoodPost> current = Collections.newSetFromMap(new IdentityHashMap<>());
+                previous.addAll(lastPersonalMoods);
+                current.addAll(moods);
+                List<MoodPost> removed = new ArrayList<>();
+                List<MoodPost> added = new ArrayList<>();
+                long oldestTime = moods.isEmpty() ? Long.MIN_VALUE : Long.MAX_VALUE;
+
+                for (MoodPost post : moods) {
+                    if (!previous.contains(post)) {
+                        added.add(post);
+                    }
+
+                    oldestTime = Math.min(oldestTime, post.getTimePosted());
                 }
-            }
-            applyAllFilters();
-        });
 
-        // Followed users' moods
-        ViewModelMoodsFollowing viewModelFollowing = new ViewModelProvider(requireActivity())
-                .get(ViewModelMoodsFollowing.class);
-
-        viewModelFollowing.getData().observe(getViewLifecycleOwner(), posts -> {
-            followingMoodPosts.clear();
-            for (MoodPost post : posts) {
-                if (post.hasValidLocation()) {
-                    followingMoodPosts.add(post);
+                for (MoodPost post : lastPersonalMoods) {
+                    if (!current.contains(post) && post.getTimePosted() >= oldestTime) {
+                        removed.add(post);
+                    }
                 }
+
+                moodTiles.updatePosts(removed, added);
             }
-            applyAllFilters();
+
+            lastPersonalMoods = moods;
         });
     }
 
+    private void loadVisibleMoods() {
+        if (mMap == null || userLocation == null) return;
+
+        LatLngBounds bounds = mMap.getProjection().getVisibleRegion().latLngBounds;
+        moodTiles.setArea(bounds.southwest.latitude, bounds.southwest.longitude,
+                bounds.northeast.latitude, bounds.northeast.longitude);
+        moodTiles.setCircle(userLocation.latitude, userLocation.longitude, currentFilterDistance);
+        moodTiles.requestData();
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        moodTiles.removeChangeListener(moodTilesListener);
+        redrawScheduler.cancel();
+
+        if (moodMarkerManager != null) {
+            moodMarkerManager.shutdown();
+            moodMarkerManager = null;
+            moodHeatmapOverlay.shutdown();
+            moodHeatmapOverlay = null;
+            mMap = null;
+        }
+    }
+
     @Override
     public void onMapReady(@NonNull GoogleMap googleMap) {
         mMap = googleMap;
+        moodMarkerManager = new MoodMarkerManager(googleMap, requireContext());
+        googleMap.setInfoWindowAdapter(new MoodInfoWindowAdapter(requireContext()));
+        moodHeatmapOverlay = new MoodHeatmapOverlay(googleMap);
+        // The moods are only clustered again once the zoom level changes.
+        googleMap.setOnCameraIdleListener(() -> {
+            moodMarkerManager.setZoom(googleMap.getCameraPosition().zoom);
+            loadVisibleMoods();
+        });
+        moodMarkerManager.setZoom(googleMap.getCameraPosition().zoom);
+        loadVisibleMoods();
         fetchUserLocation();
     }
 
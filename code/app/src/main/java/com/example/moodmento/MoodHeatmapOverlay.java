@@ -0,0 +1,228 @@
+package com.example.moodmento;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.futuredevs.geo.MoodHeatmap;
+import com.futuredevs.models.items.MoodPost;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileOverlay;
+import com.google.android.gms.maps.model.TileOverlayOptions;
+import com.google.android.gms.maps.model.TileProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The {@code MoodHeatmapOverlay} class shows the density of moods on a map as
+ * a tile overlay coloured by emotion, which is far cheaper to draw than a
+ * marker for every mood once there are many moods.
+ *
+ * The tiles are rendered by a {@link MoodHeatmap} on a single background
+ * thread, which also owns the heatmap and the rendered tiles, and the
+ * encoded tiles are kept by their zoom level and position. When the moods
+ * change only the kept tiles touched by the moods which changed are
+ * rendered again, the rest being handed back to the map as they are.
+ */
+class MoodHeatmapOverlay implements TileProvider {
+    // The number of rendered tiles kept, enough for a few screens of tiles.
+    private static final int MAX_CACHED_TILES = 128;
+    private final GoogleMap map;
+    private final MoodHeatmap heatmap;
+    private final ExecutorService renderExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // The rendered tiles by their key, only used on the render thread.
+    private final Map<TileKey, Tile> tiles = new LinkedHashMap<TileKey, Tile>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, Tile> eldest) {
+            return size() > MAX_CACHED_TILES;
+        }
+    };
+    private TileOverlay overlay;
+
+    /**
+     * Creates a {@code MoodHeatmapOverlay} for the given {@code map}. The
+     * overlay is only added to the map once it is first shown.
+     *
+     * @param map the map to show the heatmap on
+     */
+    MoodHeatmapOverlay(GoogleMap map) {
+        this.map = map;
+        Map<MoodPost.Emotion, Integer> colours = new EnumMap<>(MoodPost.Emotion.class);
+
+        for (MoodPost.Emotion emotion : MoodPost.Emotion.values()) {
+            float hue = MoodMarkerManager.getMoodColor(emotion.toString());
+            colours.put(emotion, Color.HSVToColor(new float[] {hue, 0.85f, 0.85f}));
+        }
+
+        heatmap = new MoodHeatmap(colours);
+    }
+
+    /**
+     * Shows the given {@code posts} on the heatmap, rendering again only the
+     * tiles touched by the moods which changed.
+     *
+     * @param posts the moods to show
+     */
+    void setPosts(List<MoodPost> posts) {
+        List<MoodPost> snapshot = new ArrayList<>(posts);
+        execute(() -> {
+            List<MoodPost> changed = heatmap.setPosts(snapshot);
+
+            if (changed.isEmpty()) {
+                return;
+            }
+
+            Iterator<TileKey> iterator = tiles.keySet().iterator();
+
+            while (iterator.hasNext()) {
+                TileKey key = iterator.next();
+
+                for (MoodPost post : changed) {
+                    if (MoodHeatmap.touches(key.zoom, key.x, key.y, post)) {
+                        iterator.remove();
+                        break;
+                    }
+                }
+            }
+
+            // The map keeps its own copy of every tile, which is cleared
+            // so that it asks for them again. Untouched tiles are returned
+            // from the kept tiles without being rendered.
+            mainHandler.post(() -> {
+                if (overlay != null) {
+                    overlay.clearTileCache();
+                }
+            });
+        });
+    }
+
+    /**
+     * Shows or hides the heatmap, adding the overlay to the map when it is
+     * first shown.
+     *
+     * @param isVisible whether the heatmap should be shown
+     */
+    void setVisible(boolean isVisible) {
+        if (overlay == null) {
+            if (!isVisible) {
+                return;
+            }
+
+            overlay = map.addTileOverlay(new TileOverlayOptions()
+                    .tileProvider(this)
+                    .fadeIn(false));
+            return;
+        }
+
+        overlay.setVisible(isVisible);
+    }
+
+    /**
+     * Stops rendering tiles. The overlay may not be used once its map is no
+     * longer shown.
+     */
+    void shutdown() {
+        renderExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the tile at the given position and zoom level, rendering it on
+     * the render thread unless it is kept. This is called by the map on its
+     * own background threads, which wait for the tile.
+     */
+    @Override
+    public Tile getTile(int x, int y, int zoom) {
+        TileKey key = new TileKey(zoom, x, y);
+
+        try {
+            return renderExecutor.submit(() -> {
+                Tile tile = tiles.get(key);
+
+                if (tile == null) {
+                    tile = renderTile(key);
+                    tiles.put(key, tile);
+                }
+
+                return tile;
+            }).get();
+        }
+        catch (ExecutionException | RejectedExecutionException e) {
+            return NO_TILE;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return NO_TILE;
+        }
+    }
+
+    /**
+     * Renders the tile with the given {@code key} as a PNG image.
+     */
+    private Tile renderTile(TileKey key) {
+        int[] pixels = heatmap.render(key.zoom, key.x, key.y);
+
+        if (pixels == null) {
+            return NO_TILE;
+        }
+
+        int size = MoodHeatmap.TILE_SIZE;
+        Bitmap bitmap = Bitmap.createBitmap(pixels, size, size, Bitmap.Config.ARGB_8888);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
+        bitmap.recycle();
+        return new Tile(size, size, stream.toByteArray());
+    }
+
+    private void execute(Runnable task) {
+        try {
+            renderExecutor.execute(task);
+        }
+        catch (RejectedExecutionException e) {
+            // The overlay has been shut down.
+        }
+    }
+
+    /**
+     * The zoom level and position of a tile.
+     */
+    private static class TileKey {
+        private final int zoom;
+        private final int x;
+        private final int y;
+
+        private TileKey(int zoom, int x, int y) {
+            this.zoom = zoom;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TileKey)) {
+                return false;
+            }
+
+            TileKey other = (TileKey) o;
+            return zoom == other.zoom && x == other.x && y == other.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(zoom, x, y);
+        }
+    }
+}
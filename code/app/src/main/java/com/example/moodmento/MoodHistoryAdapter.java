@@ -17,6 +17,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.futuredevs.database.Database;
 import com.futuredevs.database.DatabaseResult;
+import com.futuredevs.images.ImageLoader;
 import com.futuredevs.models.items.MoodPost;
 
 import java.io.Serializable;
@@ -78,6 +79,17 @@ public class MoodHistoryAdapter extends RecyclerView.Adapter<MoodHistoryAdapter.
         holder.timeText.setText("(" + moodHistory.getTimeSincePostedStr() + ")");
         holder.privateIcon.setVisibility(moodHistory.isPrivate() ? View.VISIBLE : View.GONE);
 
+        // Only the thumbnail is shown in the list, the full image is loaded
+        // once the mood is opened.
+        if (moodHistory.getThumbnailData() != null) {
+            holder.thumbnail.setVisibility(View.VISIBLE);
+            ImageLoader.getInstance().loadThumbnail(moodHistory, holder.thumbnail);
+        }
+        else {
+            ImageLoader.getInstance().cancel(holder.thumbnail);
+            holder.thumbnail.setVisibility(View.GONE);
+        }
+
         // Handle overflow menu
         if (this.showOverflowMenu) {
             holder.moreOptions.setVisibility(View.VISIBLE);
@@ -149,6 +161,12 @@ public class MoodHistoryAdapter extends RecyclerView.Adapter<MoodHistoryAdapter.
         });
     }
 
+    @Override
+    public void onViewRecycled(@NonNull MyViewHolder holder) {
+        super.onViewRecycled(holder);
+        ImageLoader.getInstance().cancel(holder.thumbnail);
+    }
+
     @Override
     public int getItemCount() {
         return this.moodHistoryList.size();
@@ -156,7 +174,7 @@ public class MoodHistoryAdapter extends RecyclerView.Adapter<MoodHistoryAdapter.
 
     public static class MyViewHolder extends RecyclerView.ViewHolder {
         TextView username, timeText, moodText, moodEmoji;
-        ImageView moreOptions, privateIcon;
+        ImageView moreOptions, privateIcon, thumbnail;
 
         MyViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -166,6 +184,7 @@ public class MoodHistoryAdapter extends RecyclerView.Adapter<MoodHistoryAdapter.
             moodText = itemView.findViewById(R.id.moodDescription);
             moreOptions = itemView.findViewById(R.id.moreOptions);
             privateIcon = itemView.findViewById(R.id.image_mood_private_icon);
+            thumbnail = itemView.findViewById(R.id.image_mood_thumbnail);
         }
     }
 }
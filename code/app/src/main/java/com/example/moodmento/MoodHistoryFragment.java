@@ -34,6 +34,7 @@ public class MoodHistoryFragment extends Fragment {
     private FilterCriteria currentFilter;
     private TextView emptyFilterMessage;
     private ViewModelMoods viewModelMoods;
+    private NextPageScrollListener pageScrollListener;
 
     @SuppressLint("MissingInflatedId")
     @Override
@@ -62,14 +63,16 @@ public class MoodHistoryFragment extends Fragment {
                 refreshLayout.setVisibility(View.VISIBLE);
             }
 
+            // The moods are already ordered from newest to oldest by the query.
             allMoods.clear();
             allMoods.addAll(moods);
-            allMoods.sort((p1, p2) -> Long.compare(p2.getTimePosted(), p1.getTimePosted()));
             applyCurrentFilter();
         });
 
         this.adapter = new MoodHistoryAdapter(requireContext(), this.moodHistoryList, true, this);
         this.recyclerView.setAdapter(this.adapter);
+        this.pageScrollListener = new NextPageScrollListener(() -> viewModelMoods.loadNextPage());
+        this.recyclerView.addOnScrollListener(this.pageScrollListener);
 
         DividerItemDecoration divider = new DividerItemDecoration(this.recyclerView.getContext(), LinearLayoutManager.VERTICAL);
         Drawable dividerDrawable = ContextCompat.getDrawable(this.getContext(), R.drawable.full_width_divider);
@@ -128,6 +131,10 @@ public class MoodHistoryFragment extends Fragment {
 
         this.adapter.notifyDataSetChanged();
         updateEmptyMessage();
+
+        // If the filter leaves too few moods to be able to scroll, then the
+        // next page must be requested without waiting for a scroll.
+        this.recyclerView.post(() -> pageScrollListener.checkLoadNextPage(recyclerView));
     }
 
     /**
@@ -0,0 +1,88 @@
+package com.example.moodmento;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.futuredevs.images.ImageLoader;
+import com.futuredevs.models.items.MoodPost;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.Marker;
+
+import java.util.Locale;
+
+/**
+ * The {@code MoodInfoWindowAdapter} class shows the info window of the marker
+ * of a lone mood with the thumbnail of the mood's image, if it has one, along
+ * with who posted it, its emotion, where and when it was posted. The markers
+ * of clusters are not tagged with a mood and keep the default info window.
+ *
+ * The map draws an info window once when it is shown, so while a thumbnail
+ * which has not been cached is decoded its blurhash is shown, and the info
+ * window is shown again once the thumbnail has been decoded, which then
+ * finds it in the cache.
+ */
+class MoodInfoWindowAdapter implements GoogleMap.InfoWindowAdapter {
+    private final View window;
+    private final ImageView thumbnail;
+    private final TextView username;
+    private final TextView emotionIcon;
+    private final TextView emotion;
+    private final TextView location;
+    private final TextView time;
+
+    /**
+     * Creates a {@code MoodInfoWindowAdapter} inflating its info window with
+     * the given {@code context}.
+     *
+     * @param context the context to inflate the info window with
+     */
+    MoodInfoWindowAdapter(Context context) {
+        window = LayoutInflater.from(context).inflate(R.layout.info_window_mood, null);
+        thumbnail = window.findViewById(R.id.info_thumbnail);
+        username = window.findViewById(R.id.info_username);
+        emotionIcon = window.findViewById(R.id.info_emotion_icon);
+        emotion = window.findViewById(R.id.info_emotion);
+        location = window.findViewById(R.id.info_location);
+        time = window.findViewById(R.id.info_time);
+    }
+
+    @Override
+    public View getInfoWindow(Marker marker) {
+        if (!(marker.getTag() instanceof MoodPost)) {
+            return null;
+        }
+
+        MoodPost post = (MoodPost) marker.getTag();
+        username.setText(marker.getTitle());
+        emotionIcon.setText(post.getEmotion().getEmoji());
+        emotion.setText("Was feeling " + post.getEmotion().toString().toLowerCase());
+        location.setText((post.getCity() != null) ? post.getCity()
+                : String.format(Locale.getDefault(), "%.4f, %.4f",
+                                post.getLatitude(), post.getLongitude()));
+        time.setText(post.getTimeSincePostedStr());
+
+        if (post.getThumbnailData() != null) {
+            thumbnail.setVisibility(View.VISIBLE);
+            ImageLoader.getInstance().loadThumbnail(post, thumbnail, () -> {
+                if (marker.isInfoWindowShown()) {
+                    marker.showInfoWindow();
+                }
+            });
+        }
+        else {
+            ImageLoader.getInstance().cancel(thumbnail);
+            thumbnail.setVisibility(View.GONE);
+        }
+
+        return window;
+    }
+
+    @Override
+    public View getInfoContents(Marker marker) {
+        // Clusters use the default info window.
+        return null;
+    }
+}
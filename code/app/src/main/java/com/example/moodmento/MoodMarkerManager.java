@@ -0,0 +1,385 @@
+package com.example.moodmento;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.futuredevs.geo.MoodCluster;
+import com.futuredevs.geo.MoodClusterer;
+import com.futuredevs.models.items.MoodPost;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.Circle;
+import com.google.android.gms.maps.model.CircleOptions;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@code MoodMarkerManager} class keeps the markers of a map in step with
+ * a list of moods. Rather than clearing the map and adding every marker
+ * again, each update only adds the markers of new moods, removes those of
+ * moods no longer shown and changes the markers of moods which have changed.
+ * The circle showing the filter radius is likewise created once and then
+ * moved and resized in place.
+ *
+ * Moods which would overlap are shown as a single cluster marker, showing
+ * the number of moods in the colour of their most common emotion. The moods
+ * are clustered on a background thread by a {@link MoodClusterer} whenever
+ * they change and whenever the zoom level of the map changes, but not when
+ * the map is only moved. The marker of a lone mood is tagged with the mood,
+ * which {@link MoodInfoWindowAdapter} shows in its info window.
+ */
+class MoodMarkerManager {
+    private static final int RADIUS_COLOUR = 0x30ff0000;
+    private static final float RADIUS_STROKE_WIDTH = 2;
+    private static final float CLUSTER_ICON_SIZE_DP = 40;
+    // Clusters of at least this many moods show the size rounded down to
+    // the largest bucket, so that only a few cluster icons are ever drawn.
+    private static final int[] CLUSTER_BUCKETS = {10, 20, 50, 100, 200, 500, 1000};
+    private final GoogleMap map;
+    private final float density;
+    private final ExecutorService clusterExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // The marker of each shown mood or cluster and what it currently shows,
+    // by the document id of the mood or the cell of the cluster.
+    private final Map<Object, Marker> markers = new HashMap<>();
+    private final Map<Object, MarkerState> markerStates = new HashMap<>();
+    // The icons of lone mood markers by their colour, one for each emotion
+    // and one for the current user's moods.
+    private final Map<Float, BitmapDescriptor> markerIcons = new HashMap<>();
+    // The icons of cluster markers by their colour and label.
+    private final Map<String, BitmapDescriptor> clusterIcons = new HashMap<>();
+    private Circle radiusCircle;
+    private List<MoodPost> posts = Collections.emptyList();
+    private String currentUser;
+    private int zoom = -1;
+    // Increased each time the moods are clustered, so that the clusters of
+    // an earlier clustering which finishes late are never shown.
+    private int generation;
+
+    /**
+     * Creates a {@code MoodMarkerManager} managing the markers of the given
+     * {@code map}.
+     *
+     * @param map     the map to show markers on
+     * @param context the context used to obtain the density of the screen
+     */
+    MoodMarkerManager(GoogleMap map, Context context) {
+        this.map = map;
+        this.density = context.getResources().getDisplayMetrics().density;
+    }
+
+    /**
+     * Shows the given {@code posts} on the map once they have been
+     * clustered. The posts of the current user are shown in a separate
+     * colour.
+     *
+     * @param posts       the moods to show
+     * @param currentUser the name of the current user
+     */
+    void setPosts(List<MoodPost> posts, String currentUser) {
+        this.posts = new ArrayList<>(posts);
+        this.currentUser = currentUser;
+        cluster();
+    }
+
+    /**
+     * Clusters the moods again if the given zoom level of the camera is at a
+     * different whole zoom level than the moods were last clustered at.
+     *
+     * @param cameraZoom the zoom level of the camera
+     */
+    void setZoom(float cameraZoom) {
+        int zoom = (int) cameraZoom;
+
+        if (zoom != this.zoom) {
+            this.zoom = zoom;
+            cluster();
+        }
+    }
+
+    /**
+     * Stops clustering the moods. The manager may not be used once its map
+     * is no longer shown.
+     */
+    void shutdown() {
+        generation++;
+        clusterExecutor.shutdown();
+    }
+
+    /**
+     * Clusters the moods on the background thread and then shows the
+     * clusters, unless the moods have been clustered again in the meantime.
+     */
+    private void cluster() {
+        if (zoom < 0 || clusterExecutor.isShutdown()) {
+            return;
+        }
+
+        int clusterGeneration = ++generation;
+        List<MoodPost> posts = this.posts;
+        int zoom = this.zoom;
+        clusterExecutor.execute(() -> {
+            List<MoodCluster> clusters = MoodClusterer.cluster(posts, zoom);
+            mainHandler.post(() -> {
+                if (clusterGeneration == generation) {
+                    showClusters(clusters);
+                }
+            });
+        });
+    }
+
+    /**
+     * Shows a marker for each of the given {@code clusters}, changing only
+     * the markers which differ from those already shown.
+     *
+     * @param clusters the clusters of the moods to show
+     */
+    private void showClusters(List<MoodCluster> clusters) {
+        Map<Object, MarkerState> updated = new HashMap<>();
+
+        for (MoodCluster cluster : clusters) {
+            // A lone mood keeps the marker of the mood itself.
+            Object key = (cluster.size() == 1) ? getKey(cluster.getPosts().get(0))
+                                               : cluster.getCellKey();
+            updated.put(key, new MarkerState(cluster, currentUser));
+        }
+
+        Iterator<Map.Entry<Object, Marker>> iterator = markers.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Object, Marker> entry = iterator.next();
+
+            if (!updated.containsKey(entry.getKey())) {
+                entry.getValue().remove();
+                markerStates.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+
+        for (Map.Entry<Object, MarkerState> entry : updated.entrySet()) {
+            MarkerState state = entry.getValue();
+            MarkerState previous = markerStates.put(entry.getKey(), state);
+            Marker marker = markers.get(entry.getKey());
+
+            if (marker == null) {
+                MarkerOptions options = new MarkerOptions()
+                        .position(state.position)
+                        .title(state.title)
+                        .snippet(state.snippet)
+                        .icon(getIcon(state));
+
+                if (state.label != null) {
+                    options.anchor(0.5f, 0.5f);
+                }
+
+                Marker added = map.addMarker(options);
+                added.setTag(state.post);
+                markers.put(entry.getKey(), added);
+                continue;
+            }
+
+            if (state.post != previous.post) {
+                marker.setTag(state.post);
+            }
+
+            if (!state.position.equals(previous.position)) {
+                marker.setPosition(state.position);
+            }
+            if (!Objects.equals(state.title, previous.title)) {
+                marker.setTitle(state.title);
+            }
+            if (!Objects.equals(state.snippet, previous.snippet)) {
+                marker.setSnippet(state.snippet);
+            }
+            if (state.hue != previous.hue || !Objects.equals(state.label, previous.label)) {
+                marker.setIcon(getIcon(state));
+            }
+        }
+    }
+
+    /**
+     * Shows the filter radius as a circle of the given radius around the
+     * given {@code centre}, moving and resizing the existing circle if there
+     * is one.
+     *
+     * @param centre       the centre of the circle
+     * @param radiusMeters the radius of the circle in metres
+     */
+    void setRadius(LatLng centre, double radiusMeters) {
+        if (radiusCircle == null) {
+            radiusCircle = map.addCircle(new CircleOptions()
+                    .center(centre)
+                    .radius(radiusMeters)
+                    .strokeColor(RADIUS_COLOUR)
+                    .fillColor(RADIUS_COLOUR)
+                    .strokeWidth(RADIUS_STROKE_WIDTH));
+            return;
+        }
+
+        if (!centre.equals(radiusCircle.getCenter())) {
+            radiusCircle.setCenter(centre);
+        }
+        if (radiusCircle.getRadius() != radiusMeters) {
+            radiusCircle.setRadius(radiusMeters);
+        }
+    }
+
+    /**
+     * Returns the icon of a marker, which is the default marker for a lone
+     * mood and a circle labelled with its size for a cluster. Icons are
+     * created once and shared by every marker of the same colour and label.
+     */
+    private BitmapDescriptor getIcon(MarkerState state) {
+        if (state.label == null) {
+            BitmapDescriptor icon = markerIcons.get(state.hue);
+
+            if (icon == null) {
+                icon = BitmapDescriptorFactory.defaultMarker(state.hue);
+                markerIcons.put(state.hue, icon);
+            }
+
+            return icon;
+        }
+
+        String key = state.hue + "_" + state.label;
+        BitmapDescriptor icon = clusterIcons.get(key);
+
+        if (icon == null) {
+            icon = BitmapDescriptorFactory.fromBitmap(drawClusterIcon(state.hue, state.label));
+            clusterIcons.put(key, icon);
+        }
+
+        return icon;
+    }
+
+    /**
+     * Draws the icon of a cluster, a circle of the colour of the given
+     * {@code hue} showing the given {@code label}.
+     */
+    private Bitmap drawClusterIcon(float hue, String label) {
+        int size = Math.round(CLUSTER_ICON_SIZE_DP * density);
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        float radius = size / 2f;
+        float strokeWidth = 2 * density;
+
+        paint.setColor(Color.WHITE);
+        canvas.drawCircle(radius, radius, radius, paint);
+        paint.setColor(Color.HSVToColor(new float[] {hue, 0.85f, 0.85f}));
+        canvas.drawCircle(radius, radius, radius - strokeWidth, paint);
+
+        paint.setColor(Color.WHITE);
+        paint.setTextAlign(Paint.Align.CENTER);
+        paint.setTextSize(size * 0.35f);
+        paint.setFakeBoldText(true);
+        float baseline = radius - (paint.ascent() + paint.descent()) / 2;
+        canvas.drawText(label, radius, baseline, paint);
+        return bitmap;
+    }
+
+    /**
+     * Returns the label of a cluster of the given {@code size}, which is the
+     * size itself for small clusters and the largest bucket reached followed
+     * by a plus otherwise.
+     */
+    static String getClusterLabel(int size) {
+        String label = String.valueOf(size);
+
+        for (int bucket : CLUSTER_BUCKETS) {
+            if (size >= bucket) {
+                label = bucket + "+";
+            }
+        }
+
+        return label;
+    }
+
+    /**
+     * Returns the description of the given {@code post} shown below its
+     * marker's title, naming the city stored with the post if it has one.
+     */
+    static String getSnippet(MoodPost post) {
+        String emotion = post.getEmotion().toString();
+        return (post.getCity() != null) ? emotion + " in " + post.getCity() : emotion;
+    }
+
+    static float getMoodColor(String mood) {
+        switch(mood) {
+            case "HAPPY": return BitmapDescriptorFactory.HUE_GREEN;
+            case "SADNESS": return BitmapDescriptorFactory.HUE_BLUE;
+            case "ANGER": return BitmapDescriptorFactory.HUE_RED;
+            case "CONFUSED": return BitmapDescriptorFactory.HUE_ORANGE;
+            case "FEAR": return BitmapDescriptorFactory.HUE_VIOLET;
+            case "SURPRISED": return BitmapDescriptorFactory.HUE_YELLOW;
+            case "SHAME": return BitmapDescriptorFactory.HUE_ROSE;
+            case "DISGUSTED": return BitmapDescriptorFactory.HUE_MAGENTA;
+            default: return BitmapDescriptorFactory.HUE_AZURE;
+        }
+    }
+
+    /**
+     * Returns the key of the marker of the given {@code post}, which is its
+     * document id or, for moods which have not been stored, the mood itself.
+     */
+    private static Object getKey(MoodPost post) {
+        String documentId = post.getDocumentId();
+        return (documentId != null && !documentId.isEmpty()) ? documentId : post;
+    }
+
+    /**
+     * What the marker of a mood or cluster shows, compared against what it
+     * showed before so that only the parts which differ are changed.
+     */
+    private static class MarkerState {
+        private final LatLng position;
+        private final String title;
+        private final String snippet;
+        private final float hue;
+        // The label of a cluster, null for the marker of a lone mood.
+        private final String label;
+        // The mood of a lone mood's marker, shown in its info window, null
+        // for the marker of a cluster.
+        private final MoodPost post;
+
+        private MarkerState(MoodCluster cluster, String currentUser) {
+            position = new LatLng(cluster.getLatitude(), cluster.getLongitude());
+
+            if (cluster.size() == 1) {
+                MoodPost post = cluster.getPosts().get(0);
+                boolean isPersonalPost = post.getUser().equals(currentUser);
+                title = isPersonalPost ? "You" : post.getUser();
+                snippet = getSnippet(post);
+                hue = isPersonalPost ? BitmapDescriptorFactory.HUE_CYAN
+                        : getMoodColor(post.getEmotion().toString());
+                label = null;
+                this.post = post;
+            }
+            else {
+                String emotion = cluster.getDominantEmotion().toString();
+                title = cluster.size() + " moods";
+                snippet = "Mostly " + emotion;
+                hue = getMoodColor(emotion);
+                label = getClusterLabel(cluster.size());
+                post = null;
+            }
+        }
+    }
+}
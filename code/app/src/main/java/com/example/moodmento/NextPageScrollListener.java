@@ -0,0 +1,58 @@
+package com.example.moodmento;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * The {@code NextPageScrollListener} class is a scroll listener for a
+ * {@code RecyclerView} using a {@code LinearLayoutManager} that requests the
+ * next page of data once the user scrolls near the end of the list.
+ *
+ * @author Spencer Schmidt
+ */
+public class NextPageScrollListener extends RecyclerView.OnScrollListener {
+    /** The number of rows from the end of the list at which to load more. */
+    private static final int PREFETCH_DISTANCE = 5;
+    private final Runnable loadNextPage;
+
+    /**
+     * Creates a {@code NextPageScrollListener} that invokes the given
+     * {@code loadNextPage} when the list is scrolled near its end.
+     *
+     * @param loadNextPage the callback to request the next page of data
+     */
+    public NextPageScrollListener(Runnable loadNextPage) {
+        this.loadNextPage = loadNextPage;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        // Only scrolling downwards can bring the end of the list into view.
+        if (dy > 0) {
+            this.checkLoadNextPage(recyclerView);
+        }
+    }
+
+    /**
+     * Requests the next page of data if the last visible row of the given
+     * {@code recyclerView} is within the prefetch distance of the end of the
+     * list.
+     *
+     * @param recyclerView the list to check the scroll position of
+     */
+    public void checkLoadNextPage(@NonNull RecyclerView recyclerView) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+        if (!(layoutManager instanceof LinearLayoutManager)) {
+            return;
+        }
+
+        int lastVisible = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        int itemCount = layoutManager.getItemCount();
+
+        if (lastVisible >= itemCount - PREFETCH_DISTANCE) {
+            this.loadNextPage.run();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.moodmento;
+
+import android.view.Choreographer;
+
+/**
+ * The {@code RedrawScheduler} class coalesces requests to redraw a view
+ * into at most one redraw per frame. Any number of calls to
+ * {@link #invalidate()} before the next frame result in the redraw being
+ * run once, just before that frame is drawn.
+ *
+ * A scheduler must only be used from the main thread.
+ */
+class RedrawScheduler {
+    private final Runnable redraw;
+    private final Choreographer.FrameCallback frameCallback;
+    private boolean isScheduled;
+
+    /**
+     * Creates a {@code RedrawScheduler} running the given {@code redraw}.
+     *
+     * @param redraw the redraw to run once per invalidated frame
+     */
+    RedrawScheduler(Runnable redraw) {
+        this.redraw = redraw;
+        this.frameCallback = frameTimeNanos -> {
+            isScheduled = false;
+            this.redraw.run();
+        };
+    }
+
+    /**
+     * Schedules the redraw for the next frame unless it is already
+     * scheduled.
+     */
+    void invalidate() {
+        if (!isScheduled) {
+            isScheduled = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    /**
+     * Cancels the scheduled redraw, if there is one.
+     */
+    void cancel() {
+        if (isScheduled) {
+            isScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+        }
+    }
+}
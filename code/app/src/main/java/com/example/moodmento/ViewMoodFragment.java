@@ -1,10 +1,7 @@
 package com.example.moodmento;
 
 import android.content.Intent;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.Bundle;
-import android.util.Base64;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -22,6 +19,8 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.futuredevs.database.Database;
+import com.futuredevs.geo.GeocodingService;
+import com.futuredevs.images.ImageLoader;
 import com.futuredevs.models.ViewModelComments;
 import com.futuredevs.models.items.MoodComment;
 import com.futuredevs.models.items.MoodPost;
@@ -106,7 +105,7 @@ public class ViewMoodFragment extends Fragment {
 			ImageView optionMenu = view.findViewById(R.id.image_mood_view_options);
 			optionMenu.setOnClickListener(this::showPopupMenu);
 
-			if (this.viewingPost.getNumTopLevelComments() > 0) {
+			if (this.shouldRequestComments()) {
 				this.loadingCommentsBar.setVisibility(View.VISIBLE);
 				this.commentsModel.requestTopLevelComments(this.viewingPost);
 			}
@@ -124,17 +123,39 @@ public class ViewMoodFragment extends Fragment {
 		return view;
 	}
 
+	@Override
+	public void onDestroyView() {
+		super.onDestroyView();
+		ImageLoader.getInstance().cancel(this.moodImageView);
+	}
+
 	@Override
 	public void onResume() {
 		super.onResume();
 		this.commentListView.setVisibility(View.GONE);
 
-		if (this.viewingPost.getNumTopLevelComments() > 0) {
+		if (this.shouldRequestComments()) {
 			this.loadingCommentsBar.setVisibility(View.VISIBLE);
 			this.commentsModel.requestTopLevelComments(this.viewingPost);
 		}
 	}
 
+	/**
+	 * Returns whether the comments of the post being viewed should be
+	 * requested. Posts of other users may come from the following feed which
+	 * holds a copy of the comment count taken when the post was written, so
+	 * their comments are always requested.
+	 *
+	 * @return {@code true} if the comments should be requested
+	 */
+	private boolean shouldRequestComments() {
+		if (this.viewingPost.getNumTopLevelComments() > 0) {
+			return true;
+		}
+
+		return !this.viewingPost.getUser().equals(Database.getInstance().getCurrentUser());
+	}
+
 	/**
 	 * Initializes all of the views for the post with their appropriate values.
 	 */
@@ -171,9 +192,38 @@ public class ViewMoodFragment extends Fragment {
 // <<<<<<< mood-viewing-additions
 			timeLocationBuilder.append(" from %s");
 			String timeLocationStr = timeLocationBuilder.toString();
-			String cityLocation = this.viewingPost.getCityLocation(this.getContext());
-			this.postTimeTextView.setText(String.format(timeLocationStr, datePosted,
-					timePosted, cityLocation));
+
+			if (this.viewingPost.getCity() != null) {
+				this.postTimeTextView.setText(String.format(timeLocationStr, datePosted,
+						timePosted, this.viewingPost.getCity()));
+			} else {
+				// Moods posted before their city was stored, or whose city was
+				// not found in time when posted, look it up, showing the
+				// coordinates until the city has been found. The owner of the
+				// mood stores the city so that it is not looked up again.
+				this.postTimeTextView.setText(String.format(timeLocationStr, datePosted,
+						timePosted, this.viewingPost.getLocation()));
+				MoodPost post = this.viewingPost;
+				GeocodingService.getInstance().resolveCity(this.requireContext(),
+						post.getLatitude(), post.getLongitude(), city -> {
+							if (city == null) {
+								return;
+							}
+
+							String currentUser = Database.getInstance().getCurrentUser();
+
+							if (post.getUser().equals(currentUser)) {
+								post.setCity(city);
+								Database.getInstance().setMoodCity(currentUser,
+										post.getDocumentId(), city, r -> {});
+							}
+
+							if (this.getView() != null) {
+								this.postTimeTextView.setText(String.format(timeLocationStr,
+										datePosted, timePosted, city));
+							}
+						});
+			}
 		} else {
 			String timeLocationStr = timeLocationBuilder.toString();
 			this.postTimeTextView.setText(String.format(timeLocationStr, datePosted, timePosted));
@@ -228,13 +278,12 @@ public class ViewMoodFragment extends Fragment {
 				this.reasonTextView.setVisibility(View.GONE);
 			}
 
-			String base64Image = this.viewingPost.getImageData();
-
-			if (base64Image != null && !base64Image.isEmpty()) {
-				byte[] imageBytes = Base64.decode(base64Image, Base64.NO_PADDING | Base64.NO_WRAP | Base64.URL_SAFE);
-				Bitmap bitmap = BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
-				this.moodImageView.setImageBitmap(bitmap);
+			if (this.viewingPost.hasImage()) {
+				// Images are not loaded with the post so it is requested only
+				// now that the post is being viewed, showing the thumbnail
+				// stored with the post until it has loaded.
 				this.moodImageView.setVisibility(View.VISIBLE);
+				ImageLoader.getInstance().loadImage(this.viewingPost, this.moodImageView);
 			} else {
 				this.moodImageView.setVisibility(View.GONE);
 			}
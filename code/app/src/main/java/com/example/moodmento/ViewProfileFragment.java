@@ -116,6 +116,7 @@ public class ViewProfileFragment extends Fragment {
         this.moodRecyclerView.setLayoutManager(new LinearLayoutManager(this.getContext()));
         this.moodHistoryAdapter = new MoodHistoryAdapter(this.getContext(), this.moodHistoryList, isOwnProfile);
         this.moodRecyclerView.setAdapter(this.moodHistoryAdapter);
+        this.moodRecyclerView.addOnScrollListener(new NextPageScrollListener(() -> viewModelMoods.loadNextPage()));
 
         DividerItemDecoration divider = new DividerItemDecoration(moodRecyclerView.getContext(), LinearLayoutManager.VERTICAL);
         Drawable dividerDrawable = ContextCompat.getDrawable(this.getContext(), R.drawable.full_width_divider);
@@ -152,7 +153,6 @@ public class ViewProfileFragment extends Fragment {
                     moodHistoryList.addAll(posts);
                 }
 
-                moodHistoryList.sort((p1, p2) -> Long.compare(p2.getTimePosted(), p1.getTimePosted()));
                 moodHistoryAdapter.notifyDataSetChanged();
             }
         });
@@ -0,0 +1,282 @@
+package com.futuredevs.database;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * <p>The {@code BatchWriter} class writes to, and deletes, large numbers of
+ * Firestore documents using {@code WriteBatch}es of up to
+ * {@value #MAX_BATCH_WRITES} writes each rather than a request for every
+ * document.</p>
+ *
+ * <p>Collections are deleted a page at a time, with any subcollections of the
+ * documents in a page deleted before the documents themselves. At most
+ * {@value #MAX_CONCURRENT_BATCHES} batches are committed at once, so the next
+ * page is read while the previous ones are still being committed but the
+ * number of outstanding requests remains bounded.</p>
+ *
+ * <p>A {@code BatchWriter} holds the progress of a single operation, so a new
+ * writer should be created for each operation.</p>
+ *
+ * @author Spencer Schmidt
+ */
+class BatchWriter {
+	/** The maximum number of writes Firestore allows in a single batch. */
+	static final int MAX_BATCH_WRITES = 500;
+	/** The maximum number of batches being committed at the same time. */
+	private static final int MAX_CONCURRENT_BATCHES = 4;
+	private final FirebaseFirestore db;
+	private final IProgressListener progressListener;
+	/** The batches waiting for another batch to finish committing, oldest first. */
+	private final Deque<TaskCompletionSource<Void>> waitingCommits = new ArrayDeque<>();
+	/** Every batch that has been committed by this writer. */
+	private final List<Task<Void>> allCommits = new ArrayList<>();
+	/** The number of batches being committed, or about to be. */
+	private int numActive;
+	/** The error of the first batch which failed, {@code null} if none has. */
+	private Exception failure;
+	private int numWritten;
+
+	/**
+	 * Creates a {@code BatchWriter} writing to the given {@code db} that
+	 * reports the number of documents written to {@code progressListener}.
+	 *
+	 * @param db               the database to write to
+	 * @param progressListener the listener to notify of progress, may be
+	 *                         {@code null}
+	 */
+	BatchWriter(FirebaseFirestore db, IProgressListener progressListener) {
+		this.db = db;
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * Applies the given {@code operation} to each of the documents in
+	 * {@code refs} using as few batches as possible and commits them.
+	 *
+	 * @param refs      the documents to write to
+	 * @param operation the write to add to a batch for a single document
+	 *
+	 * @return a task that completes once every batch has been committed
+	 */
+	Task<Void> writeAll(List<DocumentReference> refs,
+						BiConsumer<WriteBatch, DocumentReference> operation) {
+		Task<Void> queued = Tasks.forResult(null);
+
+		for (int i = 0; i < refs.size(); i += MAX_BATCH_WRITES) {
+			List<DocumentReference> chunk = refs.subList(i, Math.min(i + MAX_BATCH_WRITES, refs.size()));
+			queued = queued.continueWithTask(t -> {
+				if (!t.isSuccessful()) {
+					return t;
+				}
+
+				return this.commit(chunk, operation);
+			});
+		}
+
+		return this.whenCommitted(queued);
+	}
+
+	/**
+	 * Deletes every document matched by the given {@code query}.
+	 *
+	 * @param query the query of the documents to delete
+	 *
+	 * @return a task that completes once every document has been deleted
+	 */
+	Task<Void> deleteAll(Query query) {
+		return this.deleteAll(query, null, null);
+	}
+
+	/**
+	 * Deletes every document matched by the given {@code query}, first
+	 * deleting the documents of the {@code subcollection} of each document
+	 * for which {@code hasSubcollection} is {@code true}.
+	 *
+	 * @param query            the query of the documents to delete
+	 * @param subcollection    the name of the subcollection of each document
+	 * @param hasSubcollection whether a document may have documents in its
+	 *                         subcollection, used to avoid reading empty
+	 *                         subcollections
+	 *
+	 * @return a task that completes once every document has been deleted
+	 */
+	Task<Void> deleteAll(Query query, String subcollection,
+						 Predicate<DocumentSnapshot> hasSubcollection) {
+		Query ordered = query.orderBy(FieldPath.documentId()).limit(MAX_BATCH_WRITES);
+		return this.whenCommitted(this.deletePage(ordered, null, subcollection, hasSubcollection));
+	}
+
+	/**
+	 * Deletes the page of documents after the given {@code cursor} followed
+	 * by each of the remaining pages.
+	 *
+	 * @param query            the ordered and limited query of the documents
+	 * @param cursor           the last document of the previous page or
+	 *                         {@code null} for the first page
+	 * @param subcollection    the name of the subcollection of each document
+	 * @param hasSubcollection whether a document may have a subcollection
+	 *
+	 * @return a task that completes once every page has been queued
+	 */
+	private Task<Void> deletePage(Query query, DocumentSnapshot cursor, String subcollection,
+								  Predicate<DocumentSnapshot> hasSubcollection) {
+		Query page = (cursor != null) ? query.startAfter(cursor) : query;
+
+		return page.get().continueWithTask(pageTask -> {
+			if (!pageTask.isSuccessful()) {
+				return Tasks.forException(pageTask.getException());
+			}
+
+			List<DocumentSnapshot> documents = pageTask.getResult().getDocuments();
+			List<DocumentReference> refs = new ArrayList<>();
+			Task<Void> children = Tasks.forResult(null);
+
+			for (DocumentSnapshot document : documents) {
+				refs.add(document.getReference());
+
+				if (subcollection != null && hasSubcollection.test(document)) {
+					// The subcollections are deleted one at a time, each of
+					// them being limited by the same bound on batches.
+					Query childQuery = document.getReference()
+											   .collection(subcollection)
+											   .orderBy(FieldPath.documentId())
+											   .limit(MAX_BATCH_WRITES);
+					children = children.continueWithTask(t -> {
+						if (!t.isSuccessful()) {
+							return t;
+						}
+
+						return this.deletePage(childQuery, null, null, null);
+					});
+				}
+			}
+
+			return children.continueWithTask(t -> {
+				if (!t.isSuccessful() || refs.isEmpty()) {
+					return t;
+				}
+
+				return this.commit(refs, WriteBatch::delete);
+			}).continueWithTask(t -> {
+				if (!t.isSuccessful() || documents.size() < MAX_BATCH_WRITES) {
+					return t;
+				}
+
+				DocumentSnapshot last = documents.get(documents.size() - 1);
+				return this.deletePage(query, last, subcollection, hasSubcollection);
+			});
+		});
+	}
+
+	/**
+	 * Commits a batch applying the given {@code operation} to each of the
+	 * documents in {@code refs} once fewer than
+	 * {@value #MAX_CONCURRENT_BATCHES} batches are being committed. No
+	 * further batches are committed once one has failed.
+	 *
+	 * @param refs      the documents to write to, at most
+	 *                  {@value #MAX_BATCH_WRITES}
+	 * @param operation the write to add to the batch for a single document
+	 *
+	 * @return a task that completes once the batch has started committing
+	 */
+	private Task<Void> commit(List<DocumentReference> refs,
+							  BiConsumer<WriteBatch, DocumentReference> operation) {
+		return this.acquire().continueWithTask(t -> {
+			if (this.failure != null) {
+				this.release();
+				return Tasks.forException(this.failure);
+			}
+
+			WriteBatch batch = this.db.batch();
+
+			for (DocumentReference ref : refs) {
+				operation.accept(batch, ref);
+			}
+
+			Task<Void> commit = batch.commit().addOnCompleteListener(c -> {
+				if (c.isSuccessful()) {
+					this.numWritten += refs.size();
+
+					if (this.progressListener != null) {
+						this.progressListener.onProgress(this.numWritten);
+					}
+				}
+				else if (this.failure == null) {
+					this.failure = c.getException();
+				}
+
+				this.release();
+			});
+			this.allCommits.add(commit);
+			return Tasks.forResult(null);
+		});
+	}
+
+	/**
+	 * Claims one of the {@value #MAX_CONCURRENT_BATCHES} places for a batch
+	 * being committed, waiting for a batch to finish committing if every
+	 * place is taken. Every place claimed must be given back by
+	 * {@link #release}.
+	 *
+	 * @return a task that completes once a place has been claimed
+	 */
+	private Task<Void> acquire() {
+		if (this.numActive < MAX_CONCURRENT_BATCHES) {
+			this.numActive++;
+			return Tasks.forResult(null);
+		}
+
+		TaskCompletionSource<Void> waiting = new TaskCompletionSource<>();
+		this.waitingCommits.addLast(waiting);
+		return waiting.getTask();
+	}
+
+	/**
+	 * Gives back a place claimed by {@link #acquire}, handing it to the
+	 * oldest batch waiting for one if there is any.
+	 */
+	private void release() {
+		TaskCompletionSource<Void> waiting = this.waitingCommits.pollFirst();
+
+		if (waiting != null) {
+			waiting.setResult(null);
+		}
+		else {
+			this.numActive--;
+		}
+	}
+
+	/**
+	 * Returns a task that completes once the given {@code queued} task has
+	 * completed and every batch committed by this writer has completed.
+	 *
+	 * @param queued the task queueing the batches of an operation
+	 *
+	 * @return a task that fails if any of the batches failed
+	 */
+	private Task<Void> whenCommitted(Task<Void> queued) {
+		return queued.continueWithTask(t -> {
+			if (!t.isSuccessful()) {
+				return t;
+			}
+
+			return Tasks.whenAll(new ArrayList<>(this.allCommits));
+		});
+	}
+}
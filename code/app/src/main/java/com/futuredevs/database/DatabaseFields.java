@@ -27,6 +27,16 @@ public final class DatabaseFields {
 	public static final String USER_NOTIF_COLLECTION = "notifications";
 	/** The field name for the list of users the user has sent requests to. */
 	public static final String USER_PENDING_FOLLOWS_FLD = "pending_follows";
+	/**
+	 * The field name for the user's feed collection which holds a copy of
+	 * the public moods of the users they follow.
+	 */
+	public static final String USER_FEED_COLLECTION = "feed";
+	/**
+	 * The field name for the version of the user's stored data, used to
+	 * migrate data stored by older versions of the application.
+	 */
+	public static final String USER_DATA_VERSION_FLD = "data_version";
 
 	// =================================================
 	// Fields for the mood posts
@@ -42,8 +52,31 @@ public final class DatabaseFields {
 	public static final String MOOD_TIME_FLD = "post_time";
 	/** The field name for the location a post was created. */
 	public static final String MOOD_LOCATION_FLD = "location";
-	/** The field name for the image data of a post. */
+	/**
+	 * The field name for the geohash of the location a post was created,
+	 * used to query the posts near a location by a range of geohashes.
+	 */
+	public static final String MOOD_GEOHASH_FLD = "geohash";
+	/** The field name for the name of the city a post was created in. */
+	public static final String MOOD_CITY_FLD = "city";
+	/**
+	 * The field name for the Base64 image data of a post. Only older posts
+	 * hold their image inline, newer posts reference an image by its hash.
+	 */
 	public static final String MOOD_IMG_FLD = "image";
+	/** The field name for the hash of the image referenced by a post. */
+	public static final String MOOD_IMG_HASH_FLD = "image_hash";
+	/**
+	 * The field name for the bytes of a post's thumbnail, a small copy of
+	 * its image stored inline so lists of posts can show it without
+	 * downloading the full image.
+	 */
+	public static final String MOOD_THUMBNAIL_FLD = "thumbnail";
+	/**
+	 * The field name for the blurhash of a post's image, a short string
+	 * from which a blurred placeholder of the image is drawn.
+	 */
+	public static final String MOOD_BLURHASH_FLD = "blurhash";
 	/** The field name for the view status of a post. */
 	public static final String MOOD_VIEW_STATUS_FLD = "privated";
 	/** The field name for the comment collection associated with a post. */
@@ -52,6 +85,11 @@ public final class DatabaseFields {
 	public static final String MOOD_EDITED_FLD = "edited";
 	/** The field name for the number of topo level comments for a post. */
 	public static final String MOOD_COMMENT_COUNT = "num_comments";
+	/**
+	 * The field name for the id of a post's pending fan out, present until
+	 * the post has been copied into the feeds of the poster's followers.
+	 */
+	public static final String MOOD_FAN_OUT_FLD = "pending_fan_out";
 
 	// =================================================
 	// Fields for the mood comments
@@ -72,6 +110,20 @@ public final class DatabaseFields {
 	/** The field for the number of sub-comments of a comment. */
 	public static final String CMT_NUM_SUB = "num_replies";
 
+	// =================================================
+	// Fields for the images
+	// =================================================
+
+	/**
+	 * Represents the name of the images collection. Each image is stored
+	 * once in a document named by the SHA-256 hash of its bytes.
+	 */
+	public static final String IMAGE_COLLECTION = "images";
+	/** The field name for the bytes of an image. */
+	public static final String IMG_DATA_FLD = "data";
+	/** The field name for the number of posts referencing an image. */
+	public static final String IMG_REF_COUNT_FLD = "ref_count";
+
 	// =================================================
 	// Fields for the notifications
 	// =================================================
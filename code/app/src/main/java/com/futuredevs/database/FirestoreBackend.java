@@ -0,0 +1,1933 @@
+package com.futuredevs.database;
+
+import android.util.Base64;
+import android.util.Log;
+
+import com.futuredevs.database.IAuthenticator.AuthenticationResult;
+
+import com.futuredevs.database.queries.DatabaseQuery;
+import com.futuredevs.database.queries.IListenerRegistration;
+import com.futuredevs.database.queries.IMoodChangeListener;
+import com.futuredevs.database.queries.IQueryListener;
+import com.futuredevs.database.queries.MoodChange;
+import com.futuredevs.geo.GeoHash;
+import com.futuredevs.models.items.MoodComment;
+import com.futuredevs.models.items.MoodPost;
+import com.futuredevs.models.items.Notification;
+import com.futuredevs.models.items.UserProfile;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * <p>The {@code FirestoreBackend} class is the {@link IDatabaseBackend} used
+ * by the application which stores the data in the <b>Firebase Firestore</b>
+ * database. It handles initializing the connection with the database and
+ * performing the queries and modifications requested by the
+ * {@link Database}.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public class FirestoreBackend implements IDatabaseBackend
+{
+	/** Tag used for logging database information. */
+	private static final String DB_TAG = "Database";
+	/** The number of recent moods copied into a feed on a new follow. */
+	private static final int FEED_BACKFILL_SIZE = 25;
+	/** The current version of the stored data of a user, see {@link #migrateUser}. */
+	private static final int USER_DATA_VERSION = 2;
+	/** The instance of the database. */
+	private final FirebaseFirestore db;
+
+	/**
+	 * Creates an instance of a {@code FirestoreBackend} object and
+	 * initializes the default {@code FirebaseFirestore} database.
+	 */
+	public FirestoreBackend() {
+		this.db = FirebaseFirestore.getInstance();
+		FirebaseFirestoreSettings settings = new FirebaseFirestoreSettings.Builder()
+				.setPersistenceEnabled(true)
+				.build();
+		db.setFirestoreSettings(settings);
+	}
+
+	/**
+	 * Attempts to create a user in the database with the details specified by
+	 * the {@code user}.
+	 *
+	 * @param user the details to use for user creation
+	 * @param auth the authenticator callback for handling the results of the
+	 *             user creation; see {@link IAuthenticator.AuthenticationResult}
+	 *             for details on the possible results
+	 */
+	@Override
+	public void attemptSignup(UserDetails user, IAuthenticator auth) {
+		DocumentReference ref = this.getUserDoc(user.getUsername());
+
+		ref.get()
+		   .addOnSuccessListener(snapshot -> {
+			   if (snapshot.exists()) {
+				   auth.onAuthenticationResult(AuthenticationResult.USERNAME_TAKEN);
+			   }
+			   else {
+				   Map<String, Object> newUserData = new HashMap<>();
+				   // Queries are a bit simpler to perform if we include the
+				   // username as part of the document.
+				   newUserData.put(DatabaseFields.USER_NAME_FLD, user.getUsername());
+				   newUserData.put(DatabaseFields.USER_PWD_FLD, user.getPassword());
+
+				   ref.set(newUserData).addOnCompleteListener(createTask -> {
+					   if (createTask.isSuccessful()) {
+						   auth.onAuthenticationResult(AuthenticationResult.SUCCEED);
+						   Log.i(DB_TAG, "User account successful");
+					   }
+					   else {
+						   Log.e(DB_TAG,
+								 "Task to set the contents of the new user document failed",
+								 createTask.getException());
+					   }
+				   });
+			   }
+		   })
+		   .addOnFailureListener(e -> {
+			   auth.onAuthenticationResult(AuthenticationResult.FAIL);
+			   Log.e(DB_TAG, "Failed to retrieve the document", e);
+		   });
+	}
+
+	/**
+	 * Checks the details of the given {@code user} in the database for a
+	 * matching user account.
+	 *
+	 * @param user the details to use for user login
+	 * @param auth the authenticator callback for handling the results of the
+	 *             login; see {@link IAuthenticator.AuthenticationResult}
+	 *             for details on the possible results
+	 */
+	@Override
+	public void validateLogin(UserDetails user, IAuthenticator auth) {
+		DocumentReference ref = this.db.collection(DatabaseFields.USER_COLLECTION)
+									   .document(this.getUserDocumentName(user.getUsername()));
+
+		ref.get()
+			.addOnSuccessListener(snapshot -> {
+				if (snapshot.exists()) {
+					String password = snapshot.getString(DatabaseFields.USER_PWD_FLD);
+
+					if (user.getPassword().equals(password)) {
+						this.migrateUser(user.getUsername(), snapshot);
+						this.retryFanOuts(user.getUsername());
+						auth.onAuthenticationResult(AuthenticationResult.SUCCEED);
+					}
+					else {
+						auth.onAuthenticationResult(AuthenticationResult.INVALID_DETAILS);
+					}
+				}
+				else {
+					auth.onAuthenticationResult(AuthenticationResult.INVALID_DETAILS);
+				}
+			})
+		   .addOnFailureListener(e -> {
+			   Log.e(DB_TAG, "Task to validate login failed!", e);
+			   auth.onAuthenticationResult(AuthenticationResult.FAIL);
+		   });
+	}
+
+	/**
+	 * <p>Performs a query based on the details of the given {@code query} and,
+	 * upon completion, returns the results to the {@code listener}.</p>
+	 *
+	 * <p>See also: {@link IQueryListener#onQueryResult(List, DatabaseResult)}</p>
+	 *
+	 * @param query    the query to perform, see {@link DatabaseQuery.QueryBuilder}
+	 * @param listener the listener to return the results of the querty to
+	 *
+	 * @implNote the results are returned as a list of {@code IDocument}
+	 * each reading from a {@code DocumentSnapshot}.
+	 */
+	@Override
+	public void performQuery(DatabaseQuery query, IQueryListener listener) {
+		DatabaseQuery.QueryType queryType = query.getQueryType();
+		CollectionReference usersCollection = this.db.collection(DatabaseFields.USER_COLLECTION);
+		List<DocumentSnapshot> snapshots = new ArrayList<>();
+
+		switch (queryType) {
+			case USER_POSTS:
+				// Ordering and limiting on the server means that only a single
+				// page of moods is downloaded rather than the user's entire
+				// history.
+				CollectionReference moods = this.getUserDoc(query.getUsername())
+												.collection(DatabaseFields.USER_MOODS_COLLECTION);
+				this.getPagedMoodQuery(moods, query)
+					.get()
+					.addOnSuccessListener(task -> {
+						task.getDocuments().forEach(snapshots::add);
+						listener.onQueryResult(FirestoreDocument.wrap(snapshots), DatabaseResult.SUCCESS);
+						Log.i(DB_TAG, "Obtained the posts for the user: " + query.getUsername());
+					})
+					.addOnFailureListener(e -> {
+						Log.e(DB_TAG, "Task to obtain user's posts failed!", e);
+						listener.onQueryResult(Collections.emptyList(), DatabaseResult.FAILURE);
+					});
+				break;
+			case FOLLOWING_POSTS:
+				this.getUserDoc(query.getUsername())
+					.get()
+					.addOnSuccessListener(ds -> {
+						if (ds.contains(DatabaseFields.USER_FOLLOWING_FLD)) {
+							List<String> follow
+									= (List<String>) ds.get(DatabaseFields.USER_FOLLOWING_FLD);
+
+							this.queryFollowingPerUser(follow, query, listener);
+						}
+						else {
+							listener.onQueryResult(FirestoreDocument.wrap(snapshots), DatabaseResult.SUCCESS);
+						}
+					})
+					.addOnFailureListener(e -> {
+						Log.e(DB_TAG, "Failed to fetch follower's posts", e);
+						listener.onQueryResult(Collections.emptyList(), DatabaseResult.FAILURE);
+					});
+				break;
+			case FOLLOWING_FEED:
+				// The feed already holds the moods of every followed user, so
+				// the timeline is a single ordered and limited query.
+				CollectionReference feed = this.getUserDoc(query.getUsername())
+											   .collection(DatabaseFields.USER_FEED_COLLECTION);
+				this.getPagedMoodQuery(feed, query)
+					.get()
+					.addOnSuccessListener(task -> {
+						snapshots.addAll(task.getDocuments());
+						listener.onQueryResult(FirestoreDocument.wrap(snapshots), DatabaseResult.SUCCESS);
+					})
+					.addOnFailureListener(e -> {
+						Log.e(DB_TAG, "Failed to fetch user's feed", e);
+						listener.onQueryResult(Collections.emptyList(), DatabaseResult.FAILURE);
+					});
+				break;
+			case CELL_POSTS:
+				Tasks.whenAllSuccess(this.queryCell(query.getUsername(), query.getGeohash()))
+					 .addOnSuccessListener(results -> {
+						 for (Object result : results) {
+							 snapshots.addAll(((QuerySnapshot) result).getDocuments());
+						 }
+
+						 listener.onQueryResult(FirestoreDocument.wrap(snapshots), DatabaseResult.SUCCESS);
+					 })
+					 .addOnFailureListener(e -> {
+						 Log.e(DB_TAG, "Failed to fetch posts in cell " + query.getGeohash(), e);
+						 listener.onQueryResult(Collections.emptyList(), DatabaseResult.FAILURE);
+					 });
+				break;
+			case USER_NOTIFICATIONS:
+				this.getUserDoc(query.getUsername())
+					.collection(DatabaseFields.USER_NOTIF_COLLECTION)
+					.get()
+					.addOnSuccessListener(task -> {
+						task.getDocuments().forEach(snapshots::add);
+						listener.onQueryResult(FirestoreDocument.wrap(snapshots), DatabaseResult.SUCCESS);
+					})
+					.addOnFailureListener(e -> {
+						Log.e(DB_TAG, "Failed to fetch user's notifications", e);
+						listener.onQueryResult(Collections.emptyList(), DatabaseResult.FAILURE);
+					});
+				break;
+			case USERS:
+				usersCollection
+					.orderBy(DatabaseFields.USER_NAME_FLD)
+					.startAt(query.getSearchTerm())
+					.endAt(query.getSearchTerm() + "~")
+					.get()
+					.addOnSuccessListener(task -> {
+						task.getDocuments().forEach(snapshots::add);
+						listener.onQueryResult(FirestoreDocument.wrap(snapshots), DatabaseResult.SUCCESS);
+					})
+					.addOnFailureListener(e -> {
+						Log.e(DB_TAG, "Searching users failed", e);
+						listener.onQueryResult(Collections.emptyList(), DatabaseResult.FAILURE);
+					});
+		}
+	}
+
+	/**
+	 * Obtains the moods of each of the users in {@code follow} using a
+	 * single query per user and notifies the given {@code listener} of the
+	 * merged results. The moods of the users which could be queried are
+	 * returned even if others could not, the query only failing if none of
+	 * the users could be queried.
+	 *
+	 * @param follow   the names of the users to obtain the moods of
+	 * @param query    the query holding the number of posts per user
+	 * @param listener the listener to notify of the results
+	 */
+	private void queryFollowingPerUser(List<String> follow, DatabaseQuery query,
+									   IQueryListener listener) {
+		List<Task<QuerySnapshot>> followerTasks = new ArrayList<>();
+
+		for (String name : follow) {
+			Query userMoods = this.getUserDoc(name)
+								  .collection(DatabaseFields.USER_MOODS_COLLECTION);
+
+			if (query.getPostsPerUser() > 0) {
+				// Only the newest public moods of each user are needed, so
+				// the cap is applied by the server rather than after
+				// downloading every mood the user has ever posted.
+				userMoods = userMoods
+						.whereEqualTo(DatabaseFields.MOOD_VIEW_STATUS_FLD, false)
+						.orderBy(DatabaseFields.MOOD_TIME_FLD, Query.Direction.DESCENDING)
+						.limit(query.getPostsPerUser());
+			}
+
+			followerTasks.add(userMoods.get());
+		}
+
+		// In order to ensure that we obtain all user's posts at once, we use
+		// a set of tasks that should be waited on due to the asynchronous
+		// nature of Firebase's queries.
+		Tasks.whenAllComplete(followerTasks)
+			 .addOnSuccessListener(ftask -> {
+				 List<DocumentSnapshot> snapshots = new ArrayList<>();
+				 int numFailed = 0;
+
+				 for (Task t : ftask) {
+					 if (t.isSuccessful()) {
+						 QuerySnapshot q = (QuerySnapshot) t.getResult();
+						 snapshots.addAll(q.getDocuments());
+					 }
+					 else {
+						 numFailed++;
+						 Log.w(DB_TAG, "Failed to obtain a followed user's posts", t.getException());
+					 }
+				 }
+
+				 if (numFailed > 0 && numFailed == ftask.size()) {
+					 listener.onQueryResult(Collections.emptyList(), DatabaseResult.FAILURE);
+					 return;
+				 }
+
+				 listener.onQueryResult(FirestoreDocument.wrap(snapshots), DatabaseResult.SUCCESS);
+			 }).addOnFailureListener(e -> {
+				 Log.e(DB_TAG, "Failed to run follower tasks", e);
+				 listener.onQueryResult(Collections.emptyList(), DatabaseResult.FAILURE);
+			 });
+	}
+
+	/**
+	 * Queries the moods of the given user and of their feed whose geohash
+	 * begins with the given {@code cell}, as a range of the geohashes.
+	 *
+	 * @param username the name of the user whose moods and feed to query
+	 * @param cell     the geohash of the cell to query within
+	 *
+	 * @return the tasks of the queries on the moods and on the feed
+	 */
+	private List<Task<QuerySnapshot>> queryCell(String username, String cell) {
+		DocumentReference userDoc = this.getUserDoc(username);
+		List<Task<QuerySnapshot>> cellTasks = new ArrayList<>();
+
+		for (String collection : Arrays.asList(DatabaseFields.USER_MOODS_COLLECTION,
+											   DatabaseFields.USER_FEED_COLLECTION)) {
+			cellTasks.add(userDoc.collection(collection)
+								 .orderBy(DatabaseFields.MOOD_GEOHASH_FLD)
+								 .startAt(cell)
+								 .endAt(cell + "~")
+								 .get());
+		}
+
+		return cellTasks;
+	}
+
+	/**
+	 * Returns a query on the given mood {@code collection} ordered from the
+	 * newest mood to the oldest using the page size and cursor of the given
+	 * {@code query} if they are set.
+	 *
+	 * @param collection the collection of moods to query
+	 * @param query      the query holding the paging details
+	 *
+	 * @return an ordered, and possibly limited, query on the collection
+	 */
+	private Query getPagedMoodQuery(CollectionReference collection, DatabaseQuery query) {
+		Query pagedQuery = collection.orderBy(DatabaseFields.MOOD_TIME_FLD,
+											  Query.Direction.DESCENDING);
+
+		if (query.getStartAfter() != null) {
+			DocumentSnapshot cursor = ((FirestoreDocument) query.getStartAfter()).getSnapshot();
+			pagedQuery = pagedQuery.startAfter(cursor);
+		}
+
+		if (query.getPageSize() > 0) {
+			pagedQuery = pagedQuery.limit(query.getPageSize());
+		}
+
+		return pagedQuery;
+	}
+
+	/**
+	 * <p>Listens to the moods of the user given by {@code username} that
+	 * were posted at or after {@code oldestTime}, or to every mood of the
+	 * user if {@code oldestTime} is 0. The {@code listener} is first given
+	 * every such mood and afterwards only the moods which are added, edited
+	 * or removed, including those changed by this device.</p>
+	 *
+	 * <p>The listener will continue to receive changes until
+	 * {@link IListenerRegistration#remove()} is called on the returned
+	 * registration, which removes the Firestore snapshot listener.</p>
+	 *
+	 * @param username   the name of the user to listen to the moods of
+	 * @param oldestTime the post time of the oldest mood to listen to
+	 * @param listener   the listener to notify of changes to the moods
+	 *
+	 * @return the registration used to stop listening to the moods
+	 */
+	@Override
+	public IListenerRegistration listenForMoodChanges(String username, long oldestTime,
+													  IMoodChangeListener listener) {
+		Query moods = this.getUserDoc(username)
+						  .collection(DatabaseFields.USER_MOODS_COLLECTION)
+						  .orderBy(DatabaseFields.MOOD_TIME_FLD, Query.Direction.DESCENDING);
+
+		if (oldestTime > 0) {
+			moods = moods.whereGreaterThanOrEqualTo(DatabaseFields.MOOD_TIME_FLD, oldestTime);
+		}
+
+		ListenerRegistration registration = moods.addSnapshotListener((value, error) -> {
+			if (error != null || value == null) {
+				Log.e(DB_TAG, "Failed to listen to moods of " + username, error);
+				listener.onMoodChanges(Collections.emptyList(), DatabaseResult.FAILURE);
+				return;
+			}
+
+			List<MoodChange> changes = new ArrayList<>();
+
+			for (DocumentChange dc : value.getDocumentChanges()) {
+				MoodChange.Type type;
+
+				switch (dc.getType()) {
+					case ADDED:
+						type = MoodChange.Type.ADDED;
+						break;
+					case MODIFIED:
+						type = MoodChange.Type.MODIFIED;
+						break;
+					default:
+						type = MoodChange.Type.REMOVED;
+						break;
+				}
+
+				changes.add(new MoodChange(type, new FirestoreDocument(dc.getDocument())));
+			}
+
+			listener.onMoodChanges(changes, DatabaseResult.SUCCESS);
+		});
+		return registration::remove;
+	}
+
+	/**
+	 * <p>Requests information about the user given by {@code username}
+	 * including the users the are following, the users who follow them,
+	 * and the users that they have pending follow requests for. If the
+	 * query is successful, then the user will be the first result in the
+	 * {@code listener}'s results.</p>
+	 *
+	 * @param username the user to obtain the data from
+	 * @param listener the callback to give the results
+	 */
+	@Override
+	public void requestUserInformation(String username, IQueryResult<UserProfile> listener) {
+		DocumentReference userRef = this.getUserDoc(username);
+		userRef.get()
+			   .addOnSuccessListener(snapshot -> {
+				   UserProfile userProfile = new UserProfile(username);
+				   List<String> pending = new ArrayList<>();
+				   List<String> following = new ArrayList<>();
+				   List<String> folowers = new ArrayList<>();
+
+				   if (snapshot.contains(DatabaseFields.USER_PENDING_FOLLOWS_FLD)) {
+					   List<String> pendingNames = (List<String>)
+							   snapshot.get(DatabaseFields.USER_PENDING_FOLLOWS_FLD);
+					   userProfile.getPending().addAll(pendingNames);
+				   }
+
+				   if (snapshot.contains(DatabaseFields.USER_FOLLOWING_FLD)) {
+					   List<String> followingNames = (List<String>)
+							   snapshot.get(DatabaseFields.USER_FOLLOWING_FLD);
+					   userProfile.getFollowing().addAll(followingNames);
+				   }
+
+				   if (snapshot.contains(DatabaseFields.USER_FOLLOWERS_FLD)) {
+					   List<String> followersNames = (List<String>)
+							   snapshot.get(DatabaseFields.USER_FOLLOWERS_FLD);
+					   userProfile.getFollowers().addAll(followersNames);
+				   }
+
+				   Long version = snapshot.getLong(DatabaseFields.USER_DATA_VERSION_FLD);
+				   userProfile.setMigrated(version != null && version >= USER_DATA_VERSION);
+
+				   listener.onResult(DatabaseResult.SUCCESS, Arrays.asList(userProfile));
+				   Log.i(DB_TAG, "Successfully retrieved pending and following names");
+			   })
+			   .addOnFailureListener(error -> {
+				   listener.onResult(DatabaseResult.FAILURE, Collections.emptyList());
+				   Log.e(DB_TAG, "Failed to retreive pending and following names", error);
+			   });
+	}
+
+	/**
+	 * <p>Adds the {@code post} to the list of moods of the user given by
+	 * {@code username}. The success or failure of adding the mood to
+	 * the user is sent to {@code listener}.</p>
+	 *
+	 * <p>The image of the post, if it has one, is referenced by the mood and
+	 * stored in the images collection within the same batch as the mood, see
+	 * {@link #commitWithImage}. A batch, unlike a transaction, is queued while
+	 * offline, so moods can be posted without a connection.</p>
+	 *
+	 * @param username the name of the user to add the mood to
+	 * @param post     the post to add to the user
+	 * @param listener the listener to listen for the success or failure
+	 *                 of the addition operation
+	 */
+	@Override
+	public void addMood(String username, MoodPost post, IResultListener listener) {
+		DocumentReference userDoc = this.getUserDoc(username);
+		Map<String, Object> postFields = this.getMoodFields(post, false);
+		DocumentReference moodDoc = userDoc.collection(DatabaseFields.USER_MOODS_COLLECTION)
+										   .document();
+		String fanOutId = UUID.randomUUID().toString();
+		postFields.put(DatabaseFields.MOOD_FAN_OUT_FLD, fanOutId);
+		Task<Void> commit;
+
+		if (post.getImageHash() != null) {
+			commit = this.commitWithImage(post, batch -> batch.set(moodDoc, postFields));
+		}
+		else {
+			commit = moodDoc.set(postFields);
+		}
+
+		commit
+			 .addOnSuccessListener(v -> {
+				 listener.onResult(DatabaseResult.SUCCESS);
+				 Log.i(DB_TAG, "User's new mood successfully added");
+				 this.fanOutMood(username, moodDoc, post.isPrivate(),
+								 this.getMoodFields(post, false), fanOutId);
+			 })
+			 .addOnFailureListener(e -> {
+				 listener.onResult(DatabaseResult.FAILURE);
+				 Log.e(DB_TAG, "Failed to add mood to user!", e);
+			 });
+	}
+
+	/**
+	 * <p>Updates the post that corresponds to the document of the given
+	 * {@code post} for the user given by {@code username}. The success
+	 * or failure of this editing will be returned to the {@code listener}.</p>
+	 *
+	 * <p>The stored mood is read, from the cache when offline, for the image
+	 * it currently references. If the image has not changed the mood is
+	 * updated by a plain write, otherwise the images are referenced and
+	 * released within the same batch as the update.</p>
+	 *
+	 * @param username the name of the user to find the mood to edit
+	 * @param post     the post to edit along with its new details
+	 * @param listener the listener to listen for the success or failure
+	 *                 of the edit operation
+	 */
+	@Override
+	public void editMood(String username, MoodPost post, IResultListener listener) {
+		DocumentReference moodDoc = this.getUserDoc(username)
+										.collection(DatabaseFields.USER_MOODS_COLLECTION)
+										.document(post.getDocumentId());
+		Map<String, Object> postFields = this.getMoodFields(post, true);
+		String fanOutId = UUID.randomUUID().toString();
+		postFields.put(DatabaseFields.MOOD_FAN_OUT_FLD, fanOutId);
+
+		moodDoc.get()
+			   .onSuccessTask(current -> {
+				   String oldHash = current.getString(DatabaseFields.MOOD_IMG_HASH_FLD);
+				   String newHash = post.getImageHash();
+
+				   if (Objects.equals(oldHash, newHash)) {
+					   return moodDoc.update(postFields);
+				   }
+
+				   Consumer<WriteBatch> writes = batch -> {
+					   batch.update(moodDoc, postFields);
+
+					   if (oldHash != null) {
+						   this.releaseImage(batch, oldHash);
+					   }
+				   };
+				   Task<Void> commit;
+
+				   if (newHash != null) {
+					   commit = this.commitWithImage(post, writes);
+				   }
+				   else {
+					   WriteBatch batch = this.db.batch();
+					   writes.accept(batch);
+					   commit = batch.commit();
+				   }
+
+				   return commit.addOnSuccessListener(v -> {
+					   if (oldHash != null) {
+						   this.deleteIfUnreferenced(oldHash);
+					   }
+				   });
+			   })
+			   .addOnSuccessListener(v -> {
+				   listener.onResult(DatabaseResult.SUCCESS);
+				   Log.i(DB_TAG, "User's existing mood was successfully updated");
+				   this.fanOutMood(username, moodDoc, post.isPrivate(),
+								   this.getMoodFields(post, false), fanOutId);
+			   })
+			   .addOnFailureListener(e -> {
+				   listener.onResult(DatabaseResult.FAILURE);
+				   Log.e(DB_TAG, "Failed to update user's mood!", e);
+			   });
+	}
+
+	/**
+	 * <p>Sets the city of the mood of the user given by {@code username}
+	 * with the given {@code documentId}, leaving its other fields as they
+	 * are. The success or failure of this will be returned to the
+	 * {@code listener}.</p>
+	 *
+	 * <p>Once the mood is updated, the city is also set on the copies of the
+	 * mood in the feeds of the user's followers, a failure of which is only
+	 * logged, as the city is only shown as the mood's location.</p>
+	 *
+	 * @param username   the name of the user to find the mood of
+	 * @param documentId the id of the mood's document
+	 * @param city       the name of the city the mood was posted from
+	 * @param listener   the listener for the result of the operation
+	 */
+	@Override
+	public void setMoodCity(String username, String documentId, String city,
+							IResultListener listener) {
+		Map<String, Object> cityFields = new HashMap<>();
+		cityFields.put(DatabaseFields.MOOD_CITY_FLD, city);
+
+		this.getUserDoc(username)
+			.collection(DatabaseFields.USER_MOODS_COLLECTION)
+			.document(documentId)
+			.update(cityFields)
+			.addOnSuccessListener(v -> {
+				listener.onResult(DatabaseResult.SUCCESS);
+				this.getUserDoc(username)
+					.get()
+					.onSuccessTask(snapshot -> {
+						List<DocumentReference> entries = new ArrayList<>();
+
+						for (String follower : this.getNames(snapshot,
+															 DatabaseFields.USER_FOLLOWERS_FLD)) {
+							entries.add(this.getFeedEntry(follower, documentId));
+						}
+
+						return this.updateFeedEntries(entries, cityFields);
+					})
+					.addOnFailureListener(e -> Log.e(DB_TAG, "Failed to set the city of feeds", e));
+			})
+			.addOnFailureListener(e -> {
+				listener.onResult(DatabaseResult.FAILURE);
+				Log.e(DB_TAG, "Failed to set the city of the mood", e);
+			});
+	}
+
+	/**
+	 * Remoevs the post that corresponds to the document of the given
+	 * {@code post} for the user given by {@code username}. The success
+	 * or failure of this editing will be returned to the {@code listener}.
+	 *
+	 * @param username the name of the user to find the mood to remove
+	 * @param post     the post to remove from the user
+	 * @param listener the listener to listen for the success or failure
+	 *                 of the remove operation
+	 */
+	@Override
+	public void removeMood(String username, MoodPost post, IResultListener listener) {
+		DocumentReference moodDoc = this.getUserDoc(username)
+										.collection(DatabaseFields.USER_MOODS_COLLECTION)
+										.document(post.getDocumentId());
+
+		// Only incur the cost of getting comment documents if there
+		// is actually comments.
+		if (post.getNumTopLevelComments() > 0) {
+			// Firestore provides no way to delete a collection, so we
+			// must delete every comment document first before deleting
+			// the mood's document, otherwise there will be a "hanging"
+			// collection. The comments are read and deleted in pages so
+			// that a heavily commented mood is never held in memory at once.
+			new BatchWriter(this.db, null)
+				.deleteAll(moodDoc.collection(DatabaseFields.MOOD_COMMENT_FLD))
+				.addOnSuccessListener(v -> {
+					this.deleteMoodDocument(username, post, listener);
+				})
+				.addOnFailureListener(error -> {
+					listener.onResult(DatabaseResult.FAILURE);
+					Log.e(DB_TAG, "Failed to delete all mood comments!", error);
+				});
+		}
+		else {
+			this.deleteMoodDocument(username, post, listener);
+		}
+	}
+
+	/**
+	 * Deletes the document of the given {@code post} from the moods of the
+	 * user given by {@code username}, releasing the image it references
+	 * within the same batch, along with the copies of the post in the feeds
+	 * of the user's followers.
+	 *
+	 * @param username the name of the user to remove the mood from
+	 * @param post     the post to remove
+	 * @param listener the listener to notify of the result of the removal
+	 */
+	private void deleteMoodDocument(String username, MoodPost post, IResultListener listener) {
+		DocumentReference moodDoc = this.getUserDoc(username)
+										.collection(DatabaseFields.USER_MOODS_COLLECTION)
+										.document(post.getDocumentId());
+
+		moodDoc.get()
+			   .onSuccessTask(current -> {
+				   String imageHash = current.getString(DatabaseFields.MOOD_IMG_HASH_FLD);
+
+				   if (imageHash == null) {
+					   return moodDoc.delete();
+				   }
+
+				   WriteBatch batch = this.db.batch();
+				   batch.delete(moodDoc);
+				   this.releaseImage(batch, imageHash);
+				   return batch.commit()
+							   .addOnSuccessListener(v -> this.deleteIfUnreferenced(imageHash));
+			   })
+			   .addOnSuccessListener(v -> {
+				   listener.onResult(DatabaseResult.SUCCESS);
+				   Log.i(DB_TAG, "User's mood was successfully deleted");
+				   this.removeFromFollowerFeeds(username, post.getDocumentId());
+			   })
+			   .addOnFailureListener(e -> {
+				   listener.onResult(DatabaseResult.FAILURE);
+				   Log.e(DB_TAG, "Failed to delete user's mood!", e);
+			   });
+	}
+
+	/**
+	 * Requests the image of the given {@code post} from the images
+	 * collection using the hash referenced by the post. Moods posted before
+	 * images were stored separately hold their image within the mood's
+	 * document as a Base64 string, so that is decoded instead.
+	 *
+	 * @param post     the post to request the image of
+	 * @param listener the callback to return the image to
+	 */
+	@Override
+	public void requestMoodImage(MoodPost post, IQueryResult<byte[]> listener) {
+		Task<byte[]> imageTask;
+
+		if (post.getImageHash() != null) {
+			imageTask = this.getImageDoc(post.getImageHash())
+							.get()
+							.continueWith(t -> {
+								Blob data = t.getResult().getBlob(DatabaseFields.IMG_DATA_FLD);
+								return (data != null) ? data.toBytes() : null;
+							});
+		}
+		else {
+			imageTask = this.getUserDoc(post.getUser())
+							.collection(DatabaseFields.USER_MOODS_COLLECTION)
+							.document(post.getDocumentId())
+							.get()
+							.continueWith(t -> {
+								String image = t.getResult().getString(DatabaseFields.MOOD_IMG_FLD);
+
+								if (image == null || image.isEmpty()) {
+									return null;
+								}
+
+								int imageFlags = Base64.NO_PADDING | Base64.NO_WRAP | Base64.URL_SAFE;
+								return Base64.decode(image, imageFlags);
+							});
+		}
+
+		imageTask.addOnSuccessListener(image -> {
+					 if (image != null) {
+						 listener.onResult(DatabaseResult.SUCCESS, Collections.singletonList(image));
+					 }
+					 else {
+						 listener.onResult(DatabaseResult.SUCCESS, Collections.emptyList());
+					 }
+				 })
+				 .addOnFailureListener(error -> {
+					 listener.onResult(DatabaseResult.FAILURE, Collections.emptyList());
+					 Log.e(DB_TAG, "Failed to obtain the image of a mood", error);
+				 });
+	}
+
+	/**
+	 * <p>Commits a batch holding the {@code writes} along with a reference to
+	 * the image of the given {@code post}.</p>
+	 *
+	 * <p>If the post holds the data of its image, whether the image is
+	 * already stored is checked first, see {@link #isImageStored}, so that a
+	 * stored image is only referenced rather than uploaded again. Should the
+	 * image have been deleted by the time the batch is committed, the batch
+	 * fails and is committed again with the image's data.</p>
+	 *
+	 * @param post   the post holding the image now referenced
+	 * @param writes the other writes to make within the same batch
+	 *
+	 * @return the task of committing the batch
+	 */
+	private Task<Void> commitWithImage(MoodPost post, Consumer<WriteBatch> writes) {
+		if (post.getImageData() == null) {
+			WriteBatch batch = this.db.batch();
+			writes.accept(batch);
+			this.referenceImage(batch, post, false);
+			return batch.commit();
+		}
+
+		return this.isImageStored(post.getImageHash())
+			.continueWithTask(stored -> {
+				boolean isStored = stored.getResult();
+				WriteBatch batch = this.db.batch();
+				writes.accept(batch);
+				this.referenceImage(batch, post, isStored);
+
+				if (!isStored) {
+					return batch.commit();
+				}
+
+				return batch.commit().continueWithTask(commit -> {
+					if (!isNotFound(commit.getException())) {
+						return commit;
+					}
+
+					WriteBatch retry = this.db.batch();
+					writes.accept(retry);
+					this.referenceImage(retry, post, false);
+					return retry.commit();
+				});
+			});
+	}
+
+	/**
+	 * Checks whether the image with the given {@code hash} is stored. The
+	 * image is looked for in the cache, where it is held once it has been
+	 * viewed, and otherwise counted on the server, so that its data is never
+	 * downloaded only to be checked. An image which cannot be checked, such
+	 * as while offline, is treated as not stored so that its data is kept.
+	 *
+	 * @param hash the hash of the image to check for
+	 *
+	 * @return the task of checking for the image, never failing
+	 */
+	private Task<Boolean> isImageStored(String hash) {
+		return this.getImageDoc(hash)
+			.get(Source.CACHE)
+			.continueWithTask(cached -> {
+				if (cached.isSuccessful() && cached.getResult().contains(DatabaseFields.IMG_DATA_FLD)) {
+					return Tasks.forResult(true);
+				}
+
+				return this.db.collection(DatabaseFields.IMAGE_COLLECTION)
+							  .whereEqualTo(FieldPath.documentId(), hash)
+							  .count()
+							  .get(AggregateSource.SERVER)
+							  .continueWith(count -> count.isSuccessful()
+													 && count.getResult().getCount() > 0);
+			});
+	}
+
+	/**
+	 * <p>Adds a reference to the image of the given {@code post} within the
+	 * given {@code batch}, storing the image if the post holds its data and
+	 * the image is not already stored.</p>
+	 *
+	 * <p>Each image is stored once, named by its hash, along with the number
+	 * of moods referencing it. The count is incremented rather than read
+	 * first, so the batch can be queued while offline. An image known to be
+	 * stored is updated, so that the batch fails if it has since been
+	 * deleted, while any other is merged so that it is created if need be.
+	 * An image whose count falls to zero is deleted later, see
+	 * {@link #deleteIfUnreferenced}.</p>
+	 *
+	 * @param batch    the batch to make the change in
+	 * @param post     the post holding the image now referenced
+	 * @param isStored whether the image is known to be stored already
+	 */
+	private void referenceImage(WriteBatch batch, MoodPost post, boolean isStored) {
+		DocumentReference imageDoc = this.getImageDoc(post.getImageHash());
+
+		if (isStored) {
+			batch.update(imageDoc, DatabaseFields.IMG_REF_COUNT_FLD, FieldValue.increment(1));
+			return;
+		}
+
+		Map<String, Object> imageFields = new HashMap<>();
+		imageFields.put(DatabaseFields.IMG_REF_COUNT_FLD, FieldValue.increment(1));
+
+		if (post.getImageData() != null) {
+			imageFields.put(DatabaseFields.IMG_DATA_FLD, Blob.fromBytes(post.getImageData()));
+		}
+
+		batch.set(imageDoc, imageFields, SetOptions.merge());
+	}
+
+	/**
+	 * Removes a reference to the image with the given {@code hash} within
+	 * the given {@code batch}. The image is left in place even once no mood
+	 * references it, as deleting it would require reading its count, which
+	 * cannot be done while offline.
+	 *
+	 * @param batch the batch to make the change in
+	 * @param hash  the hash of the image no longer referenced
+	 */
+	private void releaseImage(WriteBatch batch, String hash) {
+		batch.set(this.getImageDoc(hash),
+				  Collections.singletonMap(DatabaseFields.IMG_REF_COUNT_FLD, FieldValue.increment(-1)),
+				  SetOptions.merge());
+	}
+
+	/**
+	 * <p>Deletes the image with the given {@code hash} if no mood references
+	 * it any longer. This is called once the image has been released, when
+	 * the device is known to be online, and checks the count within a
+	 * transaction so that an image referenced again in the meantime is kept.
+	 * A failure is only logged, leaving the image to be deleted the next
+	 * time it is released.</p>
+	 *
+	 * <p>A mood is read for the image it references before being edited or
+	 * deleted, outside of a transaction so that this works offline, so two
+	 * devices changing the same mood at once may both release its image.
+	 * The count may then fall below the number of moods referencing the
+	 * image, so before an image is deleted the moods referencing it are
+	 * counted, and if any remain the image's count is repaired to their
+	 * number instead. A count left too high only keeps an image which is
+	 * no longer used.</p>
+	 *
+	 * @param hash the hash of the image which was released
+	 */
+	private void deleteIfUnreferenced(String hash) {
+		DocumentReference imageDoc = this.getImageDoc(hash);
+		this.db.collectionGroup(DatabaseFields.USER_MOODS_COLLECTION)
+			   .whereEqualTo(DatabaseFields.MOOD_IMG_HASH_FLD, hash)
+			   .count()
+			   .get(AggregateSource.SERVER)
+			   .onSuccessTask(references -> this.db.runTransaction(transaction -> {
+				   DocumentSnapshot image = transaction.get(imageDoc);
+				   Long refCount = image.getLong(DatabaseFields.IMG_REF_COUNT_FLD);
+
+				   if (!image.exists() || (refCount != null && refCount > 0)) {
+					   return null;
+				   }
+
+				   if (references.getCount() > 0) {
+					   transaction.update(imageDoc, DatabaseFields.IMG_REF_COUNT_FLD,
+										  references.getCount());
+				   }
+				   else {
+					   transaction.delete(imageDoc);
+				   }
+
+				   return null;
+			   }))
+			   .addOnFailureListener(e -> Log.w(DB_TAG, "Failed to delete an unreferenced image", e));
+	}
+
+	/**
+	 * <p>Writes a copy of the mood of the given {@code moodDoc} into the feed
+	 * of every follower of the user given by {@code username}. If the mood is
+	 * private, then any copies of the mood are instead removed from the
+	 * feeds.</p>
+	 *
+	 * <p>Copying the mood on write means that reading the moods of followed
+	 * users is a single query on the reader's feed rather than a query for
+	 * every followed user. The mood itself has already been written when this
+	 * is called, holding the given {@code fanOutId} as a pending fan out,
+	 * which is only cleared once the copies have been written. A fan out
+	 * which fails is attempted again by {@link #retryFanOuts} on the user's
+	 * next login.</p>
+	 *
+	 * @param username   the name of the user who posted the mood
+	 * @param moodDoc    the document of the mood
+	 * @param isPrivate  whether the mood is private
+	 * @param feedFields the fields of the copies of the mood
+	 * @param fanOutId   the id of the pending fan out held by the mood
+	 */
+	private void fanOutMood(String username, DocumentReference moodDoc, boolean isPrivate,
+							Map<String, Object> feedFields, String fanOutId) {
+		BiConsumer<WriteBatch, DocumentReference> operation = isPrivate
+				? WriteBatch::delete
+				: (batch, entry) -> batch.set(entry, feedFields);
+		this.writeFollowerFeeds(username, moodDoc.getId(), operation)
+			.onSuccessTask(v -> this.clearFanOut(moodDoc, fanOutId))
+			.addOnFailureListener(e -> Log.e(DB_TAG, "Failed to fan out mood to feeds", e));
+	}
+
+	/**
+	 * Clears the pending fan out of the given {@code moodDoc} if it is still
+	 * the one given by {@code fanOutId}, as the mood may have been edited
+	 * again, and fanned out again, in the meantime.
+	 *
+	 * @param moodDoc  the document of the mood
+	 * @param fanOutId the id of the fan out which has finished
+	 *
+	 * @return the task of clearing the pending fan out
+	 */
+	private Task<Void> clearFanOut(DocumentReference moodDoc, String fanOutId) {
+		return this.db.runTransaction(transaction -> {
+			DocumentSnapshot mood = transaction.get(moodDoc);
+
+			if (fanOutId.equals(mood.getString(DatabaseFields.MOOD_FAN_OUT_FLD))) {
+				transaction.update(moodDoc, DatabaseFields.MOOD_FAN_OUT_FLD, FieldValue.delete());
+			}
+
+			return null;
+		});
+	}
+
+	/**
+	 * Fans out again every mood of the user given by {@code username} whose
+	 * fan out has not finished, such as because the device went offline or
+	 * the application was closed before the copies were written.
+	 *
+	 * @param username the name of the user whose moods to fan out
+	 */
+	private void retryFanOuts(String username) {
+		// Only documents holding the field are ordered by it, so this
+		// obtains exactly the moods with a pending fan out.
+		this.getUserDoc(username)
+			.collection(DatabaseFields.USER_MOODS_COLLECTION)
+			.orderBy(DatabaseFields.MOOD_FAN_OUT_FLD)
+			.get()
+			.addOnSuccessListener(snapshot -> {
+				for (DocumentSnapshot mood : snapshot.getDocuments()) {
+					boolean isPrivate = Boolean.TRUE.equals(
+							mood.getBoolean(DatabaseFields.MOOD_VIEW_STATUS_FLD));
+					this.fanOutMood(username, mood.getReference(), isPrivate,
+									this.getFeedFields(mood),
+									mood.getString(DatabaseFields.MOOD_FAN_OUT_FLD));
+				}
+			})
+			.addOnFailureListener(e -> Log.e(DB_TAG, "Failed to obtain pending fan outs", e));
+	}
+
+	/**
+	 * Removes the copy of the mood with the given {@code moodId} from the
+	 * feed of every follower of the user given by {@code username}.
+	 *
+	 * @param username the name of the user who posted the mood
+	 * @param moodId   the id of the mood's document
+	 */
+	private void removeFromFollowerFeeds(String username, String moodId) {
+		this.writeFollowerFeeds(username, moodId, WriteBatch::delete)
+			.addOnFailureListener(e -> Log.e(DB_TAG, "Failed to remove mood from feeds", e));
+	}
+
+	/**
+	 * Applies the given {@code operation} to the copy of the mood with the
+	 * given {@code moodId} in the feed of every follower of the user given
+	 * by {@code username}.
+	 *
+	 * @param username  the name of the user who posted the mood
+	 * @param moodId    the id of the mood's document
+	 * @param operation the write to add to a batch for a single feed entry
+	 *
+	 * @return the task of writing the feed entries
+	 */
+	private Task<Void> writeFollowerFeeds(String username, String moodId,
+										  BiConsumer<WriteBatch, DocumentReference> operation) {
+		return this.getUserDoc(username)
+			.get()
+			.onSuccessTask(snapshot -> {
+				List<DocumentReference> entries = new ArrayList<>();
+
+				for (String follower : this.getNames(snapshot, DatabaseFields.USER_FOLLOWERS_FLD)) {
+					entries.add(this.getFeedEntry(follower, moodId));
+				}
+
+				return new BatchWriter(this.db, null).writeAll(entries, operation);
+			});
+	}
+
+	/**
+	 * Posts the given {@code comment} as a top-level comment to the given
+	 * {@code post}. The success or failure of this editing will be returned
+	 * to the {@code listener}.
+	 *
+	 * @param post	    the post to add the comment to
+	 * @param comment   the comment to add
+	 * @param listener  the listener to notify of the action's result
+	 */
+	@Override
+	public void postComment(MoodPost post, MoodComment comment, IResultListener listener) {
+		DocumentReference postUser = this.getUserDoc(post.getUser());
+		Map<String, Object> commentFields = new HashMap<>();
+		commentFields.put(DatabaseFields.CMT_PARENT_POST_FLD, post.getDocumentId());
+		// We store the number of subcomments in order to not have to query
+		// all comments to count them.
+		commentFields.put(DatabaseFields.CMT_NUM_SUB, comment.getNumSubReplies());
+		MoodComment parentComment = comment.getParentComment();
+
+		if (parentComment != null) {
+			commentFields.put(DatabaseFields.CMT_PARENT_CMT_FLD, parentComment.getDocumentId());
+		}
+		else {
+			commentFields.put(DatabaseFields.CMT_PARENT_CMT_FLD, DatabaseFields.CMT_TOP_LEVEL);
+		}
+
+		commentFields.put(DatabaseFields.CMT_TIME_FLD, comment.getTimeCommented());
+		commentFields.put(DatabaseFields.CMT_TEXT_FLD, comment.getCommentText());
+		commentFields.put(DatabaseFields.CMT_POSTER_FLD, comment.getPosterName());
+
+		if (comment.getParentComment() == null) {
+			postUser.collection(DatabaseFields.USER_MOODS_COLLECTION)
+					.document(post.getDocumentId())
+					.update(DatabaseFields.MOOD_COMMENT_COUNT, FieldValue.increment(1));
+		}
+		else {
+			postUser.collection(DatabaseFields.USER_MOODS_COLLECTION)
+					.document(post.getDocumentId())
+					.collection(DatabaseFields.MOOD_COMMENT_FLD)
+					.document(comment.getParentComment().getDocumentId())
+					.update(DatabaseFields.CMT_NUM_SUB, FieldValue.increment(1));
+		}
+
+		postUser.collection(DatabaseFields.USER_MOODS_COLLECTION)
+				.document(post.getDocumentId())
+				.collection(DatabaseFields.MOOD_COMMENT_FLD)
+				.add(commentFields)
+				.addOnSuccessListener(document -> {
+					listener.onResult(DatabaseResult.SUCCESS);
+				})
+				.addOnFailureListener(error -> {
+					listener.onResult(DatabaseResult.FAILURE);
+				});
+	}
+
+	/***
+	 * Requests the comments for the given {@code post} and returns the
+	 * obtained comments to the given {@code listener}.
+	 *
+	 * @see IQueryResult#onResult(DatabaseResult, List)
+	 *
+	 * @param post		the post to request the comments from
+	 * @param listener  the callback to return the results to
+	 */
+	@Override
+	public void requestPostComments(MoodPost post, IQueryResult<MoodComment> listener) {
+		DocumentReference postUser = this.getUserDoc(post.getUser());
+		postUser.collection(DatabaseFields.USER_MOODS_COLLECTION)
+				.document(post.getDocumentId())
+				.collection(DatabaseFields.MOOD_COMMENT_FLD)
+				.whereEqualTo(DatabaseFields.CMT_PARENT_CMT_FLD, DatabaseFields.CMT_TOP_LEVEL)
+				.get()
+				.addOnSuccessListener(snapshot -> {
+					List<MoodComment> comments = new ArrayList<>();
+
+					for (DocumentSnapshot cs : snapshot.getDocuments()) {
+						String commentText = cs.getString(DatabaseFields.CMT_TEXT_FLD);
+						String posterName = cs.getString(DatabaseFields.CMT_POSTER_FLD);
+						MoodComment comment = new MoodComment(post, cs.getId(), posterName, commentText);
+						comment.setTimeCommented(cs.getLong(DatabaseFields.CMT_TIME_FLD));
+						long numReplies = cs.getLong(DatabaseFields.CMT_NUM_SUB);
+						comment.setNumSubReplies((int) numReplies);
+						comments.add(comment);
+					}
+
+					listener.onResult(DatabaseResult.SUCCESS, comments);
+				})
+				.addOnFailureListener(error -> {
+					listener.onResult(DatabaseResult.FAILURE, Collections.emptyList());
+				});
+	}
+
+	/***
+	 * Requests the subcomments to the given {@code parentComment} if there
+	 * are any. The results of the request will be returned in the given
+	 * {@code listener}.
+	 *
+	 * @see IQueryResult#onResult(DatabaseResult, List)
+	 *
+	 * @param parentComment the comment to retrieve the replies to
+	 * @param listener 		the callback to return the results of the request
+	 */
+	@Override
+	public void requestCommentReplies(MoodComment parentComment, IQueryResult<MoodComment> listener) {
+		DocumentReference postUser = this.getUserDoc(parentComment.getParentPost().getUser());
+		postUser.collection(DatabaseFields.USER_MOODS_COLLECTION)
+				.document(parentComment.getParentPost().getDocumentId())
+				.collection(DatabaseFields.MOOD_COMMENT_FLD)
+				.whereEqualTo(DatabaseFields.CMT_PARENT_CMT_FLD, parentComment.getDocumentId())
+				.get()
+				.addOnSuccessListener(snapshot -> {
+					List<MoodComment> comments = new ArrayList<>();
+
+					for (DocumentSnapshot cs : snapshot.getDocuments()) {
+						String commentText = cs.getString(DatabaseFields.CMT_TEXT_FLD);
+						String posterName = cs.getString(DatabaseFields.CMT_POSTER_FLD);
+						MoodComment comment = new MoodComment(parentComment, cs.getId(), posterName, commentText);
+						comment.setTimeCommented(cs.getLong(DatabaseFields.CMT_TIME_FLD));
+						long numReplies = cs.getLong(DatabaseFields.CMT_NUM_SUB);
+						comment.setNumSubReplies((int) numReplies);
+						comments.add(comment);
+					}
+
+					listener.onResult(DatabaseResult.SUCCESS, comments);
+				})
+				.addOnFailureListener(error -> {
+					listener.onResult(DatabaseResult.FAILURE, Collections.emptyList());
+				});
+	}
+
+	/**
+	 * Sends a following request notification to the user with the given
+	 * {@code destUser} username.
+	 *
+	 * @param sourceUser the name of the user sending the request
+	 * @param destUser   the name of the user to receive the request
+	 */
+	@Override
+	public void sendFollowRequest(String sourceUser, String destUser) {
+		DocumentReference sourceRef = this.getUserDoc(sourceUser);
+		DocumentReference destRef = this.getUserDoc(destUser);
+		Map<String, Object> notificationValue = new HashMap<>();
+		notificationValue.put(DatabaseFields.NOTIF_SENDER_FLD, sourceUser);
+		notificationValue.put(DatabaseFields.NOTIF_RECEIVER_FLD, destUser);
+
+		sourceRef.update(DatabaseFields.USER_PENDING_FOLLOWS_FLD, FieldValue.arrayUnion(destUser));
+		destRef.collection(DatabaseFields.USER_NOTIF_COLLECTION)
+			   .add(notificationValue);
+	}
+
+	/**
+	 * <p>Accepts the follow request represented by {@code notification} by
+	 * adding the sender to the receiver's list of followers and the receiver
+	 * to the sender's following list. Also removes the {@code notification}
+	 * from the receiver's notification list and removes the receiver from
+	 * the sender's pending requests.</p>
+	 *
+	 * <p>All of these changes are committed together in a single batch so
+	 * either all of them are made and {@code SUCCESS} will be sent to the
+	 * {@code listener}, or none are and a {@code FAILURE} will be sent
+	 * instead.</p>
+	 *
+	 * @param notification the notification to handle the request from
+	 * @param listener     the listener to notifiy
+	 */
+	@Override
+	public void acceptFollowRequest(Notification notification, IResultListener listener) {
+		this.acceptAllFollowRequests(notification.getDestinationUsername(),
+									 Collections.singletonList(notification), listener);
+	}
+
+	/**
+	 * <p>Accepts each of the follow requests represented by
+	 * {@code notifications} which were all received by the user given by
+	 * {@code username}. See {@link #acceptFollowRequest}.</p>
+	 *
+	 * <p>The requests are committed in as few batches as possible with each
+	 * request being entirely within a single batch. {@code SUCCESS} will be
+	 * sent to the {@code listener} only if every batch is committed.</p>
+	 *
+	 * @param username      the name of the user who received the requests
+	 * @param notifications the notifications to handle the requests from
+	 * @param listener      the listener to notify
+	 */
+	@Override
+	public void acceptAllFollowRequests(String username, List<Notification> notifications,
+										IResultListener listener) {
+		DocumentReference receiverRef = this.getUserDoc(username);
+		List<Task<Void>> commits = new ArrayList<>();
+		List<String> senders = new ArrayList<>();
+		WriteBatch batch = this.db.batch();
+
+		for (Notification notification : notifications) {
+			String sender = notification.getSourceUsername();
+			// The sender's following and pending requests are both changed
+			// by a single update of their document.
+			batch.update(this.getUserDoc(sender),
+						 DatabaseFields.USER_FOLLOWING_FLD, FieldValue.arrayUnion(username),
+						 DatabaseFields.USER_PENDING_FOLLOWS_FLD, FieldValue.arrayRemove(username));
+			batch.delete(receiverRef.collection(DatabaseFields.USER_NOTIF_COLLECTION)
+									.document(notification.getDocumentId()));
+			senders.add(sender);
+
+			// Each request takes two writes and the receiver's followers take
+			// one more, so the batch is committed before it would overflow.
+			if (2 * senders.size() + 1 > BatchWriter.MAX_BATCH_WRITES - 2) {
+				commits.add(this.commitAccepted(batch, receiverRef, senders));
+				batch = this.db.batch();
+				senders = new ArrayList<>();
+			}
+		}
+
+		if (!senders.isEmpty()) {
+			commits.add(this.commitAccepted(batch, receiverRef, senders));
+		}
+
+		Tasks.whenAll(commits)
+			 .addOnSuccessListener(v -> {
+				 listener.onResult(DatabaseResult.SUCCESS);
+				 Log.i(DB_TAG, "Successfully accepted following requests");
+
+				 for (Notification notification : notifications) {
+					 this.backfillFeed(notification.getSourceUsername(), username);
+				 }
+			 })
+			 .addOnFailureListener(e -> {
+				 listener.onResult(DatabaseResult.FAILURE);
+				 Log.e(DB_TAG, "Failed to accept following requests", e);
+			 });
+	}
+
+	/**
+	 * Adds the given {@code senders} to the followers of the receiver given
+	 * by {@code receiverRef} within the given {@code batch} and commits it.
+	 *
+	 * @param batch       the batch holding the rest of the accepted requests
+	 * @param receiverRef the document of the user who received the requests
+	 * @param senders     the names of the users whose requests were accepted
+	 *
+	 * @return the task of committing the batch
+	 */
+	private Task<Void> commitAccepted(WriteBatch batch, DocumentReference receiverRef,
+									  List<String> senders) {
+		batch.update(receiverRef, DatabaseFields.USER_FOLLOWERS_FLD,
+					 FieldValue.arrayUnion(senders.toArray()));
+		return batch.commit();
+	}
+
+	/**
+	 * <p>Rejects the follow request represented by {@code notification}
+	 * removing the {@code notification} from the receiver's notification
+	 * list and removing the receiver from the sender's pending requests.</p>
+	 *
+	 * <p>Both changes are committed together in a single batch so either
+	 * both are made and {@code SUCCESS} will be sent to the {@code listener},
+	 * or neither is and a {@code FAILURE} will be sent instead.</p>
+	 *
+	 * @param notification the notification to handle the request from
+	 * @param listener     the listener to notifiy
+	 */
+	@Override
+	public void rejectFollowingRequest(Notification notification, IResultListener listener) {
+		String sender = notification.getSourceUsername();
+		String receiver = notification.getDestinationUsername();
+		WriteBatch batch = this.db.batch();
+
+		batch.update(this.getUserDoc(sender), DatabaseFields.USER_PENDING_FOLLOWS_FLD,
+					 FieldValue.arrayRemove(receiver));
+		batch.delete(this.getUserDoc(receiver)
+						 .collection(DatabaseFields.USER_NOTIF_COLLECTION)
+						 .document(notification.getDocumentId()));
+
+		batch.commit()
+			 .addOnSuccessListener(v -> {
+				 listener.onResult(DatabaseResult.SUCCESS);
+				 Log.i(DB_TAG, "Successfully rejected following request");
+			 })
+			 .addOnFailureListener(e -> {
+				 listener.onResult(DatabaseResult.FAILURE);
+				 Log.e(DB_TAG, "Failed to reject following request", e);
+			 });
+	}
+
+	/**
+	 * Attempts to remove {@code userToRemove} as a follower from the user
+	 * given by {@code username}. Both users are updated together in a single
+	 * batch and the success or failure of this task will be given to
+	 * {@code listener}.
+	 *
+	 * @param username     the user whose following list is to be updated
+	 * @param userToRemove the user to remove as a follower
+	 * @param listener     the listener for the result of the action
+	 */
+	@Override
+	public void removeFollower(String username, String userToRemove, IResultListener listener) {
+		WriteBatch batch = this.db.batch();
+		batch.update(this.getUserDoc(userToRemove), DatabaseFields.USER_FOLLOWING_FLD,
+					 FieldValue.arrayRemove(username));
+		batch.update(this.getUserDoc(username), DatabaseFields.USER_FOLLOWERS_FLD,
+					 FieldValue.arrayRemove(userToRemove));
+
+		batch.commit()
+			 .addOnSuccessListener(v -> {
+				 listener.onResult(DatabaseResult.SUCCESS);
+				 String logMsg = "Successfully removed %s from %s's following";
+				 Log.i(DB_TAG, String.format(logMsg, userToRemove, username));
+				 this.purgeFeed(userToRemove, username);
+			 })
+			 .addOnFailureListener(error -> {
+				 listener.onResult(DatabaseResult.FAILURE);
+				 String logMsg = "Failed to remove %s from %s's following";
+				 Log.e(DB_TAG, String.format(logMsg, userToRemove, username), error);
+			 });
+	}
+
+	/**
+	 * <p>Deletes the account of the user given by {@code username} along
+	 * with all of their moods, the comments on those moods, their feed and
+	 * their notifications.</p>
+	 *
+	 * <p>The user is first removed from the other users that refer to them:
+	 * the following of their followers, the followers of the users they
+	 * follow, the feeds of their followers and the notifications and pending
+	 * requests of any outstanding follow requests. The user's own documents
+	 * are deleted only once this succeeds, then the images referenced by
+	 * their moods are released, and the user's document is deleted last so a
+	 * failed deletion may be attempted again. Comments written by the user on
+	 * the moods of other users are kept.</p>
+	 *
+	 * <p>Every write is made in batches by a single {@link BatchWriter} so
+	 * the {@code progressListener} receives the total number of documents
+	 * written so far.</p>
+	 *
+	 * @param username         the name of the user to delete
+	 * @param progressListener the listener for the progress of the deletion,
+	 *                         may be {@code null}
+	 * @param listener         the listener for the result of the action
+	 */
+	@Override
+	public void deleteAccount(String username, IProgressListener progressListener,
+							  IResultListener listener) {
+		DocumentReference userRef = this.getUserDoc(username);
+		BatchWriter writer = new BatchWriter(this.db, progressListener);
+		Map<String, Long> imageReferences = new HashMap<>();
+
+		Tasks.whenAllSuccess(userRef.get(),
+							 userRef.collection(DatabaseFields.USER_NOTIF_COLLECTION).get())
+			 .continueWithTask(t -> {
+				 if (!t.isSuccessful()) {
+					 return Tasks.forException(t.getException());
+				 }
+
+				 DocumentSnapshot user = (DocumentSnapshot) t.getResult().get(0);
+				 QuerySnapshot received = (QuerySnapshot) t.getResult().get(1);
+				 List<String> followers = this.getNames(user, DatabaseFields.USER_FOLLOWERS_FLD);
+				 List<Task<Void>> cleanup = new ArrayList<>();
+				 cleanup.add(writer.writeAll(this.getUserDocs(followers), (batch, ref) ->
+						 batch.update(ref, DatabaseFields.USER_FOLLOWING_FLD,
+									  FieldValue.arrayRemove(username))));
+				 cleanup.add(writer.writeAll(
+						 this.getUserDocs(this.getNames(user, DatabaseFields.USER_FOLLOWING_FLD)),
+						 (batch, ref) -> batch.update(ref, DatabaseFields.USER_FOLLOWERS_FLD,
+													  FieldValue.arrayRemove(username))));
+
+				 // The senders of the requests received by the user are still
+				 // waiting on them, so they are no longer kept pending.
+				 List<String> senders = new ArrayList<>();
+
+				 for (DocumentSnapshot notification : received.getDocuments()) {
+					 senders.add(notification.getString(DatabaseFields.NOTIF_SENDER_FLD));
+				 }
+
+				 cleanup.add(writer.writeAll(this.getUserDocs(senders), (batch, ref) ->
+						 batch.update(ref, DatabaseFields.USER_PENDING_FOLLOWS_FLD,
+									  FieldValue.arrayRemove(username))));
+
+				 for (String follower : followers) {
+					 cleanup.add(writer.deleteAll(this.getFeedQuery(follower, username)));
+				 }
+
+				 for (String receiver : this.getNames(user, DatabaseFields.USER_PENDING_FOLLOWS_FLD)) {
+					 cleanup.add(writer.deleteAll(this.getUserDoc(receiver)
+													  .collection(DatabaseFields.USER_NOTIF_COLLECTION)
+													  .whereEqualTo(DatabaseFields.NOTIF_SENDER_FLD, username)));
+				 }
+
+				 return Tasks.whenAll(cleanup);
+			 })
+			 .continueWithTask(t -> {
+				 if (!t.isSuccessful()) {
+					 return Tasks.forException(t.getException());
+				 }
+
+				 // The images referenced by the moods are counted before the
+				 // moods are deleted and only released afterwards, so a
+				 // failure can never leave a mood referencing a released image.
+				 return userRef.collection(DatabaseFields.USER_MOODS_COLLECTION)
+							   .whereNotEqualTo(DatabaseFields.MOOD_IMG_HASH_FLD, null)
+							   .get();
+			 })
+			 .continueWithTask(t -> {
+				 if (!t.isSuccessful()) {
+					 return Tasks.forException(t.getException());
+				 }
+
+				 for (DocumentSnapshot mood : t.getResult().getDocuments()) {
+					 imageReferences.merge(mood.getString(DatabaseFields.MOOD_IMG_HASH_FLD), 1L, Long::sum);
+				 }
+
+				 // Only moods that have comments need their comments read.
+				 Task<Void> moods = writer.deleteAll(
+						 userRef.collection(DatabaseFields.USER_MOODS_COLLECTION),
+						 DatabaseFields.MOOD_COMMENT_FLD, mood -> {
+							 Long numComments = mood.getLong(DatabaseFields.MOOD_COMMENT_COUNT);
+							 return numComments != null && numComments > 0;
+						 });
+				 Task<Void> feed = writer.deleteAll(userRef.collection(DatabaseFields.USER_FEED_COLLECTION));
+				 Task<Void> notifications = writer.deleteAll(
+						 userRef.collection(DatabaseFields.USER_NOTIF_COLLECTION));
+				 return Tasks.whenAll(moods, feed, notifications);
+			 })
+			 .continueWithTask(t -> {
+				 if (!t.isSuccessful()) {
+					 return t;
+				 }
+
+				 List<Task<Void>> releases = new ArrayList<>();
+
+				 for (Map.Entry<String, Long> reference : imageReferences.entrySet()) {
+					 String hash = reference.getKey();
+					 releases.add(this.getImageDoc(hash)
+									  .update(DatabaseFields.IMG_REF_COUNT_FLD,
+											  FieldValue.increment(-reference.getValue()))
+									  .continueWithTask(release -> {
+										  if (isNotFound(release.getException())) {
+											  return Tasks.forResult(null);
+										  }
+
+										  if (release.isSuccessful()) {
+											  this.deleteIfUnreferenced(hash);
+										  }
+
+										  return release;
+									  }));
+				 }
+
+				 return Tasks.whenAll(releases);
+			 })
+			 .continueWithTask(t -> {
+				 if (!t.isSuccessful()) {
+					 return t;
+				 }
+
+				 return userRef.delete();
+			 })
+			 .addOnSuccessListener(v -> {
+				 listener.onResult(DatabaseResult.SUCCESS);
+				 Log.i(DB_TAG, String.format("Successfully deleted the account of %s", username));
+			 })
+			 .addOnFailureListener(e -> {
+				 listener.onResult(DatabaseResult.FAILURE);
+				 Log.e(DB_TAG, String.format("Failed to delete the account of %s", username), e);
+			 });
+	}
+
+	/**
+	 * <p>Brings the stored data of the user given by {@code username} up to
+	 * date with the data written by the current version of the application,
+	 * recording the version reached in the user's document so that each step
+	 * is only run once. The steps are:</p>
+	 *
+	 * <ol>
+	 *     <li>Filling the user's feed with the recent moods of each user they
+	 *     followed before moods were copied into feeds.</li>
+	 *     <li>Storing the geohash of the user's located moods posted before
+	 *     geohashes were stored, so that the map finds them by their tile,
+	 *     along with the copies of them in the feeds of the user's
+	 *     followers.</li>
+	 * </ol>
+	 *
+	 * <p>A failure is only logged, as the migration is attempted again on the
+	 * next login.</p>
+	 *
+	 * @param username     the name of the user to migrate
+	 * @param userSnapshot the user's document
+	 */
+	private void migrateUser(String username, DocumentSnapshot userSnapshot) {
+		Long storedVersion = userSnapshot.getLong(DatabaseFields.USER_DATA_VERSION_FLD);
+		long version = (storedVersion != null) ? storedVersion : 0;
+
+		if (version >= USER_DATA_VERSION) {
+			return;
+		}
+
+		List<Task<Void>> steps = new ArrayList<>();
+
+		if (version < 1) {
+			for (String followee : this.getNames(userSnapshot, DatabaseFields.USER_FOLLOWING_FLD)) {
+				steps.add(this.backfillFeed(username, followee));
+			}
+		}
+
+		if (version < 2) {
+			steps.add(this.addGeohashes(username, userSnapshot));
+		}
+
+		Tasks.whenAll(steps)
+			 .onSuccessTask(v -> userSnapshot.getReference()
+											 .update(DatabaseFields.USER_DATA_VERSION_FLD,
+													 USER_DATA_VERSION))
+			 .addOnSuccessListener(v -> Log.i(DB_TAG, "Migrated the data of " + username))
+			 .addOnFailureListener(e -> Log.e(DB_TAG, "Failed to migrate the data of " + username, e));
+	}
+
+	/**
+	 * Copies the most recent public moods of the user given by
+	 * {@code followee} into the feed of the user given by {@code follower}
+	 * so that a new follow immediately shows the followee's moods.
+	 *
+	 * @param follower the user whose feed should receive the moods
+	 * @param followee the user who is now being followed
+	 *
+	 * @return the task of copying the moods
+	 */
+	private Task<Void> backfillFeed(String follower, String followee) {
+		return this.getUserDoc(followee)
+			.collection(DatabaseFields.USER_MOODS_COLLECTION)
+			.orderBy(DatabaseFields.MOOD_TIME_FLD, Query.Direction.DESCENDING)
+			.limit(FEED_BACKFILL_SIZE)
+			.get()
+			.onSuccessTask(snapshot -> {
+				WriteBatch batch = this.db.batch();
+
+				for (DocumentSnapshot mood : snapshot.getDocuments()) {
+					if (Boolean.TRUE.equals(mood.getBoolean(DatabaseFields.MOOD_VIEW_STATUS_FLD))) {
+						continue;
+					}
+
+					batch.set(this.getFeedEntry(follower, mood.getId()), this.getFeedFields(mood));
+				}
+
+				return batch.commit();
+			})
+			.addOnFailureListener(e -> Log.e(DB_TAG, "Failed to backfill feed", e));
+	}
+
+	/**
+	 * Stores the geohash of every located mood of the user given by
+	 * {@code username} which does not have one, and of each copy of such a
+	 * mood which is public in the feed of a follower of the user, so that
+	 * the map's queries by geohash find the moods. Copies are only updated,
+	 * never created, as the feed of a follower only holds the moods posted
+	 * since they followed the user along with a few older ones.
+	 *
+	 * @param username     the name of the user whose moods to update
+	 * @param userSnapshot the user's document
+	 *
+	 * @return the task of updating the moods
+	 */
+	private Task<Void> addGeohashes(String username, DocumentSnapshot userSnapshot) {
+		List<String> followers = this.getNames(userSnapshot, DatabaseFields.USER_FOLLOWERS_FLD);
+		return this.getUserDoc(username)
+			.collection(DatabaseFields.USER_MOODS_COLLECTION)
+			.get()
+			.onSuccessTask(snapshot -> {
+				Map<DocumentReference, String> geohashes = new LinkedHashMap<>();
+				List<Task<Void>> writes = new ArrayList<>();
+
+				for (DocumentSnapshot mood : snapshot.getDocuments()) {
+					String geohash = this.getGeohash(mood);
+
+					if (geohash == null || mood.contains(DatabaseFields.MOOD_GEOHASH_FLD)) {
+						continue;
+					}
+
+					geohashes.put(mood.getReference(), geohash);
+
+					if (Boolean.TRUE.equals(mood.getBoolean(DatabaseFields.MOOD_VIEW_STATUS_FLD))) {
+						continue;
+					}
+
+					List<DocumentReference> entries = new ArrayList<>();
+
+					for (String follower : followers) {
+						entries.add(this.getFeedEntry(follower, mood.getId()));
+					}
+
+					Map<String, Object> feedFields = new HashMap<>();
+					feedFields.put(DatabaseFields.MOOD_GEOHASH_FLD, geohash);
+					writes.add(this.updateFeedEntries(entries, feedFields));
+				}
+
+				writes.add(new BatchWriter(this.db, null)
+					.writeAll(new ArrayList<>(geohashes.keySet()),
+							  (batch, ref) -> batch.update(ref, DatabaseFields.MOOD_GEOHASH_FLD,
+														   geohashes.get(ref))));
+				return Tasks.whenAll(writes);
+			})
+			.addOnFailureListener(e -> Log.e(DB_TAG, "Failed to add geohashes to moods", e));
+	}
+
+	/**
+	 * Updates the given {@code fields} of each of the feed {@code entries}
+	 * which exist, leaving out any entry which does not exist rather than
+	 * creating it. The entries are updated one at a time, as a batch would
+	 * fail entirely if any of its entries does not exist.
+	 *
+	 * @param entries the feed entries to update
+	 * @param fields  the fields to update in each entry
+	 *
+	 * @return the task of updating the entries, failing only if an existing
+	 *         entry could not be updated
+	 */
+	private Task<Void> updateFeedEntries(List<DocumentReference> entries,
+										 Map<String, Object> fields) {
+		List<Task<Void>> updates = new ArrayList<>();
+
+		for (DocumentReference entry : entries) {
+			updates.add(entry.update(fields).continueWithTask(task -> {
+				if (isNotFound(task.getException())) {
+					return Tasks.forResult(null);
+				}
+
+				return task;
+			}));
+		}
+
+		return Tasks.whenAll(updates);
+	}
+
+	/**
+	 * Returns whether the given {@code error} of a write was caused by the
+	 * document written to not existing.
+	 *
+	 * @param error the error of the write, {@code null} if it succeeded
+	 *
+	 * @return {@code true} if the document did not exist, {@code false} otherwise
+	 */
+	private static boolean isNotFound(Exception error) {
+		return error instanceof FirebaseFirestoreException
+			   && ((FirebaseFirestoreException) error).getCode()
+					  == FirebaseFirestoreException.Code.NOT_FOUND;
+	}
+
+	/**
+	 * Returns the fields of the given {@code mood} as they are copied into
+	 * the feeds of followers. Older moods may still hold their image inline,
+	 * which the feed never shows, and may not hold their geohash, which is
+	 * added to the copy. The pending fan out of the mood is left out, as it
+	 * only concerns the poster's own copy.
+	 *
+	 * @param mood the mood to copy
+	 *
+	 * @return the fields of the copy of the mood
+	 */
+	private Map<String, Object> getFeedFields(DocumentSnapshot mood) {
+		Map<String, Object> feedFields = mood.getData();
+		feedFields.remove(DatabaseFields.MOOD_IMG_FLD);
+		feedFields.remove(DatabaseFields.MOOD_FAN_OUT_FLD);
+		String geohash = this.getGeohash(mood);
+
+		if (geohash != null) {
+			feedFields.put(DatabaseFields.MOOD_GEOHASH_FLD, geohash);
+		}
+
+		return feedFields;
+	}
+
+	/**
+	 * Returns the geohash of the location of the given {@code mood}, or
+	 * {@code null} if the mood has no valid location.
+	 *
+	 * @param mood the mood to find the geohash of
+	 *
+	 * @return the geohash of the mood's location, or {@code null}
+	 */
+	private String getGeohash(DocumentSnapshot mood) {
+		double[] coordinates = new FirestoreDocument(mood)
+				.getCoordinates(DatabaseFields.MOOD_LOCATION_FLD);
+
+		if (coordinates == null || coordinates[0] == MoodPost.INVALID_COORDINATE
+			|| coordinates[1] == MoodPost.INVALID_COORDINATE) {
+			return null;
+		}
+
+		return GeoHash.encode(coordinates[0], coordinates[1], Database.GEOHASH_PRECISION);
+	}
+
+	/**
+	 * Removes every mood of the user given by {@code followee} from the feed
+	 * of the user given by {@code follower} once they no longer follow them.
+	 *
+	 * @param follower the user whose feed should be purged
+	 * @param followee the user who is no longer being followed
+	 */
+	private void purgeFeed(String follower, String followee) {
+		new BatchWriter(this.db, null)
+			.deleteAll(this.getFeedQuery(follower, followee))
+			.addOnFailureListener(e -> Log.e(DB_TAG, "Failed to purge feed", e));
+	}
+
+	/**
+	 * Returns the query for the moods of the user given by {@code followee}
+	 * within the feed of the user given by {@code follower}.
+	 *
+	 * @param follower the user who owns the feed
+	 * @param followee the user who posted the moods
+	 *
+	 * @return the query for the followee's feed entries
+	 */
+	private Query getFeedQuery(String follower, String followee) {
+		return this.getUserDoc(follower)
+				   .collection(DatabaseFields.USER_FEED_COLLECTION)
+				   .whereEqualTo(DatabaseFields.USER_NAME_FLD, followee);
+	}
+
+	/**
+	 * Returns the document for the mood with the given {@code moodId} within
+	 * the feed of the user given by {@code username}.
+	 *
+	 * @param username the name of the user who owns the feed
+	 * @param moodId   the id of the mood's document
+	 *
+	 * @return the feed entry for the mood
+	 */
+	private DocumentReference getFeedEntry(String username, String moodId) {
+		return this.getUserDoc(username)
+				   .collection(DatabaseFields.USER_FEED_COLLECTION)
+				   .document(moodId);
+	}
+
+	/**
+	 * Returns the document holding the image with the given {@code hash}.
+	 *
+	 * @param hash the SHA-256 hash of the image's bytes
+	 *
+	 * @return the document for the image
+	 */
+	private DocumentReference getImageDoc(String hash) {
+		return this.db.collection(DatabaseFields.IMAGE_COLLECTION).document(hash);
+	}
+
+	/**
+	 * Returns the list of usernames stored in the given {@code field} of the
+	 * user document {@code snapshot} or an empty list if there are none.
+	 *
+	 * @param snapshot the user document to read the names from
+	 * @param field    the name of the field holding the usernames
+	 *
+	 * @return the usernames in the field
+	 */
+	private List<String> getNames(DocumentSnapshot snapshot, String field) {
+		if (!snapshot.contains(field)) {
+			return Collections.emptyList();
+		}
+
+		return (List<String>) snapshot.get(field);
+	}
+
+	/**
+	 * Returns the documents of each of the users given by {@code usernames}.
+	 *
+	 * @param usernames the names of the users
+	 *
+	 * @return the documents of the users
+	 */
+	private List<DocumentReference> getUserDocs(List<String> usernames) {
+		return usernames.stream()
+						.map(this::getUserDoc)
+						.collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the {@code DocumentReference} associated with the user
+	 * given by {@code username}.
+	 *
+	 * @param username the name of the user to get the document from
+	 *
+	 * @return a {@code DocumentReference} for the given {@code username}
+	 */
+	private DocumentReference getUserDoc(String username) {
+		CollectionReference usersCollection
+				= this.db.collection(DatabaseFields.USER_COLLECTION);
+		DocumentReference userDoc
+				= usersCollection.document(this.getUserDocumentName(username));
+		return userDoc;
+	}
+
+	/**
+	 * Returns the name of the document for the given user.
+	 *
+	 * @param username the name of the user to retreive the document name
+	 *
+	 * @return the name of the document for the user
+	 */
+	private String getUserDocumentName(String username) {
+		return "user_" + username;
+	}
+
+	/**
+	 * Returns a mapping representation of the given {@code post} based
+	 * on the fields that are available in the post. Certain fields must
+	 * be handled specially when updating otherwise they will not be
+	 * updated correctly thus {@code isUpdate} should be {@code true}
+	 * when updating a post.
+	 *
+	 * @param post		the post to convert into a map object
+	 * @param isUpdate  whether the obtaining of fields is done by an update
+	 *
+	 * @return a map representation of the fields in the {@code post}
+	 */
+	private Map<String, Object> getMoodFields(MoodPost post, boolean isUpdate) {
+		Map<String, Object> postFields = Database.getMoodFields(post);
+
+		// Firestore stores bytes as a Blob rather than an array.
+		if (post.getThumbnailData() != null) {
+			Blob thumbnail = Blob.fromBytes(post.getThumbnailData());
+			postFields.put(DatabaseFields.MOOD_THUMBNAIL_FLD, thumbnail);
+		}
+
+		// Locations are stored as a native GeoPoint rather than a list.
+		if (postFields.containsKey(DatabaseFields.MOOD_LOCATION_FLD)) {
+			GeoPoint location = new GeoPoint(post.getLatitude(), post.getLongitude());
+			postFields.put(DatabaseFields.MOOD_LOCATION_FLD, location);
+		}
+
+		if (isUpdate) {
+			// Fields which are no longer set on the post must be explicitly
+			// deleted as an update only replaces the fields it is given.
+			for (String field : Database.OPTIONAL_MOOD_FIELDS) {
+				if (!postFields.containsKey(field)) {
+					postFields.put(field, FieldValue.delete());
+				}
+			}
+
+			// An older mood holding its image inline keeps the image unless
+			// it was loaded, in which case the post now references it.
+			if (post.hasImage() && post.getImageHash() == null) {
+				postFields.remove(DatabaseFields.MOOD_IMG_FLD);
+			}
+		}
+
+		return postFields;
+	}
+}
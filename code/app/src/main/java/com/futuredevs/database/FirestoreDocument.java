@@ -0,0 +1,115 @@
+package com.futuredevs.database;
+
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code FirestoreDocument} class is an {@link IDocument} backed by a
+ * Firestore {@code DocumentSnapshot}.
+ *
+ * @author Spencer Schmidt
+ */
+class FirestoreDocument implements IDocument {
+	private final DocumentSnapshot snapshot;
+
+	/**
+	 * Creates a {@code FirestoreDocument} reading from the given
+	 * {@code snapshot}.
+	 *
+	 * @param snapshot the snapshot of the document
+	 */
+	FirestoreDocument(DocumentSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Returns the Firestore snapshot this document reads from.
+	 *
+	 * @return the snapshot of the document
+	 */
+	DocumentSnapshot getSnapshot() {
+		return this.snapshot;
+	}
+
+	@Override
+	public String getId() {
+		return this.snapshot.getId();
+	}
+
+	@Override
+	public boolean contains(String field) {
+		return this.snapshot.contains(field);
+	}
+
+	@Override
+	public Object get(String field) {
+		return this.snapshot.get(field);
+	}
+
+	@Override
+	public String getString(String field) {
+		return this.snapshot.getString(field);
+	}
+
+	@Override
+	public Long getLong(String field) {
+		return this.snapshot.getLong(field);
+	}
+
+	@Override
+	public Boolean getBoolean(String field) {
+		return this.snapshot.getBoolean(field);
+	}
+
+	@Override
+	public byte[] getBytes(String field) {
+		Blob value = this.snapshot.getBlob(field);
+		return (value != null) ? value.toBytes() : null;
+	}
+
+	@Override
+	public double[] getCoordinates(String field) {
+		Object value = this.snapshot.get(field);
+
+		if (value instanceof GeoPoint) {
+			GeoPoint point = (GeoPoint) value;
+			return new double[] {point.getLatitude(), point.getLongitude()};
+		}
+
+		// Older moods hold their location as a list of the coordinates.
+		if (value instanceof List && ((List<?>) value).size() >= 2) {
+			List<?> coordinates = (List<?>) value;
+			return new double[] {((Number) coordinates.get(0)).doubleValue(),
+								 ((Number) coordinates.get(1)).doubleValue()};
+		}
+
+		return null;
+	}
+
+	@Override
+	public Map<String, Object> getData() {
+		return this.snapshot.getData();
+	}
+
+	/**
+	 * Returns the given {@code snapshots} as a list of documents.
+	 *
+	 * @param snapshots the snapshots to wrap
+	 *
+	 * @return a document for each of the snapshots, in the same order
+	 */
+	static List<IDocument> wrap(List<DocumentSnapshot> snapshots) {
+		List<IDocument> documents = new ArrayList<>(snapshots.size());
+
+		for (DocumentSnapshot snapshot : snapshots) {
+			documents.add(new FirestoreDocument(snapshot));
+		}
+
+		return documents;
+	}
+}
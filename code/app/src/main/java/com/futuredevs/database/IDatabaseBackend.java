@@ -0,0 +1,211 @@
+package com.futuredevs.database;
+
+import com.futuredevs.database.queries.DatabaseQuery;
+import com.futuredevs.database.queries.IListenerRegistration;
+import com.futuredevs.database.queries.IMoodChangeListener;
+import com.futuredevs.database.queries.IQueryListener;
+import com.futuredevs.models.items.MoodComment;
+import com.futuredevs.models.items.MoodPost;
+import com.futuredevs.models.items.Notification;
+import com.futuredevs.models.items.UserProfile;
+
+import java.util.List;
+
+/**
+ * <p>The {@code IDatabaseBackend} interface represents the storage used by the
+ * {@link Database}. Every interaction with the stored users, moods, comments
+ * and follow requests is performed by a backend.</p>
+ *
+ * <p>The application uses the {@link FirestoreBackend} while the
+ * {@link InMemoryBackend} allows the models to be used without a connection
+ * to Firestore, such as for tests.</p>
+ *
+ * <p>See {@link Database} for the details of each of the operations.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public interface IDatabaseBackend {
+	/**
+	 * Attempts to create a user with the details specified by the
+	 * {@code user}.
+	 *
+	 * @param user the details to use for user creation
+	 * @param auth the authenticator callback for handling the results
+	 */
+	void attemptSignup(UserDetails user, IAuthenticator auth);
+
+	/**
+	 * Checks the details of the given {@code user} for a matching user
+	 * account.
+	 *
+	 * @param user the details to use for user login
+	 * @param auth the authenticator callback for handling the results
+	 */
+	void validateLogin(UserDetails user, IAuthenticator auth);
+
+	/**
+	 * Performs a query based on the details of the given {@code query} and,
+	 * upon completion, returns the results to the {@code listener}.
+	 *
+	 * @param query    the query to perform
+	 * @param listener the listener to return the results of the query to
+	 */
+	void performQuery(DatabaseQuery query, IQueryListener listener);
+
+	/**
+	 * Listens to the moods of the user given by {@code username} that were
+	 * posted at or after {@code oldestTime}, or every mood of the user if
+	 * {@code oldestTime} is 0.
+	 *
+	 * @param username   the name of the user to listen to the moods of
+	 * @param oldestTime the post time of the oldest mood to listen to
+	 * @param listener   the listener to notify of changes to the moods
+	 *
+	 * @return the registration used to stop listening to the moods
+	 */
+	IListenerRegistration listenForMoodChanges(String username, long oldestTime,
+											   IMoodChangeListener listener);
+
+	/**
+	 * Requests the follow information of the user given by {@code username}.
+	 *
+	 * @param username the user to obtain the data from
+	 * @param listener the callback to give the results
+	 */
+	void requestUserInformation(String username, IQueryResult<UserProfile> listener);
+
+	/**
+	 * Adds the {@code post} to the moods of the user given by
+	 * {@code username}.
+	 *
+	 * @param username the name of the user to add the mood to
+	 * @param post     the post to add to the user
+	 * @param listener the listener for the result of the operation
+	 */
+	void addMood(String username, MoodPost post, IResultListener listener);
+
+	/**
+	 * Updates the mood of the user given by {@code username} that
+	 * corresponds to the given {@code post}.
+	 *
+	 * @param username the name of the user to find the mood to edit
+	 * @param post     the post to edit along with its new details
+	 * @param listener the listener for the result of the operation
+	 */
+	void editMood(String username, MoodPost post, IResultListener listener);
+
+	/**
+	 * Sets the city of the mood of the user given by {@code username} with
+	 * the given {@code documentId}, and of the copies of the mood in the
+	 * feeds of the user's followers, leaving the other fields as they are.
+	 *
+	 * @param username   the name of the user to find the mood of
+	 * @param documentId the id of the mood's document
+	 * @param city       the name of the city the mood was posted from
+	 * @param listener   the listener for the result of the operation
+	 */
+	void setMoodCity(String username, String documentId, String city, IResultListener listener);
+
+	/**
+	 * Removes the mood of the user given by {@code username} that
+	 * corresponds to the given {@code post} along with its comments.
+	 *
+	 * @param username the name of the user to find the mood to remove
+	 * @param post     the post to remove from the user
+	 * @param listener the listener for the result of the operation
+	 */
+	void removeMood(String username, MoodPost post, IResultListener listener);
+
+	/**
+	 * Requests the image of the given {@code post}, which is stored
+	 * separately from the post itself. The result holds the bytes of the
+	 * image, or is empty if the post has no image.
+	 *
+	 * @param post     the post to request the image of
+	 * @param listener the callback to return the result to
+	 */
+	void requestMoodImage(MoodPost post, IQueryResult<byte[]> listener);
+
+	/**
+	 * Posts the given {@code comment} to the given {@code post}.
+	 *
+	 * @param post     the post to add the comment to
+	 * @param comment  the comment to add
+	 * @param listener the listener for the result of the operation
+	 */
+	void postComment(MoodPost post, MoodComment comment, IResultListener listener);
+
+	/**
+	 * Requests the top-level comments of the given {@code post}.
+	 *
+	 * @param post     the post to request the comments from
+	 * @param listener the callback to return the results to
+	 */
+	void requestPostComments(MoodPost post, IQueryResult<MoodComment> listener);
+
+	/**
+	 * Requests the replies to the given {@code parentComment}.
+	 *
+	 * @param parentComment the comment to retrieve the replies to
+	 * @param listener      the callback to return the results to
+	 */
+	void requestCommentReplies(MoodComment parentComment, IQueryResult<MoodComment> listener);
+
+	/**
+	 * Sends a follow request from {@code sourceUser} to {@code destUser}.
+	 *
+	 * @param sourceUser the name of the user sending the request
+	 * @param destUser   the name of the user to receive the request
+	 */
+	void sendFollowRequest(String sourceUser, String destUser);
+
+	/**
+	 * Accepts the follow request represented by {@code notification}.
+	 *
+	 * @param notification the notification to handle the request from
+	 * @param listener     the listener for the result of the operation
+	 */
+	void acceptFollowRequest(Notification notification, IResultListener listener);
+
+	/**
+	 * Accepts each of the follow requests represented by
+	 * {@code notifications} received by the user given by {@code username}.
+	 *
+	 * @param username      the name of the user who received the requests
+	 * @param notifications the notifications to handle the requests from
+	 * @param listener      the listener for the result of the operation
+	 */
+	void acceptAllFollowRequests(String username, List<Notification> notifications,
+								 IResultListener listener);
+
+	/**
+	 * Rejects the follow request represented by {@code notification}.
+	 *
+	 * @param notification the notification to handle the request from
+	 * @param listener     the listener for the result of the operation
+	 */
+	void rejectFollowingRequest(Notification notification, IResultListener listener);
+
+	/**
+	 * Removes {@code userToRemove} as a follower of the user given by
+	 * {@code username}.
+	 *
+	 * @param username     the user whose followers are to be updated
+	 * @param userToRemove the user to remove as a follower
+	 * @param listener     the listener for the result of the operation
+	 */
+	void removeFollower(String username, String userToRemove, IResultListener listener);
+
+	/**
+	 * Deletes the account of the user given by {@code username} along with
+	 * all of their moods, feed and notifications. The user is also removed
+	 * from the followers, following and pending requests of other users.
+	 *
+	 * @param username         the name of the user to delete
+	 * @param progressListener the listener for the number of documents
+	 *                         deleted so far, may be {@code null}
+	 * @param listener         the listener for the result of the operation
+	 */
+	void deleteAccount(String username, IProgressListener progressListener,
+					   IResultListener listener);
+}
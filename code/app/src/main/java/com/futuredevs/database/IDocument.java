@@ -0,0 +1,101 @@
+package com.futuredevs.database;
+
+import java.util.Map;
+
+/**
+ * <p>The {@code IDocument} interface represents a single document obtained
+ * from the database, such as a user, a mood or a notification, independent of
+ * the backend that stored it.</p>
+ *
+ * <p>The methods mirror those of a Firestore {@code DocumentSnapshot} so that
+ * the models are able to read documents the same way regardless of which
+ * {@link IDatabaseBackend} is in use.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public interface IDocument {
+	/**
+	 * Returns the id of this document within its collection.
+	 *
+	 * @return the id of the document
+	 */
+	String getId();
+
+	/**
+	 * Returns whether or not this document has a value for the given
+	 * {@code field}.
+	 *
+	 * @param field the name of the field to check
+	 *
+	 * @return {@code true} if the field exists, {@code false} otherwise
+	 */
+	boolean contains(String field);
+
+	/**
+	 * Returns the value of the given {@code field} or {@code null} if the
+	 * field does not exist.
+	 *
+	 * @param field the name of the field to obtain
+	 *
+	 * @return the value of the field
+	 */
+	Object get(String field);
+
+	/**
+	 * Returns the value of the given {@code field} as a string or
+	 * {@code null} if the field does not exist.
+	 *
+	 * @param field the name of the field to obtain
+	 *
+	 * @return the value of the field
+	 */
+	String getString(String field);
+
+	/**
+	 * Returns the value of the given {@code field} as a long or {@code null}
+	 * if the field does not exist.
+	 *
+	 * @param field the name of the field to obtain
+	 *
+	 * @return the value of the field
+	 */
+	Long getLong(String field);
+
+	/**
+	 * Returns the value of the given {@code field} as a boolean or
+	 * {@code null} if the field does not exist.
+	 *
+	 * @param field the name of the field to obtain
+	 *
+	 * @return the value of the field
+	 */
+	Boolean getBoolean(String field);
+
+	/**
+	 * Returns the value of the given {@code field} as an array of bytes or
+	 * {@code null} if the field does not exist.
+	 *
+	 * @param field the name of the field to obtain
+	 *
+	 * @return the value of the field
+	 */
+	byte[] getBytes(String field);
+
+	/**
+	 * Returns the value of the given {@code field} as a latitude followed by
+	 * a longitude or {@code null} if the field does not exist or does not
+	 * hold a location.
+	 *
+	 * @param field the name of the field to obtain
+	 *
+	 * @return the latitude and longitude held by the field
+	 */
+	double[] getCoordinates(String field);
+
+	/**
+	 * Returns every field of this document mapped to its value.
+	 *
+	 * @return the fields of the document
+	 */
+	Map<String, Object> getData();
+}
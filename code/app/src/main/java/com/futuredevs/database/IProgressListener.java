@@ -0,0 +1,22 @@
+package com.futuredevs.database;
+
+/**
+ * Classes that implement the {@code IProgressListener} interface are able to
+ * follow the progress of a long running operation on the database, such as
+ * deleting an account, as it is being performed.
+ *
+ * @see IResultListener
+ *
+ * @author Spencer Schmidt
+ */
+public interface IProgressListener {
+	/**
+	 * Called each time more documents have been written by the operation.
+	 * The overall result of the operation is given separately once it has
+	 * finished.
+	 *
+	 * @param numDocuments the total number of documents that have been
+	 *                     deleted or updated so far
+	 */
+	void onProgress(int numDocuments);
+}
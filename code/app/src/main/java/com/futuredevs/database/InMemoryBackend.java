@@ -0,0 +1,894 @@
+package com.futuredevs.database;
+
+import com.futuredevs.database.IAuthenticator.AuthenticationResult;
+import com.futuredevs.database.queries.DatabaseQuery;
+import com.futuredevs.database.queries.IListenerRegistration;
+import com.futuredevs.database.queries.IMoodChangeListener;
+import com.futuredevs.database.queries.IQueryListener;
+import com.futuredevs.database.queries.MoodChange;
+import com.futuredevs.models.items.MoodComment;
+import com.futuredevs.models.items.MoodPost;
+import com.futuredevs.models.items.Notification;
+import com.futuredevs.models.items.UserProfile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * <p>The {@code InMemoryBackend} class is an {@link IDatabaseBackend} that
+ * holds all of its data in memory. It stores the same documents as the
+ * {@link FirestoreBackend}, including the copies of moods in the feeds of
+ * followers, so that the models behave the same way with either backend.</p>
+ *
+ * <p>Every operation completes immediately and notifies its listener on the
+ * calling thread before returning. This backend is not thread safe and is
+ * intended for tests and for running synthetic workloads against the models
+ * without a connection to Firestore, see
+ * {@link Database#setBackend(IDatabaseBackend)}.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public class InMemoryBackend implements IDatabaseBackend {
+	/** The number of recent moods copied into a feed on a new follow. */
+	private static final int FEED_BACKFILL_SIZE = 25;
+	/** Orders moods from newest to oldest with ties ordered by their id. */
+	private static final Comparator<IDocument> NEWEST_FIRST =
+			Comparator.comparing((IDocument d) -> d.getLong(DatabaseFields.MOOD_TIME_FLD),
+								 Comparator.reverseOrder())
+					  .thenComparing(IDocument::getId);
+	/** The users of the database ordered by their username. */
+	private final NavigableMap<String, UserRecord> users = new TreeMap<>();
+	/** The stored images mapped by the hash of their bytes. */
+	private final Map<String, StoredImage> images = new HashMap<>();
+	/** Used to generate the ids of new documents. */
+	private long lastDocumentId;
+
+	@Override
+	public void attemptSignup(UserDetails user, IAuthenticator auth) {
+		UserRecord record = this.getRecord(user.getUsername());
+
+		if (record.isRegistered()) {
+			auth.onAuthenticationResult(AuthenticationResult.USERNAME_TAKEN);
+			return;
+		}
+
+		record.password = user.getPassword();
+		auth.onAuthenticationResult(AuthenticationResult.SUCCEED);
+	}
+
+	@Override
+	public void validateLogin(UserDetails user, IAuthenticator auth) {
+		UserRecord record = this.users.get(user.getUsername());
+
+		if (record != null && record.isRegistered()
+				&& user.getPassword().equals(record.password)) {
+			auth.onAuthenticationResult(AuthenticationResult.SUCCEED);
+		}
+		else {
+			auth.onAuthenticationResult(AuthenticationResult.INVALID_DETAILS);
+		}
+	}
+
+	@Override
+	public void performQuery(DatabaseQuery query, IQueryListener listener) {
+		List<IDocument> documents = new ArrayList<>();
+		UserRecord record = this.users.get(query.getUsername());
+
+		switch (query.getQueryType()) {
+			case USER_POSTS:
+				if (record != null) {
+					documents.addAll(record.moods.getPage(query.getStartAfter(),
+														  query.getPageSize()));
+				}
+				break;
+			case FOLLOWING_POSTS:
+				if (record != null) {
+					for (String name : record.following) {
+						UserRecord followed = this.users.get(name);
+
+						if (followed == null) {
+							continue;
+						}
+
+						if (query.getPostsPerUser() > 0) {
+							documents.addAll(followed.moods.getNewestPublic(query.getPostsPerUser()));
+						}
+						else {
+							documents.addAll(followed.moods.getPage(null, 0));
+						}
+					}
+				}
+				break;
+			case FOLLOWING_FEED:
+				if (record != null) {
+					documents.addAll(record.feed.getPage(query.getStartAfter(),
+														 query.getPageSize()));
+				}
+				break;
+			case CELL_POSTS:
+				if (record != null) {
+					documents.addAll(record.moods.getInCell(query.getGeohash()));
+					documents.addAll(record.feed.getInCell(query.getGeohash()));
+				}
+				break;
+			case USER_NOTIFICATIONS:
+				if (record != null) {
+					documents.addAll(record.notifications.values());
+				}
+				break;
+			case USERS:
+				String term = query.getSearchTerm();
+
+				for (UserRecord user : this.users.subMap(term, true, term + "~", true).values()) {
+					if (user.isRegistered()) {
+						Map<String, Object> fields = new HashMap<>();
+						fields.put(DatabaseFields.USER_NAME_FLD, user.username);
+						documents.add(new MapDocument("user_" + user.username, fields));
+					}
+				}
+				break;
+		}
+
+		listener.onQueryResult(documents, DatabaseResult.SUCCESS);
+	}
+
+	@Override
+	public IListenerRegistration listenForMoodChanges(String username, long oldestTime,
+													  IMoodChangeListener listener) {
+		UserRecord record = this.getRecord(username);
+		MoodListener moodListener = new MoodListener(record, oldestTime, listener);
+		record.moodListeners.add(moodListener);
+		List<MoodChange> changes = new ArrayList<>();
+
+		for (IDocument mood : record.moods.getPage(null, 0)) {
+			if (!moodListener.isListeningTo(mood)) {
+				break;
+			}
+
+			changes.add(new MoodChange(MoodChange.Type.ADDED, mood));
+		}
+
+		listener.onMoodChanges(changes, DatabaseResult.SUCCESS);
+		return moodListener;
+	}
+
+	@Override
+	public void requestUserInformation(String username, IQueryResult<UserProfile> listener) {
+		UserProfile userProfile = new UserProfile(username);
+		UserRecord record = this.users.get(username);
+		// Every mood is stored with its geohash, so there is nothing to migrate.
+		userProfile.setMigrated(true);
+
+		if (record != null) {
+			userProfile.getPending().addAll(record.pending);
+			userProfile.getFollowing().addAll(record.following);
+			userProfile.getFollowers().addAll(record.followers);
+		}
+
+		listener.onResult(DatabaseResult.SUCCESS, Collections.singletonList(userProfile));
+	}
+
+	@Override
+	public void addMood(String username, MoodPost post, IResultListener listener) {
+		UserRecord record = this.getRecord(username);
+		MapDocument mood = new MapDocument(this.nextDocumentId(), Database.getMoodFields(post));
+		this.changeImage(null, post);
+		this.putMood(record, mood);
+		listener.onResult(DatabaseResult.SUCCESS);
+	}
+
+	@Override
+	public void editMood(String username, MoodPost post, IResultListener listener) {
+		UserRecord record = this.getRecord(username);
+		IDocument existing = record.moods.get(post.getDocumentId());
+
+		if (existing == null) {
+			listener.onResult(DatabaseResult.FAILURE);
+			return;
+		}
+
+		// Editing only replaces the fields of the post, any others such as
+		// whether it has been edited are kept.
+		Map<String, Object> fields = new HashMap<>(existing.getData());
+		fields.keySet().removeAll(Database.OPTIONAL_MOOD_FIELDS);
+		fields.putAll(Database.getMoodFields(post));
+		this.changeImage(existing.getString(DatabaseFields.MOOD_IMG_HASH_FLD), post);
+		this.putMood(record, new MapDocument(post.getDocumentId(), fields));
+		listener.onResult(DatabaseResult.SUCCESS);
+	}
+
+	@Override
+	public void setMoodCity(String username, String documentId, String city,
+							IResultListener listener) {
+		UserRecord record = this.getRecord(username);
+		IDocument existing = record.moods.get(documentId);
+
+		if (existing == null) {
+			listener.onResult(DatabaseResult.FAILURE);
+			return;
+		}
+
+		Map<String, Object> fields = new HashMap<>(existing.getData());
+		fields.put(DatabaseFields.MOOD_CITY_FLD, city);
+		MapDocument mood = new MapDocument(documentId, fields);
+		record.moods.put(mood);
+
+		// Only the copies already in a feed are updated.
+		for (String follower : record.followers) {
+			MoodCollection feed = this.getRecord(follower).feed;
+
+			if (feed.get(documentId) != null) {
+				feed.put(mood);
+			}
+		}
+
+		this.notifyMoodListeners(record, existing, mood);
+		listener.onResult(DatabaseResult.SUCCESS);
+	}
+
+	@Override
+	public void removeMood(String username, MoodPost post, IResultListener listener) {
+		UserRecord record = this.getRecord(username);
+		IDocument removed = record.moods.remove(post.getDocumentId());
+
+		if (removed == null) {
+			listener.onResult(DatabaseResult.FAILURE);
+			return;
+		}
+
+		record.comments.remove(post.getDocumentId());
+
+		if (removed.contains(DatabaseFields.MOOD_IMG_HASH_FLD)) {
+			this.releaseImage(removed.getString(DatabaseFields.MOOD_IMG_HASH_FLD), 1);
+		}
+
+		for (String follower : record.followers) {
+			this.getRecord(follower).feed.remove(post.getDocumentId());
+		}
+
+		this.notifyMoodListeners(record, removed, null);
+		listener.onResult(DatabaseResult.SUCCESS);
+	}
+
+	@Override
+	public void requestMoodImage(MoodPost post, IQueryResult<byte[]> listener) {
+		StoredImage image = (post.getImageHash() != null) ? this.images.get(post.getImageHash()) : null;
+
+		if (image != null) {
+			listener.onResult(DatabaseResult.SUCCESS, Collections.singletonList(image.data));
+		}
+		else {
+			listener.onResult(DatabaseResult.SUCCESS, Collections.emptyList());
+		}
+	}
+
+	@Override
+	public void postComment(MoodPost post, MoodComment comment, IResultListener listener) {
+		UserRecord record = this.getRecord(post.getUser());
+		IDocument mood = record.moods.get(post.getDocumentId());
+
+		if (mood == null) {
+			listener.onResult(DatabaseResult.FAILURE);
+			return;
+		}
+
+		Map<String, IDocument> comments = record.comments
+				.computeIfAbsent(post.getDocumentId(), k -> new LinkedHashMap<>());
+		MoodComment parentComment = comment.getParentComment();
+		Map<String, Object> commentFields = new HashMap<>();
+		commentFields.put(DatabaseFields.CMT_PARENT_POST_FLD, post.getDocumentId());
+		commentFields.put(DatabaseFields.CMT_NUM_SUB, comment.getNumSubReplies());
+		commentFields.put(DatabaseFields.CMT_TIME_FLD, comment.getTimeCommented());
+		commentFields.put(DatabaseFields.CMT_TEXT_FLD, comment.getCommentText());
+		commentFields.put(DatabaseFields.CMT_POSTER_FLD, comment.getPosterName());
+
+		if (parentComment != null) {
+			commentFields.put(DatabaseFields.CMT_PARENT_CMT_FLD, parentComment.getDocumentId());
+			IDocument parent = comments.get(parentComment.getDocumentId());
+
+			if (parent != null) {
+				comments.put(parent.getId(),
+							 this.increment(parent, DatabaseFields.CMT_NUM_SUB));
+			}
+		}
+		else {
+			commentFields.put(DatabaseFields.CMT_PARENT_CMT_FLD, DatabaseFields.CMT_TOP_LEVEL);
+			this.putMood(record, this.increment(mood, DatabaseFields.MOOD_COMMENT_COUNT));
+		}
+
+		String commentId = this.nextDocumentId();
+		comments.put(commentId, new MapDocument(commentId, commentFields));
+		listener.onResult(DatabaseResult.SUCCESS);
+	}
+
+	@Override
+	public void requestPostComments(MoodPost post, IQueryResult<MoodComment> listener) {
+		List<MoodComment> comments = new ArrayList<>();
+
+		for (IDocument cs : this.getComments(post, DatabaseFields.CMT_TOP_LEVEL)) {
+			String commentText = cs.getString(DatabaseFields.CMT_TEXT_FLD);
+			String posterName = cs.getString(DatabaseFields.CMT_POSTER_FLD);
+			MoodComment comment = new MoodComment(post, cs.getId(), posterName, commentText);
+			comment.setTimeCommented(cs.getLong(DatabaseFields.CMT_TIME_FLD));
+			comment.setNumSubReplies(cs.getLong(DatabaseFields.CMT_NUM_SUB).intValue());
+			comments.add(comment);
+		}
+
+		listener.onResult(DatabaseResult.SUCCESS, comments);
+	}
+
+	@Override
+	public void requestCommentReplies(MoodComment parentComment, IQueryResult<MoodComment> listener) {
+		List<MoodComment> comments = new ArrayList<>();
+		MoodPost post = parentComment.getParentPost();
+
+		for (IDocument cs : this.getComments(post, parentComment.getDocumentId())) {
+			String commentText = cs.getString(DatabaseFields.CMT_TEXT_FLD);
+			String posterName = cs.getString(DatabaseFields.CMT_POSTER_FLD);
+			MoodComment comment = new MoodComment(parentComment, cs.getId(), posterName, commentText);
+			comment.setTimeCommented(cs.getLong(DatabaseFields.CMT_TIME_FLD));
+			comment.setNumSubReplies(cs.getLong(DatabaseFields.CMT_NUM_SUB).intValue());
+			comments.add(comment);
+		}
+
+		listener.onResult(DatabaseResult.SUCCESS, comments);
+	}
+
+	@Override
+	public void sendFollowRequest(String sourceUser, String destUser) {
+		Map<String, Object> notificationValue = new HashMap<>();
+		notificationValue.put(DatabaseFields.NOTIF_SENDER_FLD, sourceUser);
+		notificationValue.put(DatabaseFields.NOTIF_RECEIVER_FLD, destUser);
+		String notificationId = this.nextDocumentId();
+
+		this.getRecord(sourceUser).pending.add(destUser);
+		this.getRecord(destUser).notifications
+			.put(notificationId, new MapDocument(notificationId, notificationValue));
+	}
+
+	@Override
+	public void acceptFollowRequest(Notification notification, IResultListener listener) {
+		UserRecord sender = this.getRecord(notification.getSourceUsername());
+		UserRecord receiver = this.getRecord(notification.getDestinationUsername());
+
+		// A request which has already been handled can no longer be accepted.
+		if (!receiver.notifications.containsKey(notification.getDocumentId())) {
+			listener.onResult(DatabaseResult.FAILURE);
+			return;
+		}
+
+		sender.following.add(receiver.username);
+		receiver.followers.add(sender.username);
+		sender.pending.remove(receiver.username);
+		receiver.notifications.remove(notification.getDocumentId());
+
+		for (IDocument mood : receiver.moods.getNewestPublic(FEED_BACKFILL_SIZE)) {
+			sender.feed.put(mood);
+		}
+
+		listener.onResult(DatabaseResult.SUCCESS);
+	}
+
+	@Override
+	public void acceptAllFollowRequests(String username, List<Notification> notifications,
+										IResultListener listener) {
+		boolean[] hasFailed = {false};
+
+		for (Notification notification : notifications) {
+			this.acceptFollowRequest(notification, r -> {
+				if (r != DatabaseResult.SUCCESS) {
+					hasFailed[0] = true;
+				}
+			});
+		}
+
+		listener.onResult(hasFailed[0] ? DatabaseResult.FAILURE : DatabaseResult.SUCCESS);
+	}
+
+	@Override
+	public void rejectFollowingRequest(Notification notification, IResultListener listener) {
+		UserRecord sender = this.getRecord(notification.getSourceUsername());
+		UserRecord receiver = this.getRecord(notification.getDestinationUsername());
+
+		sender.pending.remove(receiver.username);
+		receiver.notifications.remove(notification.getDocumentId());
+		listener.onResult(DatabaseResult.SUCCESS);
+	}
+
+	@Override
+	public void removeFollower(String username, String userToRemove, IResultListener listener) {
+		UserRecord user = this.getRecord(username);
+		UserRecord follower = this.getRecord(userToRemove);
+
+		follower.following.remove(username);
+		user.followers.remove(userToRemove);
+		follower.feed.removeByUser(username);
+		listener.onResult(DatabaseResult.SUCCESS);
+	}
+
+	@Override
+	public void deleteAccount(String username, IProgressListener progressListener,
+							  IResultListener listener) {
+		UserRecord record = this.getRecord(username);
+
+		for (String follower : record.followers) {
+			UserRecord followerRecord = this.getRecord(follower);
+			followerRecord.following.remove(username);
+			followerRecord.feed.removeByUser(username);
+		}
+
+		for (String followee : record.following) {
+			this.getRecord(followee).followers.remove(username);
+		}
+
+		for (String receiver : record.pending) {
+			this.getRecord(receiver).notifications.values().removeIf(
+					n -> username.equals(n.getString(DatabaseFields.NOTIF_SENDER_FLD)));
+		}
+
+		for (IDocument notification : record.notifications.values()) {
+			this.getRecord(notification.getString(DatabaseFields.NOTIF_SENDER_FLD)).pending.remove(username);
+		}
+
+		for (IDocument mood : record.moods.getPage(null, 0)) {
+			if (mood.contains(DatabaseFields.MOOD_IMG_HASH_FLD)) {
+				this.releaseImage(mood.getString(DatabaseFields.MOOD_IMG_HASH_FLD), 1);
+			}
+		}
+
+		int numDeleted = record.moods.size() + record.feed.size() + record.notifications.size() + 1;
+
+		for (Map<String, IDocument> comments : record.comments.values()) {
+			numDeleted += comments.size();
+		}
+
+		this.users.remove(username);
+
+		if (progressListener != null) {
+			progressListener.onProgress(numDeleted);
+		}
+
+		listener.onResult(DatabaseResult.SUCCESS);
+	}
+
+	/**
+	 * Stores the given {@code mood} in the moods of the given {@code record},
+	 * replacing the mood with the same id if there is one, and copies it
+	 * into the feeds of the user's followers.
+	 *
+	 * @param record the user to store the mood for
+	 * @param mood   the mood to store
+	 */
+	private void putMood(UserRecord record, MapDocument mood) {
+		IDocument previous = record.moods.put(mood);
+		boolean isPrivate = Boolean.TRUE.equals(mood.getBoolean(DatabaseFields.MOOD_VIEW_STATUS_FLD));
+
+		for (String follower : record.followers) {
+			MoodCollection feed = this.getRecord(follower).feed;
+
+			if (isPrivate) {
+				feed.remove(mood.getId());
+			}
+			else {
+				feed.put(mood);
+			}
+		}
+
+		this.notifyMoodListeners(record, previous, mood);
+	}
+
+	/**
+	 * Notifies the mood listeners of the given {@code record} of a mood that
+	 * changed from {@code before} to {@code after}, where {@code before} is
+	 * {@code null} for a new mood and {@code after} is {@code null} for a
+	 * removed mood.
+	 *
+	 * @param record the user whose mood changed
+	 * @param before the mood before the change
+	 * @param after  the mood after the change
+	 */
+	private void notifyMoodListeners(UserRecord record, IDocument before, IDocument after) {
+		// Listeners may remove themselves when notified.
+		for (MoodListener moodListener : new ArrayList<>(record.moodListeners)) {
+			boolean wasListening = before != null && moodListener.isListeningTo(before);
+			boolean isListening = after != null && moodListener.isListeningTo(after);
+			MoodChange change;
+
+			if (isListening) {
+				MoodChange.Type type = wasListening ? MoodChange.Type.MODIFIED
+													: MoodChange.Type.ADDED;
+				change = new MoodChange(type, after);
+			}
+			else if (wasListening) {
+				change = new MoodChange(MoodChange.Type.REMOVED, before);
+			}
+			else {
+				continue;
+			}
+
+			moodListener.listener.onMoodChanges(Collections.singletonList(change),
+												DatabaseResult.SUCCESS);
+		}
+	}
+
+	/**
+	 * Returns the comments on the given {@code post} whose parent comment is
+	 * given by {@code parentId} in the order they were posted.
+	 *
+	 * @param post     the post to obtain the comments of
+	 * @param parentId the id of the parent comment or
+	 *                 {@link DatabaseFields#CMT_TOP_LEVEL}
+	 *
+	 * @return the comments with the given parent
+	 */
+	private List<IDocument> getComments(MoodPost post, String parentId) {
+		List<IDocument> matching = new ArrayList<>();
+		UserRecord record = this.users.get(post.getUser());
+
+		if (record == null || !record.comments.containsKey(post.getDocumentId())) {
+			return matching;
+		}
+
+		for (IDocument comment : record.comments.get(post.getDocumentId()).values()) {
+			if (parentId.equals(comment.getString(DatabaseFields.CMT_PARENT_CMT_FLD))) {
+				matching.add(comment);
+			}
+		}
+
+		return matching;
+	}
+
+	/**
+	 * Returns a copy of the given {@code document} with the number stored in
+	 * the given {@code field} increased by one.
+	 *
+	 * @param document the document to copy
+	 * @param field    the field to increment
+	 *
+	 * @return the copy of the document
+	 */
+	private MapDocument increment(IDocument document, String field) {
+		Map<String, Object> fields = new HashMap<>(document.getData());
+		Long value = document.getLong(field);
+		fields.put(field, (value != null ? value : 0) + 1);
+		return new MapDocument(document.getId(), fields);
+	}
+
+	/**
+	 * Changes the image referenced by a mood from the image with the given
+	 * {@code oldHash} to the image of the given {@code post}. Each image is
+	 * stored once along with the number of moods referencing it and is
+	 * removed once no mood references it.
+	 *
+	 * @param oldHash the hash of the image the mood referenced or
+	 *                {@code null} if it had none
+	 * @param post    the post holding the image now referenced
+	 */
+	private void changeImage(String oldHash, MoodPost post) {
+		String newHash = post.getImageHash();
+
+		if (Objects.equals(oldHash, newHash)) {
+			return;
+		}
+
+		if (newHash != null) {
+			StoredImage image = this.images.get(newHash);
+
+			if (image != null) {
+				image.refCount++;
+			}
+			else if (post.getImageData() != null) {
+				this.images.put(newHash, new StoredImage(post.getImageData()));
+			}
+		}
+
+		if (oldHash != null) {
+			this.releaseImage(oldHash, 1);
+		}
+	}
+
+	/**
+	 * Removes {@code numReferences} references to the image with the given
+	 * {@code hash}, removing the image if no mood references it any longer.
+	 *
+	 * @param hash          the hash of the image
+	 * @param numReferences the number of references to remove
+	 */
+	private void releaseImage(String hash, long numReferences) {
+		StoredImage image = this.images.get(hash);
+
+		if (image != null) {
+			image.refCount -= numReferences;
+
+			if (image.refCount <= 0) {
+				this.images.remove(hash);
+			}
+		}
+	}
+
+	/**
+	 * Returns the record of the user given by {@code username}, creating it
+	 * if it does not yet exist.
+	 *
+	 * @param username the name of the user
+	 *
+	 * @return the record of the user
+	 */
+	private UserRecord getRecord(String username) {
+		return this.users.computeIfAbsent(username, UserRecord::new);
+	}
+
+	/**
+	 * Returns a new unique id for a document.
+	 *
+	 * @return the id for a new document
+	 */
+	private String nextDocumentId() {
+		return Long.toString(++this.lastDocumentId, Character.MAX_RADIX);
+	}
+
+	/**
+	 * The {@code UserRecord} class holds the data stored for a single user.
+	 */
+	private static class UserRecord {
+		private final String username;
+		/** The password of the user, {@code null} until the user signs up. */
+		private String password;
+		private final Set<String> pending = new LinkedHashSet<>();
+		private final Set<String> following = new LinkedHashSet<>();
+		private final Set<String> followers = new LinkedHashSet<>();
+		private final MoodCollection moods = new MoodCollection();
+		private final MoodCollection feed = new MoodCollection();
+		private final Map<String, IDocument> notifications = new LinkedHashMap<>();
+		/** The comments of each of the user's moods mapped by the mood's id. */
+		private final Map<String, Map<String, IDocument>> comments = new HashMap<>();
+		private final List<MoodListener> moodListeners = new ArrayList<>();
+
+		private UserRecord(String username) {
+			this.username = username;
+		}
+
+		private boolean isRegistered() {
+			return this.password != null;
+		}
+	}
+
+	/**
+	 * The {@code MoodCollection} class holds a collection of moods that can
+	 * be obtained by their id, in order from newest to oldest, by the user
+	 * who posted them or by the cell they were posted within.
+	 */
+	private static class MoodCollection {
+		private final Map<String, IDocument> byId = new HashMap<>();
+		private final NavigableSet<IDocument> byTime = new TreeSet<>(NEWEST_FIRST);
+		/** The ids of the moods mapped by the name of the user who posted them. */
+		private final Map<String, Set<String>> byUser = new HashMap<>();
+		/** The located moods mapped by their geohash and then by their id. */
+		private final NavigableMap<String, Map<String, IDocument>> byGeohash = new TreeMap<>();
+
+		/**
+		 * Stores the given {@code mood}, replacing the mood with the same id.
+		 *
+		 * @param mood the mood to store
+		 *
+		 * @return the replaced mood or {@code null} if there was none
+		 */
+		private IDocument put(IDocument mood) {
+			IDocument previous = this.byId.put(mood.getId(), mood);
+
+			if (previous != null) {
+				this.unindex(previous);
+			}
+
+			this.byTime.add(mood);
+			this.byUser.computeIfAbsent(mood.getString(DatabaseFields.USER_NAME_FLD),
+										user -> new HashSet<>())
+					   .add(mood.getId());
+			String geohash = mood.getString(DatabaseFields.MOOD_GEOHASH_FLD);
+
+			if (geohash != null) {
+				this.byGeohash.computeIfAbsent(geohash, cell -> new HashMap<>())
+							  .put(mood.getId(), mood);
+			}
+
+			return previous;
+		}
+
+		private IDocument get(String id) {
+			return this.byId.get(id);
+		}
+
+		private int size() {
+			return this.byId.size();
+		}
+
+		private IDocument remove(String id) {
+			IDocument removed = this.byId.remove(id);
+
+			if (removed != null) {
+				this.unindex(removed);
+			}
+
+			return removed;
+		}
+
+		/**
+		 * Removes every mood posted by the user given by {@code username}.
+		 *
+		 * @param username the name of the user whose moods to remove
+		 */
+		private void removeByUser(String username) {
+			Set<String> ids = this.byUser.get(username);
+
+			if (ids == null) {
+				return;
+			}
+
+			for (String id : new ArrayList<>(ids)) {
+				this.remove(id);
+			}
+		}
+
+		/**
+		 * Removes the given {@code mood} from the indices other than the
+		 * one by id.
+		 *
+		 * @param mood the mood to remove
+		 */
+		private void unindex(IDocument mood) {
+			this.byTime.remove(mood);
+			String username = mood.getString(DatabaseFields.USER_NAME_FLD);
+			Set<String> ids = this.byUser.get(username);
+
+			if (ids != null) {
+				ids.remove(mood.getId());
+
+				if (ids.isEmpty()) {
+					this.byUser.remove(username);
+				}
+			}
+
+			String geohash = mood.getString(DatabaseFields.MOOD_GEOHASH_FLD);
+			Map<String, IDocument> inCell = (geohash != null) ? this.byGeohash.get(geohash) : null;
+
+			if (inCell != null) {
+				inCell.remove(mood.getId());
+
+				if (inCell.isEmpty()) {
+					this.byGeohash.remove(geohash);
+				}
+			}
+		}
+
+		/**
+		 * Returns up to {@code pageSize} moods from newest to oldest that
+		 * come after the given {@code cursor}.
+		 *
+		 * @param cursor   the last mood of the previous page or {@code null}
+		 * @param pageSize the maximum number of moods or 0 for no limit
+		 *
+		 * @return the moods of the page
+		 */
+		private List<IDocument> getPage(IDocument cursor, int pageSize) {
+			List<IDocument> page = new ArrayList<>();
+			Set<IDocument> moods = (cursor != null) ? this.byTime.tailSet(cursor, false)
+													: this.byTime;
+
+			for (IDocument mood : moods) {
+				if (pageSize > 0 && page.size() == pageSize) {
+					break;
+				}
+
+				page.add(mood);
+			}
+
+			return page;
+		}
+
+		/**
+		 * Returns up to {@code limit} of the newest moods which are not
+		 * private.
+		 *
+		 * @param limit the maximum number of moods
+		 *
+		 * @return the newest public moods
+		 */
+		private List<IDocument> getNewestPublic(int limit) {
+			List<IDocument> newest = new ArrayList<>();
+
+			for (IDocument mood : this.byTime) {
+				if (newest.size() == limit) {
+					break;
+				}
+
+				if (!Boolean.TRUE.equals(mood.getBoolean(DatabaseFields.MOOD_VIEW_STATUS_FLD))) {
+					newest.add(mood);
+				}
+			}
+
+			return newest;
+		}
+
+		/**
+		 * Returns the moods whose geohash begins with the given geohash from
+		 * newest to oldest. The geohashes beginning with the cell's are a
+		 * single range of the geohashes in order, so only the moods within
+		 * the cell are visited.
+		 *
+		 * @param cell the geohash of the cell
+		 *
+		 * @return the moods posted within the cell
+		 */
+		private List<IDocument> getInCell(String cell) {
+			List<IDocument> inCell = new ArrayList<>();
+
+			for (Map<String, IDocument> moods : this.byGeohash.subMap(
+					cell, true, cell + Character.MAX_VALUE, false).values()) {
+				inCell.addAll(moods.values());
+			}
+
+			inCell.sort(NEWEST_FIRST);
+			return inCell;
+		}
+	}
+
+	/**
+	 * The {@code StoredImage} class holds a single stored image along with
+	 * the number of moods referencing it.
+	 */
+	private static class StoredImage {
+		private final byte[] data;
+		private long refCount = 1;
+
+		private StoredImage(byte[] data) {
+			this.data = data;
+		}
+	}
+
+	/**
+	 * The {@code MoodListener} class is a registered listener to the moods of
+	 * a single user.
+	 */
+	private static class MoodListener implements IListenerRegistration {
+		private final UserRecord record;
+		private final long oldestTime;
+		private final IMoodChangeListener listener;
+
+		private MoodListener(UserRecord record, long oldestTime, IMoodChangeListener listener) {
+			this.record = record;
+			this.oldestTime = oldestTime;
+			this.listener = listener;
+		}
+
+		/**
+		 * Returns whether or not the given {@code mood} is within the moods
+		 * that this listener is listening to.
+		 *
+		 * @param mood the mood to check
+		 *
+		 * @return {@code true} if the mood is listened to, {@code false}
+		 * 		   otherwise
+		 */
+		private boolean isListeningTo(IDocument mood) {
+			return mood.getLong(DatabaseFields.MOOD_TIME_FLD) >= this.oldestTime;
+		}
+
+		@Override
+		public void remove() {
+			this.record.moodListeners.remove(this);
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.futuredevs.database;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code MapDocument} class is an {@link IDocument} whose fields are held
+ * in memory, used by the {@link InMemoryBackend}.
+ *
+ * @author Spencer Schmidt
+ */
+class MapDocument implements IDocument {
+	private final String id;
+	private final Map<String, Object> fields;
+
+	/**
+	 * Creates a {@code MapDocument} with the given {@code id} holding a copy
+	 * of the given {@code fields}.
+	 *
+	 * @param id     the id of the document
+	 * @param fields the fields of the document
+	 */
+	MapDocument(String id, Map<String, Object> fields) {
+		this.id = id;
+		this.fields = new HashMap<>(fields);
+	}
+
+	@Override
+	public String getId() {
+		return this.id;
+	}
+
+	@Override
+	public boolean contains(String field) {
+		return this.fields.containsKey(field);
+	}
+
+	@Override
+	public Object get(String field) {
+		return this.fields.get(field);
+	}
+
+	@Override
+	public String getString(String field) {
+		return (String) this.fields.get(field);
+	}
+
+	@Override
+	public Long getLong(String field) {
+		Number value = (Number) this.fields.get(field);
+		return (value != null) ? value.longValue() : null;
+	}
+
+	@Override
+	public Boolean getBoolean(String field) {
+		return (Boolean) this.fields.get(field);
+	}
+
+	@Override
+	public byte[] getBytes(String field) {
+		return (byte[]) this.fields.get(field);
+	}
+
+	@Override
+	public double[] getCoordinates(String field) {
+		Object value = this.fields.get(field);
+
+		if (value instanceof List && ((List<?>) value).size() >= 2) {
+			List<?> coordinates = (List<?>) value;
+			return new double[] {((Number) coordinates.get(0)).doubleValue(),
+								 ((Number) coordinates.get(1)).doubleValue()};
+		}
+
+		return null;
+	}
+
+	@Override
+	public Map<String, Object> getData() {
+		return Collections.unmodifiableMap(this.fields);
+	}
+}
@@ -1,5 +1,7 @@
 package com.futuredevs.database.queries;
 
+import com.futuredevs.database.IDocument;
+
 /**
  * The {@code DatabaseQuery} class is a class intended to be used to perform
  * specific types of queries on the Firebase database. Provides builders for
@@ -12,6 +14,14 @@ public class DatabaseQuery
 	private QueryType type;
 	private String username;
 	private String searchTerm;
+	/** The maximum number of documents to return, 0 if there is no limit. */
+	private int pageSize;
+	/** The last document of the previous page, {@code null} for the first page. */
+	private IDocument startAfter;
+	/** The maximum number of moods to obtain per user, 0 if there is no limit. */
+	private int postsPerUser;
+	/** The geohash of the cell of a cell query. */
+	private String geohash;
 
 	private DatabaseQuery() {}
 
@@ -69,6 +79,86 @@ public class DatabaseQuery
 		return this.searchTerm;
 	}
 
+	/**
+	 * Sets the maximum number of documents to be returned by this query to
+	 * {@code pageSize}. A value of 0 means that the results are not limited.
+	 *
+	 * @param pageSize the maximum number of documents to return
+	 */
+	protected void setPageSize(int pageSize) {
+		this.pageSize = Math.max(0, pageSize);
+	}
+
+	/**
+	 * Returns the maximum number of documents to be returned by this query
+	 * or 0 if the number of documents is not limited.
+	 *
+	 * @return the page size of this query
+	 */
+	public int getPageSize() {
+		return this.pageSize;
+	}
+
+	/**
+	 * Sets the cursor of this query to {@code snapshot} such that the
+	 * results of the query will begin after the given document.
+	 *
+	 * @param snapshot the last document of the previously obtained page
+	 */
+	protected void setStartAfter(IDocument snapshot) {
+		this.startAfter = snapshot;
+	}
+
+	/**
+	 * Returns the document after which the results of this query should
+	 * begin, or {@code null} if the query should start from the first
+	 * document.
+	 *
+	 * @return the cursor for this query
+	 */
+	public IDocument getStartAfter() {
+		return this.startAfter;
+	}
+
+	/**
+	 * Sets the maximum number of the most recent moods to obtain for each
+	 * user to {@code postsPerUser}. A value of 0 means that every mood of
+	 * each user is obtained.
+	 *
+	 * @param postsPerUser the maximum number of moods per user
+	 */
+	protected void setPostsPerUser(int postsPerUser) {
+		this.postsPerUser = Math.max(0, postsPerUser);
+	}
+
+	/**
+	 * Returns the maximum number of the most recent moods to obtain for each
+	 * user or 0 if every mood should be obtained.
+	 *
+	 * @return the maximum number of moods per user
+	 */
+	public int getPostsPerUser() {
+		return this.postsPerUser;
+	}
+
+	/**
+	 * Sets the geohash of the cell of a cell query to {@code geohash}.
+	 *
+	 * @param geohash the geohash of the cell to query within
+	 */
+	protected void setGeohash(String geohash) {
+		this.geohash = geohash;
+	}
+
+	/**
+	 * Returns the geohash of the cell of a cell query.
+	 *
+	 * @return the geohash of the cell to query within
+	 */
+	public String getGeohash() {
+		return this.geohash;
+	}
+
 	/**
 	 * The {@code QueryBuilder} class follows a builder pattern for building
 	 * queries to be sent to the database.
@@ -119,6 +209,58 @@ public class DatabaseQuery
 			return this;
 		}
 
+		/**
+		 * Sets the maximum number of documents to be returned for this query.
+		 * Only used for paged queries, see {@link QueryType#USER_POSTS}.
+		 *
+		 * @param pageSize the number of documents in a single page
+		 *
+		 * @return the current builder
+		 */
+		public QueryBuilder setPageSize(int pageSize) {
+			this.theQuery.setPageSize(pageSize);
+			return this;
+		}
+
+		/**
+		 * Sets the cursor from which the next page of results should begin
+		 * where {@code snapshot} is the last document of the previous page.
+		 *
+		 * @param snapshot the last document of the previous page
+		 *
+		 * @return the current builder
+		 */
+		public QueryBuilder setStartAfter(IDocument snapshot) {
+			this.theQuery.setStartAfter(snapshot);
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of the most recent moods to obtain for each
+		 * user. Only used for {@link QueryType#FOLLOWING_POSTS} queries.
+		 *
+		 * @param postsPerUser the maximum number of moods per user
+		 *
+		 * @return the current builder
+		 */
+		public QueryBuilder setPostsPerUser(int postsPerUser) {
+			this.theQuery.setPostsPerUser(postsPerUser);
+			return this;
+		}
+
+		/**
+		 * Sets the geohash of the cell within which moods are obtained. Only
+		 * used for {@link QueryType#CELL_POSTS} queries.
+		 *
+		 * @param geohash the geohash of the cell to query within
+		 *
+		 * @return the current builder
+		 */
+		public QueryBuilder setGeohash(String geohash) {
+			this.theQuery.setGeohash(geohash);
+			return this;
+		}
+
 		/**
 		 * Returns a {@code DatabaseQuery} with the attributes set by this
 		 * builder object.
@@ -137,9 +279,10 @@ public class DatabaseQuery
 	public enum QueryType {
 		/**
 		 * <p>Queries of this type will create a list of {@code MoodPost}
-		 * corresponding to the a given user.</p>
+		 * corresponding to the a given user ordered from newest to oldest.</p>
 		 *
-		 * <p>Queries of this type require a source user.</p>
+		 * <p>Queries of this type require a source user and may optionally
+		 * be paged using a page size and a cursor.</p>
 		 */
 		USER_POSTS,
 		/**
@@ -153,9 +296,31 @@ public class DatabaseQuery
 		 * <p>Queries of this type will create a list of {@code MoodPost}
 		 * containing all mood posts for each user a given user follows.</p>
 		 *
-		 * <p>Queries of this type require a source user.</p>
+		 * <p>Queries of this type require a source user and may optionally
+		 * limit the number of posts obtained per user in which case only the
+		 * most recent public posts of each user are obtained.</p>
 		 */
 		FOLLOWING_POSTS,
+		/**
+		 * <p>Queries of this type will create a list of {@code MoodPost}
+		 * from the feed of a given user, that is, the public moods of the
+		 * users they follow, ordered from newest to oldest.</p>
+		 *
+		 * <p>Queries of this type require a source user and may optionally
+		 * be paged using a page size and a cursor.</p>
+		 */
+		FOLLOWING_FEED,
+		/**
+		 * <p>Queries of this type will create a list of {@code MoodPost}
+		 * from the moods of a given user and from their feed which were
+		 * posted within a geohash cell, that is, whose geohash begins with
+		 * the geohash of the cell.</p>
+		 *
+		 * <p>Queries of this type require a source user and a geohash. Moods
+		 * posted before their geohash was stored are not found by these
+		 * queries.</p>
+		 */
+		CELL_POSTS,
 		/**
 		 * <p>Queries of this type will create a list of users whose names
 		 * begin with a given string.</p>
@@ -164,4 +329,4 @@ public class DatabaseQuery
 		 */
 		USERS
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.futuredevs.database.queries;
+
+/**
+ * <p>The {@code IListenerRegistration} interface represents a listener which
+ * has been registered to listen to changes in the database, such as an
+ * {@link IMoodChangeListener}. The listener is notified of changes until
+ * {@link #remove()} is called.</p>
+ *
+ * <p>See {@link com.futuredevs.database.Database#listenForMoodChanges} for
+ * listening to moods.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public interface IListenerRegistration {
+	/**
+	 * Stops the registered listener from being notified of any further
+	 * changes. Calling this more than once has no effect.
+	 */
+	void remove();
+}
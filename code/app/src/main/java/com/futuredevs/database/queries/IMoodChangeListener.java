@@ -0,0 +1,31 @@
+package com.futuredevs.database.queries;
+
+import com.futuredevs.database.DatabaseResult;
+
+import java.util.List;
+
+/**
+ * <p>Classes that implement the {@code IMoodChangeListener} and have
+ * registered themselves to listen to a collection of moods will be notified
+ * of each change to those moods using
+ * {@link #onMoodChanges(List, DatabaseResult)}.</p>
+ *
+ * <p>See {@link com.futuredevs.database.Database#listenForMoodChanges} for
+ * listening to moods.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public interface IMoodChangeListener {
+	/**
+	 * Called each time the listened to moods change with only the moods that
+	 * were added, modified or removed since the last call given in
+	 * {@code changes}. The first call gives every listened to mood as added.
+	 * If {@code result} is a {@link DatabaseResult#FAILURE}, then
+	 * {@code changes} will be an empty list and no further changes will be
+	 * given.
+	 *
+	 * @param changes the changes to the moods in the order they occurred
+	 * @param result  the status of the listener
+	 */
+	void onMoodChanges(List<MoodChange> changes, DatabaseResult result);
+}
@@ -1,7 +1,7 @@
 package com.futuredevs.database.queries;
 
 import com.futuredevs.database.DatabaseResult;
-import com.google.firebase.firestore.DocumentSnapshot;
+import com.futuredevs.database.IDocument;
 
 import java.util.List;
 
@@ -26,5 +26,5 @@ public interface IQueryListener {
 	 * @param result    the status of the query that can be used to give
 	 *                  information to the user
 	 */
-	void onQueryResult(List<DocumentSnapshot> documents, DatabaseResult result);
+	void onQueryResult(List<IDocument> documents, DatabaseResult result);
 }
\ No newline at end of file
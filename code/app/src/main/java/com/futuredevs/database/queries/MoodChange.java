@@ -0,0 +1,59 @@
+package com.futuredevs.database.queries;
+
+import com.futuredevs.database.IDocument;
+
+/**
+ * The {@code MoodChange} class represents a single change to a mood in a
+ * collection of moods that is being listened to, see
+ * {@link com.futuredevs.database.Database#listenForMoodChanges}.
+ *
+ * @author Spencer Schmidt
+ */
+public class MoodChange {
+	private final Type type;
+	private final IDocument document;
+
+	/**
+	 * Creates a {@code MoodChange} of the given {@code type} for the mood
+	 * stored in the given {@code document}.
+	 *
+	 * @param type     the way in which the mood changed
+	 * @param document the document of the mood after the change
+	 */
+	public MoodChange(Type type, IDocument document) {
+		this.type = type;
+		this.document = document;
+	}
+
+	/**
+	 * Returns the way in which the mood changed.
+	 *
+	 * @return the type of the change
+	 */
+	public Type getType() {
+		return this.type;
+	}
+
+	/**
+	 * Returns the document of the changed mood. For a {@link Type#REMOVED}
+	 * change this is the document as it was before being removed.
+	 *
+	 * @return the document of the changed mood
+	 */
+	public IDocument getDocument() {
+		return this.document;
+	}
+
+	/**
+	 * The {@code Type} enumeration represents the ways in which a mood can
+	 * change.
+	 */
+	public enum Type {
+		/** The mood was posted or is now part of the listened to moods. */
+		ADDED,
+		/** The mood was edited. */
+		MODIFIED,
+		/** The mood was deleted or is no longer part of the listened to moods. */
+		REMOVED
+	}
+}
@@ -0,0 +1,207 @@
+package com.futuredevs.geo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>The {@code GeoHash} class encodes locations as geohashes, strings of
+ * base 32 characters which each name a cell of a grid over the earth.</p>
+ *
+ * <p>Each character divides the cell named by the characters before it
+ * into 32 smaller cells, so nearby locations share a prefix and a shorter
+ * geohash names a larger area containing every location whose geohash
+ * begins with it.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public final class GeoHash {
+	private static final String CHARACTERS = "0123456789bcdefghjkmnpqrstuvwxyz";
+	private static final int BITS_PER_CHARACTER = 5;
+	/** The maximum number of characters of a geohash. */
+	public static final int MAX_PRECISION = 12;
+	/** The mean radius of the earth in kilometres. */
+	static final double EARTH_RADIUS_KM = 6371.0088;
+	/** The distance in kilometres covered by a degree of latitude. */
+	static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+	private GeoHash() {}
+
+	/**
+	 * Returns the geohash of the cell containing the given location.
+	 *
+	 * @param latitude  the latitude of the location
+	 * @param longitude the longitude of the location
+	 * @param precision the number of characters of the geohash, from 1 to
+	 *                  {@value #MAX_PRECISION}
+	 *
+	 * @return the geohash of the location
+	 *
+	 * @throws IllegalArgumentException if the precision is not from 1 to
+	 *                                  {@value #MAX_PRECISION}
+	 */
+	public static String encode(double latitude, double longitude, int precision) {
+		if (precision < 1 || precision > MAX_PRECISION) {
+			throw new IllegalArgumentException("Precision must be from 1 to " + MAX_PRECISION);
+		}
+
+		double minLatitude = -90;
+		double maxLatitude = 90;
+		double minLongitude = -180;
+		double maxLongitude = 180;
+		StringBuilder hash = new StringBuilder(precision);
+		// The bits alternate between longitude and latitude, beginning with
+		// longitude.
+		boolean isLongitudeBit = true;
+		int bits = 0;
+		int numBits = 0;
+
+		while (hash.length() < precision) {
+			if (isLongitudeBit) {
+				double middle = (minLongitude + maxLongitude) / 2;
+
+				if (longitude >= middle) {
+					bits = (bits << 1) | 1;
+					minLongitude = middle;
+				}
+				else {
+					bits <<= 1;
+					maxLongitude = middle;
+				}
+			}
+			else {
+				double middle = (minLatitude + maxLatitude) / 2;
+
+				if (latitude >= middle) {
+					bits = (bits << 1) | 1;
+					minLatitude = middle;
+				}
+				else {
+					bits <<= 1;
+					maxLatitude = middle;
+				}
+			}
+
+			isLongitudeBit = !isLongitudeBit;
+
+			if (++numBits == BITS_PER_CHARACTER) {
+				hash.append(CHARACTERS.charAt(bits));
+				bits = 0;
+				numBits = 0;
+			}
+		}
+
+		return hash.toString();
+	}
+
+	/**
+	 * Returns the height and width in degrees of the cells named by the
+	 * geohashes of the given {@code precision}.
+	 *
+	 * @param precision the number of characters of the geohashes
+	 *
+	 * @return the latitudinal height and longitudinal width of the cells
+	 */
+	public static double[] getCellSize(int precision) {
+		int numBits = precision * BITS_PER_CHARACTER;
+		// The longitude has the extra bit when the number of bits is odd.
+		int longitudeBits = (numBits + 1) / 2;
+		int latitudeBits = numBits / 2;
+		return new double[] {180.0 / (1L << latitudeBits), 360.0 / (1L << longitudeBits)};
+	}
+
+	/**
+	 * Returns the geohashes of every cell which overlaps the given bounding
+	 * box. A box whose longitudes extend past 180 degrees wraps around the
+	 * antimeridian.
+	 *
+	 * @param minLatitude  the southern edge of the box
+	 * @param minLongitude the western edge of the box
+	 * @param maxLatitude  the northern edge of the box
+	 * @param maxLongitude the eastern edge of the box
+	 * @param precision    the number of characters of the geohashes
+	 *
+	 * @return the geohashes of the cells overlapping the box
+	 */
+	public static Set<String> getCellsWithin(double minLatitude, double minLongitude,
+											 double maxLatitude, double maxLongitude,
+											 int precision) {
+		double[] cellSize = getCellSize(precision);
+		minLatitude = Math.max(-90, minLatitude);
+		maxLatitude = Math.min(90, maxLatitude);
+
+		if (maxLongitude - minLongitude >= 360) {
+			minLongitude = -180;
+			maxLongitude = 180;
+		}
+
+		Set<String> cells = new LinkedHashSet<>();
+
+		for (double latitude : getSteps(minLatitude, maxLatitude, cellSize[0])) {
+			for (double longitude : getSteps(minLongitude, maxLongitude, cellSize[1])) {
+				cells.add(encode(latitude, normalizeLongitude(longitude), precision));
+			}
+		}
+
+		return cells;
+	}
+
+	/**
+	 * Returns the number of degrees of latitude and of longitude within the
+	 * given {@code radiusKm} of a location at the given {@code latitude}.
+	 * Near the poles the circle covers every longitude.
+	 *
+	 * @param latitude the latitude of the location
+	 * @param radiusKm the distance from the location in kilometres
+	 *
+	 * @return the latitudinal and longitudinal distance in degrees
+	 */
+	public static double[] getDegreesWithin(double latitude, double radiusKm) {
+		double latitudeDelta = radiusKm / KM_PER_DEGREE;
+		double cosLatitude = Math.cos(Math.toRadians(latitude));
+		double longitudeDelta = (cosLatitude * 180 > latitudeDelta)
+								? latitudeDelta / cosLatitude
+								: 180;
+		return new double[] {latitudeDelta, longitudeDelta};
+	}
+
+	/**
+	 * Returns the values from {@code min} to {@code max} a {@code step}
+	 * apart. The value {@code max} is always included, so stepping by the
+	 * size of a cell visits every cell between the two values.
+	 *
+	 * @param min  the first value
+	 * @param max  the last value
+	 * @param step the difference between consecutive values
+	 *
+	 * @return the values from {@code min} to {@code max}
+	 */
+	private static List<Double> getSteps(double min, double max, double step) {
+		List<Double> steps = new ArrayList<>();
+
+		for (double value = min; value < max; value += step) {
+			steps.add(value);
+		}
+
+		steps.add(max);
+		return steps;
+	}
+
+	/**
+	 * Returns the given {@code longitude} wrapped to be from -180 up to, but
+	 * not including, 180 degrees.
+	 *
+	 * @param longitude the longitude to wrap
+	 *
+	 * @return the wrapped longitude
+	 */
+	static double normalizeLongitude(double longitude) {
+		if (longitude >= -180 && longitude < 180) {
+			return longitude;
+		}
+
+		double wrapped = (longitude + 180) % 360;
+		return ((wrapped < 0) ? wrapped + 360 : wrapped) - 180;
+	}
+}
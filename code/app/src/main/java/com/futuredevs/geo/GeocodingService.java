@@ -0,0 +1,309 @@
+package com.futuredevs.geo;
+
+import android.content.Context;
+import android.location.Address;
+import android.location.Geocoder;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>The {@code GeocodingService} class looks up the names of the cities of
+ * locations on a background thread, as the {@code Geocoder} blocks while it
+ * queries the network.</p>
+ *
+ * <p>Locations are grouped into the geohash cells of
+ * {@value #CELL_PRECISION} characters, roughly 1.2 km by 0.6 km, and the
+ * city of a cell is only looked up once. The city of each cell is kept in a
+ * bounded cache which is saved to the application's cache directory, so
+ * the same cities are not looked up again once the application has
+ * restarted. Any number of lookups of the same cell made before the first
+ * has finished share its result.</p>
+ *
+ * <p>The methods of this class must be called from the main thread.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public final class GeocodingService {
+	private static final String TAG = "GEOCODING";
+	/** The number of characters of the geohash of the cells of the cache. */
+	private static final int CELL_PRECISION = 6;
+	private static final int MAX_CACHED_CELLS = 2048;
+	/** The cities of cells without one, such as those at sea. */
+	private static final String NO_CITY = "";
+	private static final String CACHE_FILE_PREFIX = "cities_";
+	private static final String TEMP_SUFFIX = ".tmp";
+	/** A Singleton instance for this service. */
+	private static GeocodingService theService;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	/** The city of each cell, least recently used first. */
+	private final Map<String, String> cities = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return this.size() > MAX_CACHED_CELLS;
+		}
+	};
+	/** The listeners waiting for the city of each cell being looked up. */
+	private final Map<String, List<ICityListener>> pending = new HashMap<>();
+	private Geocoder geocoder;
+	private File cacheFile;
+	/** Whether the saved cities have been read, only used by the background thread. */
+	private boolean isLoaded;
+
+	private GeocodingService() {}
+
+	/**
+	 * Returns the instance of the geocoding service.
+	 *
+	 * @return the geocoding service
+	 */
+	public static GeocodingService getInstance() {
+		if (theService == null) {
+			theService = new GeocodingService();
+		}
+
+		return theService;
+	}
+
+	/**
+	 * Looks up the name of the city of the given location, notifying the
+	 * {@code listener} on the main thread once it has been obtained. If the
+	 * city of the location's cell is cached the listener is notified before
+	 * this method returns.
+	 *
+	 * @param context   the context used to create the geocoder
+	 * @param latitude  the latitude of the location
+	 * @param longitude the longitude of the location
+	 * @param listener  the listener to notify of the city
+	 */
+	public void resolveCity(Context context, double latitude, double longitude,
+							ICityListener listener) {
+		this.initialize(context);
+		String cell = GeoHash.encode(latitude, longitude, CELL_PRECISION);
+		String cachedCity = this.getCachedCity(cell);
+
+		if (cachedCity != null) {
+			listener.onCityResolved(!cachedCity.equals(NO_CITY) ? cachedCity : null);
+			return;
+		}
+
+		List<ICityListener> listeners = this.pending.get(cell);
+
+		if (listeners != null) {
+			listeners.add(listener);
+			return;
+		}
+
+		listeners = new ArrayList<>();
+		listeners.add(listener);
+		this.pending.put(cell, listeners);
+		this.executor.execute(() -> {
+			this.loadCache();
+			String city = this.getCachedCity(cell);
+
+			if (city == null) {
+				city = this.lookUp(latitude, longitude);
+
+				if (city != null) {
+					synchronized (this.cities) {
+						this.cities.put(cell, city);
+					}
+
+					this.saveCache();
+				}
+			}
+
+			String result = (city != null && !city.equals(NO_CITY)) ? city : null;
+			this.mainHandler.post(() -> {
+				for (ICityListener waiting : this.pending.remove(cell)) {
+					waiting.onCityResolved(result);
+				}
+			});
+		});
+	}
+
+	/**
+	 * Looks up the name of the city of the given location as
+	 * {@link #resolveCity(Context, double, double, ICityListener)} does, but
+	 * notifies the {@code listener} of no city if the city has not been
+	 * obtained within {@code timeoutMillis}. The lookup carries on after
+	 * timing out, so that the city is cached for the next lookup of the
+	 * cell, but the listener is only ever notified once.
+	 *
+	 * @param context       the context used to create the geocoder
+	 * @param latitude      the latitude of the location
+	 * @param longitude     the longitude of the location
+	 * @param timeoutMillis the time in milliseconds to wait for the city
+	 * @param listener      the listener to notify of the city
+	 */
+	public void resolveCity(Context context, double latitude, double longitude,
+							long timeoutMillis, ICityListener listener) {
+		boolean[] isNotified = new boolean[1];
+		Runnable timeout = () -> {
+			if (!isNotified[0]) {
+				isNotified[0] = true;
+				listener.onCityResolved(null);
+			}
+		};
+
+		this.resolveCity(context, latitude, longitude, city -> {
+			this.mainHandler.removeCallbacks(timeout);
+
+			if (!isNotified[0]) {
+				isNotified[0] = true;
+				listener.onCityResolved(city);
+			}
+		});
+
+		if (!isNotified[0]) {
+			this.mainHandler.postDelayed(timeout, timeoutMillis);
+		}
+	}
+
+	/**
+	 * Creates the geocoder and chooses the file of the cache the first time
+	 * the service is used. The cities are saved separately for each locale
+	 * as their names depend on it.
+	 *
+	 * @param context the context used to create the geocoder
+	 */
+	private void initialize(Context context) {
+		if (this.geocoder != null) {
+			return;
+		}
+
+		Context appContext = context.getApplicationContext();
+		Locale locale = Locale.getDefault();
+		this.geocoder = new Geocoder(appContext, locale);
+		String fileName = CACHE_FILE_PREFIX + locale.toLanguageTag();
+		this.cacheFile = new File(appContext.getCacheDir(), fileName);
+	}
+
+	/**
+	 * Returns the cached city of the given {@code cell}.
+	 *
+	 * @param cell the geohash of the cell
+	 *
+	 * @return the city of the cell, {@value #NO_CITY} if the cell has no
+	 *         city or {@code null} if the cell is not cached
+	 */
+	private String getCachedCity(String cell) {
+		synchronized (this.cities) {
+			return this.cities.get(cell);
+		}
+	}
+
+	/**
+	 * Looks up the city of the given location using the geocoder, blocking
+	 * until it has been obtained.
+	 *
+	 * @param latitude  the latitude of the location
+	 * @param longitude the longitude of the location
+	 *
+	 * @return the name of the city, {@value #NO_CITY} if the location has no
+	 *         city or {@code null} if the lookup failed
+	 */
+	@SuppressWarnings("deprecation")
+	private String lookUp(double latitude, double longitude) {
+		if (!Geocoder.isPresent()) {
+			return null;
+		}
+
+		try {
+			List<Address> addresses = this.geocoder.getFromLocation(latitude, longitude, 1);
+
+			if (addresses != null && !addresses.isEmpty()
+				&& addresses.get(0) != null && addresses.get(0).getLocality() != null) {
+				return addresses.get(0).getLocality();
+			}
+
+			return NO_CITY;
+		}
+		catch (IOException | IllegalArgumentException e) {
+			// The lookup is not cached so that it is tried again later.
+			Log.e(TAG, "Failed to obtain the city location", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the saved cities the first time a city is looked up. Cities
+	 * cached while the file was being read are kept.
+	 */
+	private void loadCache() {
+		if (this.isLoaded) {
+			return;
+		}
+
+		this.isLoaded = true;
+
+		if (!this.cacheFile.exists()) {
+			return;
+		}
+
+		Properties saved = new Properties();
+
+		try (InputStream input = new FileInputStream(this.cacheFile)) {
+			saved.load(input);
+		}
+		catch (IOException e) {
+			Log.w(TAG, "Failed to read the saved cities", e);
+			return;
+		}
+
+		synchronized (this.cities) {
+			for (String cell : saved.stringPropertyNames()) {
+				if (!this.cities.containsKey(cell)) {
+					this.cities.put(cell, saved.getProperty(cell));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Saves the cached cities to the file of the cache, writing a temporary
+	 * file first so that a partially written file is never read.
+	 */
+	private void saveCache() {
+		Properties saved = new Properties();
+
+		synchronized (this.cities) {
+			for (Map.Entry<String, String> entry : this.cities.entrySet()) {
+				saved.setProperty(entry.getKey(), entry.getValue());
+			}
+		}
+
+		File temp = new File(this.cacheFile.getPath() + TEMP_SUFFIX);
+
+		try (OutputStream output = new FileOutputStream(temp)) {
+			saved.store(output, null);
+		}
+		catch (IOException e) {
+			Log.w(TAG, "Failed to save the cities", e);
+			temp.delete();
+			return;
+		}
+
+		if (!temp.renameTo(this.cacheFile)) {
+			Log.w(TAG, "Failed to rename " + temp);
+			temp.delete();
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package com.futuredevs.geo;
+
+/**
+ * Classes that implement the {@code ICityListener} interface are able to
+ * receive the name of the city of a location once it has been looked up by
+ * the {@link GeocodingService}. The listener is called on the main thread.
+ *
+ * @author Spencer Schmidt
+ */
+public interface ICityListener {
+	/**
+	 * Called once the city of the location has been looked up.
+	 *
+	 * @param city the name of the city of the location or {@code null} if it
+	 *             could not be obtained
+	 */
+	void onCityResolved(String city);
+}
@@ -0,0 +1,113 @@
+package com.futuredevs.geo;
+
+import com.futuredevs.models.items.MoodPost;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code MoodCluster} class represents a group of nearby moods shown on
+ * the map as a single marker, placed at the average location of its moods.
+ * Clusters are created by a {@link MoodClusterer}.
+ *
+ * @author Spencer Schmidt
+ */
+public final class MoodCluster {
+	private final String cellKey;
+	private final List<MoodPost> posts;
+	private final double latitude;
+	private final double longitude;
+	private final MoodPost.Emotion dominantEmotion;
+
+	/**
+	 * Creates a {@code MoodCluster} of the given {@code posts} which lie
+	 * within the cell with the given {@code cellKey}.
+	 *
+	 * @param cellKey the key of the cell of the cluster
+	 * @param posts   the moods of the cluster, of which there is at least one
+	 */
+	MoodCluster(String cellKey, List<MoodPost> posts) {
+		this.cellKey = cellKey;
+		this.posts = Collections.unmodifiableList(posts);
+		double latitudeSum = 0;
+		double longitudeSum = 0;
+		Map<MoodPost.Emotion, Integer> counts = new EnumMap<>(MoodPost.Emotion.class);
+
+		for (MoodPost post : posts) {
+			latitudeSum += post.getLatitude();
+			longitudeSum += post.getLongitude();
+			Integer count = counts.get(post.getEmotion());
+			counts.put(post.getEmotion(), (count != null) ? count + 1 : 1);
+		}
+
+		this.latitude = latitudeSum / posts.size();
+		this.longitude = longitudeSum / posts.size();
+		MoodPost.Emotion dominant = null;
+
+		// Ties go to the emotion declared first as the map is ordered.
+		for (Map.Entry<MoodPost.Emotion, Integer> entry : counts.entrySet()) {
+			if (dominant == null || entry.getValue() > counts.get(dominant)) {
+				dominant = entry.getKey();
+			}
+		}
+
+		this.dominantEmotion = dominant;
+	}
+
+	/**
+	 * Returns the key of the cell of the cluster, which identifies the
+	 * cluster among the clusters of the same zoom level.
+	 *
+	 * @return the key of the cell of the cluster
+	 */
+	public String getCellKey() {
+		return this.cellKey;
+	}
+
+	/**
+	 * Returns the moods of the cluster.
+	 *
+	 * @return an unmodifiable list of the moods of the cluster
+	 */
+	public List<MoodPost> getPosts() {
+		return this.posts;
+	}
+
+	/**
+	 * Returns the number of moods in the cluster.
+	 *
+	 * @return the number of moods
+	 */
+	public int size() {
+		return this.posts.size();
+	}
+
+	/**
+	 * Returns the average latitude of the moods of the cluster.
+	 *
+	 * @return the latitude of the cluster
+	 */
+	public double getLatitude() {
+		return this.latitude;
+	}
+
+	/**
+	 * Returns the average longitude of the moods of the cluster.
+	 *
+	 * @return the longitude of the cluster
+	 */
+	public double getLongitude() {
+		return this.longitude;
+	}
+
+	/**
+	 * Returns the emotion felt in the most moods of the cluster.
+	 *
+	 * @return the most common emotion of the cluster
+	 */
+	public MoodPost.Emotion getDominantEmotion() {
+		return this.dominantEmotion;
+	}
+}
@@ -0,0 +1,95 @@
+package com.futuredevs.geo;
+
+import com.futuredevs.models.items.MoodPost;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The {@code MoodClusterer} class groups moods which would overlap on the
+ * map at a given zoom level into {@link MoodCluster}s.</p>
+ *
+ * <p>The map is divided into square cells of {@value #CELL_SIZE} points of
+ * the Web Mercator projection used by the map, so a cell covers the same
+ * area of the screen at every zoom level. The moods within each cell form a
+ * cluster. Clustering takes time in proportion to the number of moods and
+ * does not depend on Android, so it may be performed on any thread.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public final class MoodClusterer {
+	/** The size of the whole world in points at zoom level zero. */
+	private static final int WORLD_SIZE = 256;
+	/** The size of a cell in points at every zoom level. */
+	private static final int CELL_SIZE = 80;
+	/** The latitude past which the projection of the map is cut off. */
+	private static final double MAX_LATITUDE = 85.05112878;
+
+	private MoodClusterer() {}
+
+	/**
+	 * Groups the given {@code posts} into clusters for the given zoom level.
+	 *
+	 * @param posts the moods to group, each of which has a valid location
+	 * @param zoom  the zoom level of the map
+	 *
+	 * @return the clusters of the moods
+	 */
+	public static List<MoodCluster> cluster(Collection<MoodPost> posts, int zoom) {
+		double numCells = WORLD_SIZE * Math.pow(2, zoom) / CELL_SIZE;
+		Map<String, List<MoodPost>> cells = new LinkedHashMap<>();
+
+		for (MoodPost post : posts) {
+			long cellX = (long) Math.floor(getX(post.getLongitude()) * numCells);
+			long cellY = (long) Math.floor(getY(post.getLatitude()) * numCells);
+			String cellKey = zoom + "/" + cellX + "/" + cellY;
+			List<MoodPost> cellPosts = cells.get(cellKey);
+
+			if (cellPosts == null) {
+				cellPosts = new ArrayList<>();
+				cells.put(cellKey, cellPosts);
+			}
+
+			cellPosts.add(post);
+		}
+
+		List<MoodCluster> clusters = new ArrayList<>(cells.size());
+
+		for (Map.Entry<String, List<MoodPost>> entry : cells.entrySet()) {
+			clusters.add(new MoodCluster(entry.getKey(), entry.getValue()));
+		}
+
+		return clusters;
+	}
+
+	/**
+	 * Returns the horizontal position of the given {@code longitude} on the
+	 * map, from 0 at the western edge up to 1 at the eastern edge.
+	 *
+	 * @param longitude the longitude to project
+	 *
+	 * @return the horizontal position of the longitude
+	 */
+	static double getX(double longitude) {
+		double x = (longitude + 180) / 360;
+		return Math.min(Math.max(x, 0), Math.nextDown(1.0));
+	}
+
+	/**
+	 * Returns the vertical position of the given {@code latitude} on the map,
+	 * from 0 at the northern edge up to 1 at the southern edge.
+	 *
+	 * @param latitude the latitude to project
+	 *
+	 * @return the vertical position of the latitude
+	 */
+	static double getY(double latitude) {
+		double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+		double sin = Math.sin(Math.toRadians(clamped));
+		double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+		return Math.min(Math.max(y, 0), Math.nextDown(1.0));
+	}
+}
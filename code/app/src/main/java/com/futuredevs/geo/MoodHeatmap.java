@@ -0,0 +1,218 @@
+package com.futuredevs.geo;
+
+import com.futuredevs.models.items.MoodPost;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The {@code MoodHeatmap} class renders the density of moods on the map
+ * as the pixels of the square tiles of the Web Mercator projection used by
+ * the map, where the tile at zoom level {@code z} and position {@code x},
+ * {@code y} is one of the {@code 2^z} by {@code 2^z} tiles covering the
+ * world.</p>
+ *
+ * <p>Each mood spreads over a circle of {@value #KERNEL_RADIUS} pixels which
+ * fades towards its edge, so the same number of nearby moods appears equally
+ * dense at every zoom level. A pixel is as opaque as the density of the
+ * moods around it and is coloured by mixing the colours of their emotions,
+ * each weighted by its share of the density.</p>
+ *
+ * <p>The moods of the heatmap are replaced through
+ * {@link #setPosts(Collection)}, which returns the moods which changed, so
+ * that only the tiles {@link #touches(int, int, int, MoodPost) touched} by
+ * the changed moods need to be rendered again. Rendering does not depend on
+ * Android but the heatmap is not thread safe, so it should only be used from
+ * a single thread.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public final class MoodHeatmap {
+	/** The width and height of a tile in pixels. */
+	public static final int TILE_SIZE = 256;
+	/** The radius in pixels of the circle each mood spreads over. */
+	private static final int KERNEL_RADIUS = 24;
+	/** The density at which a pixel becomes as opaque as it can be. */
+	private static final float MAX_DENSITY = 3;
+	/** The opacity of the densest pixels, out of 255. */
+	private static final int MAX_ALPHA = 200;
+	private final Map<MoodPost.Emotion, Integer> colours;
+	/** The moods of the heatmap, by the key of the mood. */
+	private final Map<Object, MoodPost> posts = new HashMap<>();
+
+	/**
+	 * Creates a {@code MoodHeatmap} colouring the moods of each emotion with
+	 * the given RGB colours. Emotions without a colour are shown in grey.
+	 *
+	 * @param colours the colour of each emotion
+	 */
+	public MoodHeatmap(Map<MoodPost.Emotion, Integer> colours) {
+		this.colours = new EnumMap<>(colours);
+	}
+
+	/**
+	 * Replaces the moods of the heatmap with the given {@code posts},
+	 * ignoring those without a valid location, and returns every mood which
+	 * was added or removed. A mood which has moved or whose emotion has
+	 * changed is returned both as it was and as it now is.
+	 *
+	 * @param posts the moods to show
+	 *
+	 * @return the moods which changed
+	 */
+	public List<MoodPost> setPosts(Collection<MoodPost> posts) {
+		Map<Object, MoodPost> updated = new HashMap<>();
+		List<MoodPost> changed = new ArrayList<>();
+
+		for (MoodPost post : posts) {
+			if (post.hasValidLocation()) {
+				updated.put(getKey(post), post);
+			}
+		}
+
+		for (Map.Entry<Object, MoodPost> entry : this.posts.entrySet()) {
+			MoodPost post = updated.get(entry.getKey());
+
+			if (post == null || !isShownAlike(post, entry.getValue())) {
+				changed.add(entry.getValue());
+			}
+		}
+
+		for (Map.Entry<Object, MoodPost> entry : updated.entrySet()) {
+			MoodPost previous = this.posts.get(entry.getKey());
+
+			if (previous == null || !isShownAlike(previous, entry.getValue())) {
+				changed.add(entry.getValue());
+			}
+		}
+
+		this.posts.clear();
+		this.posts.putAll(updated);
+		return changed;
+	}
+
+	/**
+	 * Returns whether the given {@code post} colours any pixel of the tile
+	 * at the given zoom level and position.
+	 *
+	 * @param zoom the zoom level of the tile
+	 * @param x    the horizontal position of the tile
+	 * @param y    the vertical position of the tile
+	 * @param post the mood to check
+	 *
+	 * @return {@code true} if the mood is drawn on the tile, {@code false}
+	 * otherwise
+	 */
+	public static boolean touches(int zoom, int x, int y, MoodPost post) {
+		double worldSize = TILE_SIZE * Math.pow(2, zoom);
+		double pixelX = MoodClusterer.getX(post.getLongitude()) * worldSize - (double) x * TILE_SIZE;
+		double pixelY = MoodClusterer.getY(post.getLatitude()) * worldSize - (double) y * TILE_SIZE;
+		return pixelX > -KERNEL_RADIUS && pixelX < TILE_SIZE + KERNEL_RADIUS
+			   && pixelY > -KERNEL_RADIUS && pixelY < TILE_SIZE + KERNEL_RADIUS;
+	}
+
+	/**
+	 * Returns the ARGB pixels of the tile at the given zoom level and
+	 * position, row by row, or {@code null} if no mood is drawn on the tile.
+	 *
+	 * @param zoom the zoom level of the tile
+	 * @param x    the horizontal position of the tile
+	 * @param y    the vertical position of the tile
+	 *
+	 * @return the {@value #TILE_SIZE} by {@value #TILE_SIZE} pixels of the
+	 * tile or {@code null} if the tile is empty
+	 */
+	public int[] render(int zoom, int x, int y) {
+		double worldSize = TILE_SIZE * Math.pow(2, zoom);
+		float[] density = null;
+		float[] red = null;
+		float[] green = null;
+		float[] blue = null;
+
+		for (MoodPost post : this.posts.values()) {
+			if (!touches(zoom, x, y, post)) {
+				continue;
+			}
+
+			if (density == null) {
+				density = new float[TILE_SIZE * TILE_SIZE];
+				red = new float[TILE_SIZE * TILE_SIZE];
+				green = new float[TILE_SIZE * TILE_SIZE];
+				blue = new float[TILE_SIZE * TILE_SIZE];
+			}
+
+			double centreX = MoodClusterer.getX(post.getLongitude()) * worldSize - (double) x * TILE_SIZE;
+			double centreY = MoodClusterer.getY(post.getLatitude()) * worldSize - (double) y * TILE_SIZE;
+			Integer colour = this.colours.get(post.getEmotion());
+			int rgb = (colour != null) ? colour : 0x808080;
+			int minX = Math.max(0, (int) Math.ceil(centreX - KERNEL_RADIUS));
+			int maxX = Math.min(TILE_SIZE - 1, (int) Math.floor(centreX + KERNEL_RADIUS));
+			int minY = Math.max(0, (int) Math.ceil(centreY - KERNEL_RADIUS));
+			int maxY = Math.min(TILE_SIZE - 1, (int) Math.floor(centreY + KERNEL_RADIUS));
+
+			for (int pixelY = minY; pixelY <= maxY; pixelY++) {
+				for (int pixelX = minX; pixelX <= maxX; pixelX++) {
+					double offsetX = pixelX - centreX;
+					double offsetY = pixelY - centreY;
+					double distance = (offsetX * offsetX + offsetY * offsetY)
+									  / (KERNEL_RADIUS * KERNEL_RADIUS);
+
+					if (distance >= 1) {
+						continue;
+					}
+
+					// The weight falls smoothly to zero at the edge of the circle.
+					float weight = (float) ((1 - distance) * (1 - distance));
+					int index = pixelY * TILE_SIZE + pixelX;
+					density[index] += weight;
+					red[index] += weight * ((rgb >> 16) & 0xff);
+					green[index] += weight * ((rgb >> 8) & 0xff);
+					blue[index] += weight * (rgb & 0xff);
+				}
+			}
+		}
+
+		if (density == null) {
+			return null;
+		}
+
+		int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+
+		for (int i = 0; i < pixels.length; i++) {
+			if (density[i] == 0) {
+				continue;
+			}
+
+			int alpha = Math.round(MAX_ALPHA * Math.min(1, density[i] / MAX_DENSITY));
+			int r = Math.round(red[i] / density[i]);
+			int g = Math.round(green[i] / density[i]);
+			int b = Math.round(blue[i] / density[i]);
+			pixels[i] = (alpha << 24) | (r << 16) | (g << 8) | b;
+		}
+
+		return pixels;
+	}
+
+	/**
+	 * Returns whether the two versions of a mood are drawn the same way,
+	 * that is, at the same location with the same emotion.
+	 */
+	private static boolean isShownAlike(MoodPost first, MoodPost second) {
+		return first.getLatitude() == second.getLatitude()
+			   && first.getLongitude() == second.getLongitude()
+			   && first.getEmotion() == second.getEmotion();
+	}
+
+	/**
+	 * Returns the key of the given {@code post}, which is its document id or,
+	 * for moods which have not been stored, the mood itself.
+	 */
+	private static Object getKey(MoodPost post) {
+		String documentId = post.getDocumentId();
+		return (documentId != null && !documentId.isEmpty()) ? documentId : post;
+	}
+}
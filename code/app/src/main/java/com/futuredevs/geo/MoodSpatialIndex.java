@@ -0,0 +1,199 @@
+package com.futuredevs.geo;
+
+import com.futuredevs.models.items.MoodPost;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The {@code MoodSpatialIndex} class indexes moods by their location so
+ * that the moods within a distance of a location can be found without
+ * measuring the distance to every mood.</p>
+ *
+ * <p>Moods are grouped into the geohash cells of {@value #CELL_PRECISION}
+ * characters, roughly 4.9 km by 4.9 km. A search only visits the cells
+ * overlapping the bounding box of its circle, then discards the moods
+ * outside the box before the exact distance to the remaining moods is
+ * measured.</p>
+ *
+ * <p>The moods of the index are replaced through {@link #setPosts(Collection)},
+ * which only moves the moods that were added, removed or have moved, so the
+ * index may be updated each time a new list of moods is received.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public final class MoodSpatialIndex {
+	/** The number of characters of the geohash of the cells of the index. */
+	private static final int CELL_PRECISION = 5;
+	/** The moods within each cell, by the key of the mood. */
+	private final Map<String, Map<Object, MoodPost>> cells = new HashMap<>();
+	/** The cell of every mood of the index, by the key of the mood. */
+	private final Map<Object, String> postCells = new HashMap<>();
+
+	/**
+	 * Replaces the moods of the index with the given {@code posts}, ignoring
+	 * those without a valid location. Moods which are already indexed at the
+	 * same location are not moved.
+	 *
+	 * @param posts the moods to index
+	 */
+	public void setPosts(Collection<MoodPost> posts) {
+		Map<Object, MoodPost> updated = new HashMap<>();
+
+		for (MoodPost post : posts) {
+			if (post.hasValidLocation()) {
+				updated.put(getKey(post), post);
+			}
+		}
+
+		Iterator<Map.Entry<Object, String>> iterator = this.postCells.entrySet().iterator();
+
+		while (iterator.hasNext()) {
+			Map.Entry<Object, String> entry = iterator.next();
+
+			if (!updated.containsKey(entry.getKey())) {
+				this.removeFromCell(entry.getKey(), entry.getValue());
+				iterator.remove();
+			}
+		}
+
+		for (Map.Entry<Object, MoodPost> entry : updated.entrySet()) {
+			String cell = getCell(entry.getValue());
+			String previousCell = this.postCells.put(entry.getKey(), cell);
+
+			if (previousCell != null && !previousCell.equals(cell)) {
+				this.removeFromCell(entry.getKey(), previousCell);
+			}
+
+			Map<Object, MoodPost> cellPosts = this.cells.get(cell);
+
+			if (cellPosts == null) {
+				cellPosts = new HashMap<>();
+				this.cells.put(cell, cellPosts);
+			}
+
+			cellPosts.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Returns the number of moods in the index.
+	 *
+	 * @return the number of indexed moods
+	 */
+	public int size() {
+		return this.postCells.size();
+	}
+
+	/**
+	 * Returns the moods of the index within the given distance of the given
+	 * location.
+	 *
+	 * @param latitude  the latitude of the centre of the search
+	 * @param longitude the longitude of the centre of the search
+	 * @param radiusKm  the distance from the centre in kilometres
+	 *
+	 * @return the moods within the distance, in no particular order
+	 */
+	public List<MoodPost> findWithin(double latitude, double longitude, double radiusKm) {
+		double[] deltas = GeoHash.getDegreesWithin(latitude, radiusKm);
+		double latitudeDelta = deltas[0];
+		double longitudeDelta = deltas[1];
+		List<MoodPost> found = new ArrayList<>();
+
+		for (String cell : GeoHash.getCellsWithin(latitude - latitudeDelta, longitude - longitudeDelta,
+												  latitude + latitudeDelta, longitude + longitudeDelta,
+												  CELL_PRECISION)) {
+			Map<Object, MoodPost> cellPosts = this.cells.get(cell);
+
+			if (cellPosts == null) {
+				continue;
+			}
+
+			for (MoodPost post : cellPosts.values()) {
+				double latitudeOffset = Math.abs(post.getLatitude() - latitude);
+				double longitudeOffset =
+						Math.abs(GeoHash.normalizeLongitude(post.getLongitude() - longitude));
+
+				if (latitudeOffset > latitudeDelta || longitudeOffset > longitudeDelta) {
+					continue;
+				}
+
+				if (distanceKm(latitude, longitude, post.getLatitude(), post.getLongitude()) <= radiusKm) {
+					found.add(post);
+				}
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * Returns the distance in kilometres between two locations along the
+	 * surface of the earth, using the haversine formula.
+	 *
+	 * @param latitude1  the latitude of the first location
+	 * @param longitude1 the longitude of the first location
+	 * @param latitude2  the latitude of the second location
+	 * @param longitude2 the longitude of the second location
+	 *
+	 * @return the distance between the locations in kilometres
+	 */
+	public static double distanceKm(double latitude1, double longitude1,
+									double latitude2, double longitude2) {
+		double latitudeDelta = Math.toRadians(latitude2 - latitude1);
+		double longitudeDelta = Math.toRadians(longitude2 - longitude1);
+		double a = Math.sin(latitudeDelta / 2) * Math.sin(latitudeDelta / 2)
+				   + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+					 * Math.sin(longitudeDelta / 2) * Math.sin(longitudeDelta / 2);
+		return 2 * GeoHash.EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	/**
+	 * Removes the mood with the given {@code key} from the given
+	 * {@code cell}, removing the cell once it is empty.
+	 *
+	 * @param key  the key of the mood
+	 * @param cell the geohash of the cell holding the mood
+	 */
+	private void removeFromCell(Object key, String cell) {
+		Map<Object, MoodPost> cellPosts = this.cells.get(cell);
+
+		if (cellPosts != null) {
+			cellPosts.remove(key);
+
+			if (cellPosts.isEmpty()) {
+				this.cells.remove(cell);
+			}
+		}
+	}
+
+	/**
+	 * Returns the geohash of the cell containing the given {@code post}.
+	 *
+	 * @param post the mood to obtain the cell of
+	 *
+	 * @return the geohash of the cell of the mood
+	 */
+	private static String getCell(MoodPost post) {
+		return GeoHash.encode(post.getLatitude(), post.getLongitude(), CELL_PRECISION);
+	}
+
+	/**
+	 * Returns the key identifying the given {@code post} within the index,
+	 * which is its document id or, for moods which have not been stored,
+	 * the mood itself.
+	 *
+	 * @param post the mood to obtain the key of
+	 *
+	 * @return the key of the mood
+	 */
+	private static Object getKey(MoodPost post) {
+		String documentId = post.getDocumentId();
+		return (documentId != null && !documentId.isEmpty()) ? documentId : post;
+	}
+}
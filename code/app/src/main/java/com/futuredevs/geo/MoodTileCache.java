@@ -0,0 +1,164 @@
+package com.futuredevs.geo;
+
+import com.futuredevs.models.items.MoodPost;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The {@code MoodTileCache} class holds the moods of the geohash cells,
+ * or tiles, of the map which have been loaded, so that returning to an area
+ * which was already visited does not load its moods again.</p>
+ *
+ * <p>At most a given number of tiles are held, the least recently used tile
+ * being removed once another is added, so the memory used is bounded no
+ * matter how many areas are visited. A tile is fresh for a given amount of
+ * time after it is loaded, after which it should be loaded again, though its
+ * moods are still returned until it is replaced.</p>
+ *
+ * <p>The moods of a held tile may also be changed in place, such as when the
+ * user posts, edits or deletes one of their own moods, without the tile
+ * being loaded again.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public final class MoodTileCache {
+	private final long ttlMillis;
+	private final Map<String, Tile> tiles;
+
+	/**
+	 * Creates a {@code MoodTileCache} holding at most {@code maxTiles} tiles
+	 * which are each fresh for {@code ttlMillis} after being loaded.
+	 *
+	 * @param maxTiles  the maximum number of tiles to hold
+	 * @param ttlMillis the time in milliseconds for which a tile is fresh
+	 */
+	public MoodTileCache(int maxTiles, long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+		this.tiles = new LinkedHashMap<String, Tile>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Tile> eldest) {
+				return this.size() > maxTiles;
+			}
+		};
+	}
+
+	/**
+	 * Stores the given {@code posts} as the moods of the tile with the given
+	 * geohash, replacing any moods held for the tile.
+	 *
+	 * @param cell  the geohash of the tile
+	 * @param posts the moods within the tile
+	 * @param now   the current time in milliseconds
+	 */
+	public void put(String cell, List<MoodPost> posts, long now) {
+		this.tiles.put(cell, new Tile(new ArrayList<>(posts), now));
+	}
+
+	/**
+	 * Adds the given {@code post} to the tile with the given geohash,
+	 * replacing any other version of the same mood, if the tile is held. The
+	 * time at which the tile was loaded is left unchanged.
+	 *
+	 * @param cell the geohash of the tile
+	 * @param post the mood to add
+	 */
+	public void add(String cell, MoodPost post) {
+		Tile tile = this.tiles.get(cell);
+
+		if (tile != null) {
+			tile.posts.removeIf(held -> isSameMood(held, post));
+			tile.posts.add(post);
+		}
+	}
+
+	/**
+	 * Removes every version of the given {@code post} from the tile with the
+	 * given geohash, if the tile is held.
+	 *
+	 * @param cell the geohash of the tile
+	 * @param post the mood to remove
+	 */
+	public void remove(String cell, MoodPost post) {
+		Tile tile = this.tiles.get(cell);
+
+		if (tile != null) {
+			tile.posts.removeIf(held -> isSameMood(held, post));
+		}
+	}
+
+	/**
+	 * Returns whether the tile with the given geohash was loaded and has not
+	 * expired, in which case it does not need to be loaded again.
+	 *
+	 * @param cell the geohash of the tile
+	 * @param now  the current time in milliseconds
+	 *
+	 * @return {@code true} if the tile is fresh, {@code false} otherwise
+	 */
+	public boolean isFresh(String cell, long now) {
+		Tile tile = this.tiles.get(cell);
+		return tile != null && now - tile.loadedAt < this.ttlMillis;
+	}
+
+	/**
+	 * Returns the moods of every held tile among the given {@code cells},
+	 * including the tiles which have expired. Each of the tiles is marked as
+	 * recently used.
+	 *
+	 * @param cells the geohashes of the tiles
+	 *
+	 * @return the moods of the tiles
+	 */
+	public List<MoodPost> getPosts(Collection<String> cells) {
+		List<MoodPost> posts = new ArrayList<>();
+
+		for (String cell : cells) {
+			Tile tile = this.tiles.get(cell);
+
+			if (tile != null) {
+				posts.addAll(tile.posts);
+			}
+		}
+
+		return posts;
+	}
+
+	/**
+	 * Returns the number of tiles held.
+	 *
+	 * @return the number of tiles
+	 */
+	public int size() {
+		return this.tiles.size();
+	}
+
+	/**
+	 * Returns whether the two moods are versions of the same mood, that is,
+	 * whether they have the same document id or, for moods which have not
+	 * been stored, are the same mood.
+	 */
+	private static boolean isSameMood(MoodPost first, MoodPost second) {
+		String documentId = first.getDocumentId();
+		return first == second
+			   || (documentId != null && !documentId.isEmpty()
+				   && documentId.equals(second.getDocumentId()));
+	}
+
+	/**
+	 * The {@code Tile} class holds the moods of a single tile along with the
+	 * time at which they were loaded.
+	 */
+	private static class Tile {
+		private final List<MoodPost> posts;
+		private final long loadedAt;
+
+		private Tile(List<MoodPost> posts, long loadedAt) {
+			this.posts = posts;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.futuredevs.images;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * <p>The {@code BitmapPool} class holds bitmaps which are no longer shown so
+ * that their memory can be reused to decode other images rather than
+ * allocating a new bitmap for each image.</p>
+ *
+ * <p>The pool holds at most a given number of bytes of bitmaps, discarding
+ * the oldest bitmaps once it is full. Bitmaps may be taken from the pool on
+ * any thread.</p>
+ *
+ * @author Spencer Schmidt
+ */
+class BitmapPool {
+	private final Deque<Bitmap> bitmaps = new ArrayDeque<>();
+	private final long maxBytes;
+	private long numBytes;
+
+	/**
+	 * Creates a {@code BitmapPool} holding at most {@code maxBytes} bytes of
+	 * bitmaps.
+	 *
+	 * @param maxBytes the maximum size of the pool in bytes
+	 */
+	BitmapPool(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Adds the given {@code bitmap} to the pool to be reused. The bitmap must
+	 * no longer be shown or held by the cache as its contents will be
+	 * overwritten once it is reused.
+	 *
+	 * @param bitmap the bitmap to add to the pool
+	 */
+	synchronized void put(Bitmap bitmap) {
+		if (!bitmap.isMutable() || bitmap.isRecycled()) {
+			return;
+		}
+
+		this.bitmaps.addLast(bitmap);
+		this.numBytes += bitmap.getAllocationByteCount();
+
+		while (this.numBytes > this.maxBytes) {
+			Bitmap oldest = this.bitmaps.removeFirst();
+			this.numBytes -= oldest.getAllocationByteCount();
+		}
+	}
+
+	/**
+	 * Removes and returns a bitmap from the pool that is large enough to
+	 * decode an image of the given size into.
+	 *
+	 * @param width  the width of the decoded image
+	 * @param height the height of the decoded image
+	 * @param config the configuration of the decoded image
+	 *
+	 * @return a bitmap to decode into or {@code null} if there is none large
+	 *         enough in the pool
+	 */
+	synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+		long required = (long) width * height * getBytesPerPixel(config);
+		Iterator<Bitmap> iterator = this.bitmaps.iterator();
+
+		while (iterator.hasNext()) {
+			Bitmap bitmap = iterator.next();
+
+			if (bitmap.getAllocationByteCount() >= required) {
+				iterator.remove();
+				this.numBytes -= bitmap.getAllocationByteCount();
+				return bitmap;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes every bitmap from the pool.
+	 */
+	synchronized void clear() {
+		this.bitmaps.clear();
+		this.numBytes = 0;
+	}
+
+	/**
+	 * Returns the number of bytes used by each pixel of a bitmap with the
+	 * given {@code config}.
+	 *
+	 * @param config the configuration of the bitmap
+	 *
+	 * @return the number of bytes per pixel
+	 */
+	private static int getBytesPerPixel(Bitmap.Config config) {
+		if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+			return 2;
+		}
+		else if (config == Bitmap.Config.ALPHA_8) {
+			return 1;
+		}
+
+		return 4;
+	}
+}
@@ -0,0 +1,261 @@
+package com.futuredevs.images;
+
+/**
+ * <p>The {@code BlurHash} class encodes an image as a short string from which
+ * a blurred version of the image can be drawn, following the BlurHash
+ * format.</p>
+ *
+ * <p>The image is described by a small number of cosine components, the
+ * average colour and how the colour varies across the image, each packed
+ * into base 83 characters. A hash of 4 by 3 components is 28 characters
+ * long, small enough to be stored within a mood and shown the moment the
+ * mood is opened while its image is still loading.</p>
+ *
+ * <p>Pixels are given and returned as ARGB colours in row-major order so
+ * that the encoding does not depend on how the image is stored.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public final class BlurHash {
+	private static final String CHARACTERS =
+			"0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+	/** The maximum number of components in either direction. */
+	private static final int MAX_COMPONENTS = 9;
+
+	private BlurHash() {}
+
+	/**
+	 * Encodes the image given by its {@code pixels} using the given number
+	 * of components in each direction.
+	 *
+	 * @param pixels      the ARGB colours of the image in row-major order
+	 * @param width       the width of the image
+	 * @param height      the height of the image
+	 * @param componentsX the number of horizontal components, from 1 to 9
+	 * @param componentsY the number of vertical components, from 1 to 9
+	 *
+	 * @return the hash of the image
+	 *
+	 * @throws IllegalArgumentException if the number of components is not
+	 *                                  from 1 to 9
+	 */
+	public static String encode(int[] pixels, int width, int height,
+								int componentsX, int componentsY) {
+		if (componentsX < 1 || componentsX > MAX_COMPONENTS
+			|| componentsY < 1 || componentsY > MAX_COMPONENTS) {
+			throw new IllegalArgumentException("Components must be from 1 to 9");
+		}
+
+		float[][] factors = new float[componentsX * componentsY][];
+
+		for (int j = 0; j < componentsY; j++) {
+			for (int i = 0; i < componentsX; i++) {
+				factors[j * componentsX + i] = getFactor(pixels, width, height, i, j);
+			}
+		}
+
+		float maximumValue = 1;
+		int quantisedMaximum = 0;
+
+		if (factors.length > 1) {
+			float actualMaximum = 0;
+
+			for (int k = 1; k < factors.length; k++) {
+				for (float value : factors[k]) {
+					actualMaximum = Math.max(actualMaximum, Math.abs(value));
+				}
+			}
+
+			quantisedMaximum = clamp((int) Math.floor(actualMaximum * 166 - 0.5), 0, 82);
+			maximumValue = (quantisedMaximum + 1) / 166f;
+		}
+
+		StringBuilder hash = new StringBuilder();
+		encode83((componentsX - 1) + (componentsY - 1) * MAX_COMPONENTS, 1, hash);
+		encode83(quantisedMaximum, 1, hash);
+		encode83(encodeDC(factors[0]), 4, hash);
+
+		for (int k = 1; k < factors.length; k++) {
+			encode83(encodeAC(factors[k], maximumValue), 2, hash);
+		}
+
+		return hash.toString();
+	}
+
+	/**
+	 * Decodes the given {@code hash} into an image of the given size.
+	 *
+	 * @param hash   the hash of an image
+	 * @param width  the width of the image to draw
+	 * @param height the height of the image to draw
+	 * @param punch  how strongly the colours vary, 1 for the original image
+	 *
+	 * @return the ARGB colours of the image in row-major order
+	 *
+	 * @throws IllegalArgumentException if the hash is not valid
+	 */
+	public static int[] decode(String hash, int width, int height, float punch) {
+		if (hash == null || hash.length() < 6) {
+			throw new IllegalArgumentException("The hash must be at least 6 characters");
+		}
+
+		int sizeFlag = decode83(hash, 0, 1);
+		int componentsX = (sizeFlag % MAX_COMPONENTS) + 1;
+		int componentsY = (sizeFlag / MAX_COMPONENTS) + 1;
+
+		if (hash.length() != 4 + 2 * componentsX * componentsY) {
+			throw new IllegalArgumentException("The hash has the wrong length");
+		}
+
+		float maximumValue = (decode83(hash, 1, 2) + 1) / 166f * punch;
+		float[][] colours = new float[componentsX * componentsY][];
+		colours[0] = decodeDC(decode83(hash, 2, 6));
+
+		for (int k = 1; k < colours.length; k++) {
+			colours[k] = decodeAC(decode83(hash, 4 + k * 2, 6 + k * 2), maximumValue);
+		}
+
+		int[] pixels = new int[width * height];
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				float red = 0;
+				float green = 0;
+				float blue = 0;
+
+				for (int j = 0; j < componentsY; j++) {
+					for (int i = 0; i < componentsX; i++) {
+						float basis = (float) (Math.cos(Math.PI * x * i / width)
+											   * Math.cos(Math.PI * y * j / height));
+						float[] colour = colours[j * componentsX + i];
+						red += colour[0] * basis;
+						green += colour[1] * basis;
+						blue += colour[2] * basis;
+					}
+				}
+
+				pixels[y * width + x] = 0xFF000000
+										| (linearToSRGB(red) << 16)
+										| (linearToSRGB(green) << 8)
+										| linearToSRGB(blue);
+			}
+		}
+
+		return pixels;
+	}
+
+	/**
+	 * Returns the linear red, green and blue weights of the component at
+	 * the given position.
+	 */
+	private static float[] getFactor(int[] pixels, int width, int height, int i, int j) {
+		float red = 0;
+		float green = 0;
+		float blue = 0;
+		float normalisation = (i == 0 && j == 0) ? 1 : 2;
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				float basis = normalisation * (float) (Math.cos(Math.PI * i * x / width)
+													   * Math.cos(Math.PI * j * y / height));
+				int pixel = pixels[y * width + x];
+				red += basis * sRGBToLinear((pixel >> 16) & 0xFF);
+				green += basis * sRGBToLinear((pixel >> 8) & 0xFF);
+				blue += basis * sRGBToLinear(pixel & 0xFF);
+			}
+		}
+
+		float scale = 1f / (width * height);
+		return new float[] {red * scale, green * scale, blue * scale};
+	}
+
+	private static int encodeDC(float[] colour) {
+		return (linearToSRGB(colour[0]) << 16)
+			   + (linearToSRGB(colour[1]) << 8)
+			   + linearToSRGB(colour[2]);
+	}
+
+	private static int encodeAC(float[] colour, float maximumValue) {
+		int red = quantiseAC(colour[0] / maximumValue);
+		int green = quantiseAC(colour[1] / maximumValue);
+		int blue = quantiseAC(colour[2] / maximumValue);
+		return red * 19 * 19 + green * 19 + blue;
+	}
+
+	private static int quantiseAC(float value) {
+		return clamp((int) Math.floor(signPow(value, 0.5f) * 9 + 9.5), 0, 18);
+	}
+
+	private static float[] decodeDC(int value) {
+		return new float[] {
+				sRGBToLinear(value >> 16),
+				sRGBToLinear((value >> 8) & 0xFF),
+				sRGBToLinear(value & 0xFF)
+		};
+	}
+
+	private static float[] decodeAC(int value, float maximumValue) {
+		int red = value / (19 * 19);
+		int green = (value / 19) % 19;
+		int blue = value % 19;
+		return new float[] {
+				signPow((red - 9) / 9f, 2) * maximumValue,
+				signPow((green - 9) / 9f, 2) * maximumValue,
+				signPow((blue - 9) / 9f, 2) * maximumValue
+		};
+	}
+
+	private static float sRGBToLinear(int value) {
+		float v = value / 255f;
+		return (v <= 0.04045f) ? v / 12.92f : (float) Math.pow((v + 0.055) / 1.055, 2.4);
+	}
+
+	private static int linearToSRGB(float value) {
+		float v = Math.max(0, Math.min(1, value));
+
+		if (v <= 0.0031308f) {
+			return (int) (v * 12.92f * 255 + 0.5f);
+		}
+
+		return (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+	}
+
+	private static float signPow(float value, float exponent) {
+		return Math.copySign((float) Math.pow(Math.abs(value), exponent), value);
+	}
+
+	private static int clamp(int value, int min, int max) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+	/**
+	 * Appends the given {@code value} to the {@code hash} as {@code length}
+	 * base 83 characters.
+	 */
+	private static void encode83(int value, int length, StringBuilder hash) {
+		for (int i = 1; i <= length; i++) {
+			int digit = (value / (int) Math.pow(83, length - i)) % 83;
+			hash.append(CHARACTERS.charAt(digit));
+		}
+	}
+
+	/**
+	 * Returns the value of the base 83 characters of the {@code hash} from
+	 * {@code start} up to {@code end}.
+	 */
+	private static int decode83(String hash, int start, int end) {
+		int value = 0;
+
+		for (int i = start; i < end; i++) {
+			int digit = CHARACTERS.indexOf(hash.charAt(i));
+
+			if (digit == -1) {
+				throw new IllegalArgumentException("Invalid character in hash: " + hash.charAt(i));
+			}
+
+			value = value * 83 + digit;
+		}
+
+		return value;
+	}
+}
@@ -0,0 +1,69 @@
+package com.futuredevs.images;
+
+import android.graphics.Bitmap;
+
+/**
+ * The {@code CompressedImage} class holds an image chosen for a mood once it
+ * has been compressed by an {@link ImageCompressor}, along with its
+ * thumbnail, its blurhash and the decoded image to preview.
+ *
+ * @author Spencer Schmidt
+ */
+public final class CompressedImage {
+	private final byte[] imageData;
+	private final byte[] thumbnailData;
+	private final String blurHash;
+	private final Bitmap preview;
+
+	/**
+	 * Creates a {@code CompressedImage} from its compressed bytes.
+	 *
+	 * @param imageData     the bytes of the compressed image
+	 * @param thumbnailData the bytes of the compressed thumbnail
+	 * @param blurHash      the blurhash of the image
+	 * @param preview       the decoded image that was compressed
+	 */
+	CompressedImage(byte[] imageData, byte[] thumbnailData, String blurHash, Bitmap preview) {
+		this.imageData = imageData;
+		this.thumbnailData = thumbnailData;
+		this.blurHash = blurHash;
+		this.preview = preview;
+	}
+
+	/**
+	 * Returns the bytes of the compressed image.
+	 *
+	 * @return the image data
+	 */
+	public byte[] getImageData() {
+		return this.imageData;
+	}
+
+	/**
+	 * Returns the bytes of the compressed thumbnail of the image.
+	 *
+	 * @return the thumbnail data
+	 */
+	public byte[] getThumbnailData() {
+		return this.thumbnailData;
+	}
+
+	/**
+	 * Returns the blurhash of the image, see {@link BlurHash}.
+	 *
+	 * @return the blurhash
+	 */
+	public String getBlurHash() {
+		return this.blurHash;
+	}
+
+	/**
+	 * Returns the decoded image that was compressed, which may be shown
+	 * without decoding the compressed bytes.
+	 *
+	 * @return the decoded image
+	 */
+	public Bitmap getPreview() {
+		return this.preview;
+	}
+}
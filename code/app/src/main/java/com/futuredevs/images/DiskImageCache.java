@@ -0,0 +1,243 @@
+package com.futuredevs.images;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>The {@code DiskImageCache} class stores the bytes of images in files
+ * within a directory so that images remain available without being
+ * downloaded again after the application is restarted.</p>
+ *
+ * <p>The cache holds at most a given number of bytes, removing the least
+ * recently used images once it is full. When the device is low on storage
+ * every image is removed and no more are stored until space is available.
+ * The files are read through a memory mapping rather than a stream.</p>
+ *
+ * <p>The files of the cache are read and written on the thread calling its
+ * methods, so they should not be called from the main thread.</p>
+ *
+ * @author Spencer Schmidt
+ */
+class DiskImageCache {
+	private static final String TAG = "IMAGE_CACHE";
+	private static final String TEMP_SUFFIX = ".tmp";
+	/** The free space below which the device is considered low on storage. */
+	private static final long LOW_STORAGE_BYTES = 64L * 1024 * 1024;
+	private final File directory;
+	private final long maxBytes;
+	/** The size of each cached image, least recently used first. */
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long numBytes;
+	private boolean isLoaded;
+
+	/**
+	 * Creates a {@code DiskImageCache} storing images within the given
+	 * {@code directory} using at most {@code maxBytes} bytes.
+	 *
+	 * @param directory the directory to store the images in
+	 * @param maxBytes  the maximum size of the cache in bytes
+	 */
+	DiskImageCache(File directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns the bytes of the image with the given {@code key}.
+	 *
+	 * @param key the key of the image
+	 *
+	 * @return the bytes of the image or {@code null} if it is not cached
+	 */
+	byte[] get(String key) {
+		synchronized (this) {
+			this.loadEntries();
+
+			if (this.entries.get(key) == null) {
+				return null;
+			}
+		}
+
+		File file = this.getFile(key);
+
+		try (RandomAccessFile input = new RandomAccessFile(file, "r");
+			 FileChannel channel = input.getChannel()) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			byte[] data = new byte[buffer.remaining()];
+			buffer.get(data);
+			// The order of use is restored from the files' modification
+			// times when the cache is next loaded.
+			file.setLastModified(System.currentTimeMillis());
+			return data;
+		}
+		catch (IOException e) {
+			Log.w(TAG, "Failed to read cached image", e);
+			this.remove(key);
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether the image with the given {@code key} is cached.
+	 *
+	 * @param key the key of the image
+	 *
+	 * @return {@code true} if the image is cached, {@code false} otherwise
+	 */
+	synchronized boolean contains(String key) {
+		this.loadEntries();
+		return this.entries.containsKey(key);
+	}
+
+	/**
+	 * Stores the given {@code data} as the image with the given {@code key},
+	 * removing the least recently used images if the cache is full.
+	 *
+	 * @param key  the key of the image
+	 * @param data the bytes of the image
+	 */
+	void put(String key, byte[] data) {
+		if (this.isLowOnStorage()) {
+			this.clear();
+			return;
+		}
+
+		File temp = null;
+
+		try {
+			// The image is written to a temporary file first so that a
+			// partially written image is never read.
+			this.directory.mkdirs();
+			temp = File.createTempFile(key, TEMP_SUFFIX, this.directory);
+
+			try (FileOutputStream output = new FileOutputStream(temp)) {
+				output.write(data);
+			}
+
+			if (!temp.renameTo(this.getFile(key))) {
+				throw new IOException("Failed to rename " + temp);
+			}
+		}
+		catch (IOException e) {
+			Log.w(TAG, "Failed to cache image", e);
+
+			if (temp != null) {
+				temp.delete();
+			}
+
+			return;
+		}
+
+		synchronized (this) {
+			this.loadEntries();
+			Long previous = this.entries.put(key, (long) data.length);
+			this.numBytes += data.length - ((previous != null) ? previous : 0);
+			this.trimToSize(this.maxBytes);
+		}
+	}
+
+	/**
+	 * Removes the image with the given {@code key} from the cache.
+	 *
+	 * @param key the key of the image
+	 */
+	synchronized void remove(String key) {
+		Long size = this.entries.remove(key);
+
+		if (size != null) {
+			this.numBytes -= size;
+		}
+
+		this.getFile(key).delete();
+	}
+
+	/**
+	 * Removes every image from the cache.
+	 */
+	synchronized void clear() {
+		this.loadEntries();
+		this.trimToSize(0);
+	}
+
+	/**
+	 * Returns whether the storage holding the cache has less than
+	 * {@value #LOW_STORAGE_BYTES} bytes available.
+	 *
+	 * @return {@code true} if the device is low on storage
+	 */
+	private boolean isLowOnStorage() {
+		return this.directory.getParentFile() != null
+			   && this.directory.getParentFile().getUsableSpace() < LOW_STORAGE_BYTES;
+	}
+
+	/**
+	 * Removes the least recently used images until the cache holds at most
+	 * {@code size} bytes.
+	 *
+	 * @param size the size in bytes to trim the cache to
+	 */
+	private void trimToSize(long size) {
+		Iterator<Map.Entry<String, Long>> iterator = this.entries.entrySet().iterator();
+
+		while (this.numBytes > size && iterator.hasNext()) {
+			Map.Entry<String, Long> eldest = iterator.next();
+			iterator.remove();
+			this.numBytes -= eldest.getValue();
+			this.getFile(eldest.getKey()).delete();
+		}
+	}
+
+	/**
+	 * Reads the images stored in the directory of the cache the first time
+	 * the cache is used, ordering them by when they were last used.
+	 */
+	private void loadEntries() {
+		if (this.isLoaded) {
+			return;
+		}
+
+		this.isLoaded = true;
+		File[] files = this.directory.listFiles();
+
+		if (files == null) {
+			return;
+		}
+
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+
+		for (File file : files) {
+			if (file.getName().endsWith(TEMP_SUFFIX)) {
+				// Left over from a write that did not finish.
+				file.delete();
+			}
+			else {
+				this.entries.put(file.getName(), file.length());
+				this.numBytes += file.length();
+			}
+		}
+
+		this.trimToSize(this.maxBytes);
+	}
+
+	/**
+	 * Returns the file holding the image with the given {@code key}.
+	 *
+	 * @param key the key of the image
+	 *
+	 * @return the file of the image
+	 */
+	private File getFile(String key) {
+		return new File(this.directory, key);
+	}
+}
@@ -0,0 +1,37 @@
+package com.futuredevs.images;
+
+/**
+ * Classes that implement the {@code ICompressionListener} interface are able
+ * to follow the compression of an image by an {@link ImageCompressor} and
+ * receive the compressed image once it has finished. Every method is called
+ * on the main thread and none are called once the compression is cancelled.
+ *
+ * @author Spencer Schmidt
+ */
+public interface ICompressionListener {
+	/**
+	 * Called as the image is decoded and compressed.
+	 *
+	 * @param percent how much of the compression has been done, from 0 to 100
+	 */
+	void onProgress(int percent);
+
+	/**
+	 * Called once the image has been compressed to under
+	 * {@link ImageCompressor#MAX_IMAGE_SIZE_BYTES} bytes.
+	 *
+	 * @param image the compressed image along with its thumbnail
+	 */
+	void onCompressed(CompressedImage image);
+
+	/**
+	 * Called if the image could not be compressed to under
+	 * {@link ImageCompressor#MAX_IMAGE_SIZE_BYTES} bytes.
+	 */
+	void onTooLarge();
+
+	/**
+	 * Called if the image could not be read.
+	 */
+	void onFailure();
+}
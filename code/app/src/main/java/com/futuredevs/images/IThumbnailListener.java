@@ -0,0 +1,21 @@
+package com.futuredevs.images;
+
+/**
+ * Classes that implement the {@code IThumbnailListener} interface receive the
+ * thumbnail and blurhash created for an image by an {@link ImageCompressor}
+ * on its background thread. The listener is called on the main thread.
+ *
+ * @author Spencer Schmidt
+ */
+public interface IThumbnailListener {
+	/**
+	 * Called once the thumbnail and blurhash of the image have been created.
+	 * Both are {@code null} if the image could not be decoded.
+	 *
+	 * @param thumbnailData the bytes of the thumbnail or {@code null} if it
+	 *                      could not be created
+	 * @param blurHash      the blurhash of the image or {@code null} if it
+	 *                      could not be created
+	 */
+	void onThumbnailCreated(byte[] thumbnailData, String blurHash);
+}
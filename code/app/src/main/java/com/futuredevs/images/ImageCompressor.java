@@ -0,0 +1,307 @@
+package com.futuredevs.images;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>The {@code ImageCompressor} class compresses images chosen for moods on
+ * a background thread, reporting its progress to an
+ * {@link ICompressionListener}.</p>
+ *
+ * <p>The size of an image is read before it is decoded so that it can be
+ * decoded at a reduced size, thus a photo from a high resolution camera is
+ * never held in memory at its full size. The image is then scaled to at
+ * most {@value #MAX_IMAGE_SIZE_PX} pixels and encoded in under
+ * {@value #MAX_IMAGE_SIZE_BYTES} bytes by an {@link ImageEncoder}, along
+ * with a thumbnail and a {@link BlurHash} of it.</p>
+ *
+ * <p>Only one image is compressed at a time, starting the compression of an
+ * image cancels the compression of the previous one.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public final class ImageCompressor {
+	/** The maximum size of a compressed image in bytes. */
+	public static final int MAX_IMAGE_SIZE_BYTES = 64 * 1024; // 64 KB
+	/** The maximum length of the longest side of a decoded image. */
+	private static final int MAX_DECODE_SIZE_PX = 2048;
+	/** The maximum length of the longest side of a compressed image. */
+	private static final int MAX_IMAGE_SIZE_PX = 1080;
+	private static final int THUMBNAIL_SIZE_PX = 96;
+	private static final int MAX_THUMBNAIL_SIZE_BYTES = 4 * 1024; // 4 KB
+	/** The size an image is scaled to before its blurhash is computed. */
+	private static final int BLUR_HASH_SIZE_PX = 32;
+	private static final int BLUR_HASH_COMPONENTS_X = 4;
+	private static final int BLUR_HASH_COMPONENTS_Y = 3;
+	/** The progress reported once the image has been decoded. */
+	private static final int DECODED_PROGRESS = 30;
+	/** The progress reported once the image has been compressed. */
+	private static final int COMPRESSED_PROGRESS = 90;
+	private static final String TAG = "IMAGE_COMPRESSOR";
+	private final ContentResolver resolver;
+	private final ImageEncoder.Format format;
+	/** The encoder of images, only used by the background thread. */
+	private final ImageEncoder imageEncoder;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private CompressionJob currentJob;
+
+	/**
+	 * Creates an {@code ImageCompressor} reading images using the given
+	 * {@code resolver} and encoding them in the given {@code format}.
+	 *
+	 * @param resolver the resolver to open the chosen images with
+	 * @param format   the format to encode images and thumbnails as
+	 */
+	public ImageCompressor(ContentResolver resolver, ImageEncoder.Format format) {
+		this.resolver = resolver;
+		this.format = format;
+		this.imageEncoder = new ImageEncoder(MAX_IMAGE_SIZE_PX, MAX_IMAGE_SIZE_BYTES, format);
+	}
+
+	/**
+	 * Compresses the image with the given {@code imageUri} on a background
+	 * thread, cancelling the compression of any previous image.
+	 *
+	 * @param imageUri the image to compress
+	 * @param listener the listener to notify of the progress and result
+	 */
+	public void compress(Uri imageUri, ICompressionListener listener) {
+		this.cancel();
+		CompressionJob job = new CompressionJob();
+		this.currentJob = job;
+		this.executor.execute(() -> this.run(job, imageUri, listener));
+	}
+
+	/**
+	 * Returns whether an image is currently being compressed.
+	 *
+	 * @return {@code true} if an image is being compressed
+	 */
+	public boolean isCompressing() {
+		return this.currentJob != null;
+	}
+
+	/**
+	 * Cancels the compression of the current image, if there is one. The
+	 * listener of the image will not be notified of anything further.
+	 */
+	public void cancel() {
+		if (this.currentJob != null) {
+			this.currentJob.isCancelled = true;
+			this.currentJob = null;
+		}
+	}
+
+	/**
+	 * Cancels the compression of the current image and stops the background
+	 * thread. The compressor may not be used once it has been shut down.
+	 */
+	public void shutdown() {
+		this.cancel();
+		this.executor.shutdown();
+	}
+
+	/**
+	 * <p>Returns the bytes of a thumbnail of the given {@code bitmap}, scaled
+	 * so that its longest side is at most {@value #THUMBNAIL_SIZE_PX} pixels
+	 * and encoded in under {@value #MAX_THUMBNAIL_SIZE_BYTES} bytes.</p>
+	 *
+	 * <p>The thumbnail is stored within the mood so that lists of moods can
+	 * show it without downloading the full image.</p>
+	 *
+	 * @param bitmap the image to create the thumbnail of
+	 *
+	 * @return the bytes of the encoded thumbnail or {@code null} if it could
+	 *         not be encoded in under {@value #MAX_THUMBNAIL_SIZE_BYTES} bytes
+	 */
+	public byte[] createThumbnail(Bitmap bitmap) {
+		// A new encoder is used as thumbnails may be created on any thread.
+		return new ImageEncoder(THUMBNAIL_SIZE_PX, MAX_THUMBNAIL_SIZE_BYTES, this.format).encode(bitmap);
+	}
+
+	/**
+	 * Decodes the given already compressed {@code imageData} on the
+	 * background thread and creates its thumbnail and blurhash, see
+	 * {@link #createThumbnail(Bitmap)} and {@link #createBlurHash(Bitmap)},
+	 * giving them to the {@code listener} on the main thread. This does not
+	 * cancel, nor is it cancelled by, the compression of an image, and
+	 * nothing is done once the compressor has been shut down.
+	 *
+	 * @param imageData the bytes of the image
+	 * @param listener  the listener to give the thumbnail and blurhash to
+	 */
+	public void createThumbnail(byte[] imageData, IThumbnailListener listener) {
+		if (this.executor.isShutdown()) {
+			return;
+		}
+
+		this.executor.execute(() -> {
+			Bitmap bitmap = BitmapFactory.decodeByteArray(imageData, 0, imageData.length);
+			byte[] thumbnailData = null;
+			String blurHash = null;
+
+			if (bitmap != null) {
+				thumbnailData = this.createThumbnail(bitmap);
+				blurHash = this.createBlurHash(bitmap);
+			}
+
+			byte[] thumbnail = thumbnailData;
+			String hash = blurHash;
+			this.mainHandler.post(() -> listener.onThumbnailCreated(thumbnail, hash));
+		});
+	}
+
+	/**
+	 * Returns the blurhash of the given {@code bitmap}. The image is first
+	 * scaled down to at most {@value #BLUR_HASH_SIZE_PX} pixels as the hash
+	 * only describes the image's colours at a very low resolution.
+	 *
+	 * @param bitmap the image to compute the blurhash of
+	 *
+	 * @return the blurhash of the image
+	 */
+	public String createBlurHash(Bitmap bitmap) {
+		Bitmap scaled = ImageEncoder.scaleToFit(bitmap, BLUR_HASH_SIZE_PX);
+		int width = scaled.getWidth();
+		int height = scaled.getHeight();
+		int[] pixels = new int[width * height];
+		scaled.getPixels(pixels, 0, width, 0, 0, width, height);
+		return BlurHash.encode(pixels, width, height, BLUR_HASH_COMPONENTS_X, BLUR_HASH_COMPONENTS_Y);
+	}
+
+	/**
+	 * Decodes and compresses the image with the given {@code imageUri},
+	 * stopping as soon as the {@code job} is cancelled.
+	 *
+	 * @param job      the compression being performed
+	 * @param imageUri the image to compress
+	 * @param listener the listener to notify of the progress and result
+	 */
+	private void run(CompressionJob job, Uri imageUri, ICompressionListener listener) {
+		if (job.isCancelled) {
+			return;
+		}
+
+		Bitmap bitmap;
+
+		try {
+			bitmap = this.decode(imageUri);
+		}
+		catch (IOException e) {
+			Log.e(TAG, "Failed to load the image", e);
+			bitmap = null;
+		}
+
+		if (bitmap == null) {
+			this.deliver(job, listener::onFailure);
+			return;
+		}
+
+		this.reportProgress(job, listener, DECODED_PROGRESS);
+
+		if (job.isCancelled) {
+			return;
+		}
+
+		byte[] imageData = this.imageEncoder.encode(bitmap);
+
+		if (imageData == null) {
+			this.deliver(job, listener::onTooLarge);
+			return;
+		}
+
+		this.reportProgress(job, listener, COMPRESSED_PROGRESS);
+		CompressedImage image = new CompressedImage(imageData, this.createThumbnail(bitmap),
+													this.createBlurHash(bitmap), bitmap);
+		this.deliver(job, () -> listener.onCompressed(image));
+	}
+
+	/**
+	 * Decodes the image with the given {@code imageUri}, sampling it down so
+	 * that its longest side is at most {@value #MAX_DECODE_SIZE_PX} pixels
+	 * where possible.
+	 *
+	 * @param imageUri the image to decode
+	 *
+	 * @return the decoded image or {@code null} if it could not be decoded
+	 *
+	 * @throws IOException if the image could not be read
+	 */
+	private Bitmap decode(Uri imageUri) throws IOException {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+
+		try (InputStream input = this.resolver.openInputStream(imageUri)) {
+			BitmapFactory.decodeStream(input, null, options);
+		}
+
+		if (options.outWidth <= 0 || options.outHeight <= 0) {
+			return null;
+		}
+
+		int longestSide = Math.max(options.outWidth, options.outHeight);
+		int sampleSize = 1;
+
+		while (longestSide / sampleSize > MAX_DECODE_SIZE_PX) {
+			sampleSize *= 2;
+		}
+
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = sampleSize;
+
+		try (InputStream input = this.resolver.openInputStream(imageUri)) {
+			return BitmapFactory.decodeStream(input, null, options);
+		}
+	}
+
+	/**
+	 * Reports the given {@code percent} of progress to the {@code listener}
+	 * on the main thread unless the {@code job} has been cancelled.
+	 *
+	 * @param job      the compression being performed
+	 * @param listener the listener to notify
+	 * @param percent  how much of the compression has been done
+	 */
+	private void reportProgress(CompressionJob job, ICompressionListener listener, int percent) {
+		this.mainHandler.post(() -> {
+			if (!job.isCancelled) {
+				listener.onProgress(percent);
+			}
+		});
+	}
+
+	/**
+	 * Runs the given {@code callback} on the main thread to finish the
+	 * {@code job} unless it has been cancelled.
+	 *
+	 * @param job      the compression being performed
+	 * @param callback the notification of the result of the compression
+	 */
+	private void deliver(CompressionJob job, Runnable callback) {
+		this.mainHandler.post(() -> {
+			if (!job.isCancelled) {
+				this.currentJob = null;
+				callback.run();
+			}
+		});
+	}
+
+	/**
+	 * The compression of a single image, which may be cancelled while it is
+	 * being performed.
+	 */
+	private static class CompressionJob {
+		private volatile boolean isCancelled;
+	}
+}
@@ -0,0 +1,157 @@
+package com.futuredevs.images;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * <p>The {@code ImageEncoder} class compresses images to fit within a
+ * maximum number of bytes at the highest quality that fits.</p>
+ *
+ * <p>An image is first scaled down so that its longest side is at most a
+ * given number of pixels, as a smaller image fits within the limit at a far
+ * higher quality. The quality is then found by a binary search rather than
+ * trying each quality in turn, writing every attempt into the same buffer so
+ * that only the final result is copied.</p>
+ *
+ * <p>Images may be encoded as JPEG or as WebP, which is usually a fraction
+ * of the size of a JPEG of the same quality.</p>
+ *
+ * <p>An encoder reuses its buffer, so it should only be used by one thread
+ * at a time.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public final class ImageEncoder {
+	/** The lowest quality an image is encoded at. */
+	private static final int MIN_QUALITY = 10;
+	private static final int MAX_QUALITY = 100;
+	private final int maxSizePx;
+	private final int maxBytes;
+	private final Format format;
+	/**
+	 * The stream every attempt is written to. Resetting the stream keeps its
+	 * array, so it only grows when an attempt is larger than any before.
+	 */
+	private final ByteArrayOutputStream buffer;
+
+	/**
+	 * The formats that an {@code ImageEncoder} is able to encode images as.
+	 */
+	public enum Format {
+		JPEG,
+		WEBP
+	}
+
+	/**
+	 * Creates an {@code ImageEncoder} which scales images so that their
+	 * longest side is at most {@code maxSizePx} pixels and encodes them in
+	 * the given {@code format} in at most {@code maxBytes} bytes.
+	 *
+	 * @param maxSizePx the maximum length of the longest side of an image
+	 * @param maxBytes  the maximum size of an encoded image in bytes
+	 * @param format    the format to encode images as
+	 */
+	public ImageEncoder(int maxSizePx, int maxBytes, Format format) {
+		this.maxSizePx = maxSizePx;
+		this.maxBytes = maxBytes;
+		this.format = format;
+		this.buffer = new ByteArrayOutputStream(maxBytes);
+	}
+
+	/**
+	 * Encodes the given {@code bitmap} at the highest quality for which it
+	 * fits within the maximum number of bytes of this encoder.
+	 *
+	 * @param bitmap the image to encode
+	 *
+	 * @return the bytes of the encoded image or {@code null} if the image
+	 *         does not fit even at the lowest quality
+	 */
+	public byte[] encode(Bitmap bitmap) {
+		Bitmap scaled = scaleToFit(bitmap, this.maxSizePx);
+		int low = MIN_QUALITY;
+		int high = MAX_QUALITY;
+		int bestQuality = -1;
+		int lastQuality = -1;
+
+		while (low <= high) {
+			int quality = (low + high) >>> 1;
+			this.compress(scaled, quality);
+			lastQuality = quality;
+
+			if (this.buffer.size() <= this.maxBytes) {
+				bestQuality = quality;
+				low = quality + 1;
+			}
+			else {
+				high = quality - 1;
+			}
+		}
+
+		if (bestQuality == -1) {
+			return null;
+		}
+
+		// The last attempt may have been too large, in which case the best
+		// quality that fit is encoded again.
+		if (lastQuality != bestQuality) {
+			this.compress(scaled, bestQuality);
+		}
+
+		return this.buffer.toByteArray();
+	}
+
+	/**
+	 * Returns the given {@code bitmap} scaled so that its longest side is at
+	 * most {@code maxSizePx} pixels, or the bitmap itself if it already is.
+	 *
+	 * @param bitmap    the image to scale
+	 * @param maxSizePx the maximum length of the longest side of the image
+	 *
+	 * @return the scaled image
+	 */
+	static Bitmap scaleToFit(Bitmap bitmap, int maxSizePx) {
+		int longestSide = Math.max(bitmap.getWidth(), bitmap.getHeight());
+
+		if (longestSide <= maxSizePx) {
+			return bitmap;
+		}
+
+		float scale = (float) maxSizePx / longestSide;
+		int width = Math.max(1, Math.round(bitmap.getWidth() * scale));
+		int height = Math.max(1, Math.round(bitmap.getHeight() * scale));
+		return Bitmap.createScaledBitmap(bitmap, width, height, true);
+	}
+
+	/**
+	 * Encodes the given {@code bitmap} at the given {@code quality} into the
+	 * buffer of this encoder, replacing its previous contents.
+	 *
+	 * @param bitmap  the image to encode
+	 * @param quality the quality to encode at
+	 */
+	private void compress(Bitmap bitmap, int quality) {
+		this.buffer.reset();
+		bitmap.compress(this.getCompressFormat(), quality, this.buffer);
+	}
+
+	/**
+	 * Returns the format that images are compressed as by Android.
+	 *
+	 * @return the compression format
+	 */
+	@SuppressWarnings("deprecation")
+	private Bitmap.CompressFormat getCompressFormat() {
+		if (this.format == Format.JPEG) {
+			return Bitmap.CompressFormat.JPEG;
+		}
+
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+			return Bitmap.CompressFormat.WEBP_LOSSY;
+		}
+
+		return Bitmap.CompressFormat.WEBP;
+	}
+}
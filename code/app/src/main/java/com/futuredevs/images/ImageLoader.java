@@ -0,0 +1,645 @@
+package com.futuredevs.images;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import com.futuredevs.database.Database;
+import com.futuredevs.database.DatabaseResult;
+import com.futuredevs.models.items.MoodPost;
+
+import java.io.File;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>The {@code ImageLoader} class loads the images and thumbnails of moods
+ * into {@code ImageView}s.</p>
+ *
+ * <p>Images are decoded on a background thread at no more than the size of
+ * the view they are shown in, reusing the memory of bitmaps that are no
+ * longer shown where possible. Decoded images are kept in a cache bounded
+ * by size and keyed by the document of the mood along with the hash of its
+ * image, so opening a mood again shows its image without decoding it.</p>
+ *
+ * <p>The bytes of images are also kept in a {@link DiskImageCache} within
+ * the application's cache directory, so images remain available without
+ * being downloaded again once the application has restarted. The decoded
+ * images are released when the system is low on memory, see
+ * {@link #onTrimMemory(int)}.</p>
+ *
+ * <p>Each view shows the result of the last load into it only, any earlier
+ * load that has not finished is cancelled. Views which are recycled, such as
+ * the rows of a list, should be passed to {@link #cancel(ImageView)}.</p>
+ *
+ * <p>The methods of this class must be called from the main thread.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public final class ImageLoader implements ComponentCallbacks2 {
+	/** The fraction of the available memory used to cache decoded images. */
+	private static final int CACHE_MEMORY_FRACTION = 8;
+	/** The fraction of the available memory used to hold reusable bitmaps. */
+	private static final int POOL_MEMORY_FRACTION = 16;
+	private static final int NUM_DECODE_THREADS = 2;
+	/** The name of the directory within the cache directory for images. */
+	private static final String DISK_CACHE_DIR = "images";
+	private static final long MAX_DISK_CACHE_BYTES = 32L * 1024 * 1024;
+	/** The size of the placeholders drawn from the blurhash of an image. */
+	private static final int BLUR_HASH_SIZE_PX = 32;
+	/** A Singleton instance for this loader. */
+	private static ImageLoader theLoader;
+	private final LruCache<String, Bitmap> cache;
+	private final BitmapPool pool;
+	private final ExecutorService decodeExecutor;
+	private final Handler mainHandler;
+	/** The cache of image bytes, created once a context is available. */
+	private DiskImageCache diskCache;
+	/** The load currently in progress for each view. */
+	private final Map<ImageView, LoadRequest> requests = new WeakHashMap<>();
+	/** The bitmap currently shown by each view. */
+	private final Map<ImageView, Bitmap> displayed = new WeakHashMap<>();
+	/**
+	 * The number of uses of each bitmap, each view showing it and the cache
+	 * holding it being one use. Bitmaps are compared by identity, and one
+	 * which is no longer referenced elsewhere is dropped along with its
+	 * count.
+	 */
+	private final Map<Bitmap, Integer> useCounts = new WeakHashMap<>();
+
+	private ImageLoader() {
+		long maxMemory = Runtime.getRuntime().maxMemory();
+		int cacheSizeKb = (int) (maxMemory / 1024 / CACHE_MEMORY_FRACTION);
+		this.cache = new LruCache<>(cacheSizeKb) {
+			@Override
+			protected int sizeOf(String key, Bitmap bitmap) {
+				return Math.max(1, bitmap.getAllocationByteCount() / 1024);
+			}
+
+			@Override
+			protected void entryRemoved(boolean evicted, String key,
+										Bitmap oldValue, Bitmap newValue) {
+				// Every put is a use, even of the bitmap already held.
+				releaseBitmap(oldValue);
+			}
+		};
+		this.pool = new BitmapPool(maxMemory / POOL_MEMORY_FRACTION);
+		this.decodeExecutor = Executors.newFixedThreadPool(NUM_DECODE_THREADS);
+		this.mainHandler = new Handler(Looper.getMainLooper());
+	}
+
+	/**
+	 * Returns the instance of the image loader.
+	 *
+	 * @return the image loader
+	 */
+	public static ImageLoader getInstance() {
+		if (theLoader == null) {
+			theLoader = new ImageLoader();
+		}
+
+		return theLoader;
+	}
+
+	/**
+	 * <p>Loads the full image of the given {@code post} into the given
+	 * {@code view}.</p>
+	 *
+	 * <p>Until the image has been decoded the post's thumbnail is shown if
+	 * it has been cached, otherwise a placeholder is drawn at once from the
+	 * post's blurhash. If the image has not been loaded with the post it is
+	 * requested from the database and then set as the image data of the
+	 * post.</p>
+	 *
+	 * @param post the post to show the image of
+	 * @param view the view to show the image in
+	 */
+	public void loadImage(MoodPost post, ImageView view) {
+		this.initialize(view.getContext());
+		LoadRequest request = this.startRequest(view);
+		String key = getKey(post, false);
+
+		if (this.showCached(key, view)) {
+			return;
+		}
+
+		String thumbnailKey = getKey(post, true);
+		Bitmap thumbnail = this.getCached(thumbnailKey);
+		this.display(view, (thumbnail != null) ? thumbnail : decodeBlurHash(post.getBlurHash()));
+
+		if (post.getImageData() != null) {
+			this.decodeInto(request, key, post.getImageData(), view, false, null);
+			return;
+		}
+
+		if (!post.hasImage()) {
+			this.finishRequest(view, null);
+			return;
+		}
+
+		if (thumbnail == null && post.getThumbnailData() != null) {
+			this.decodeInto(request, thumbnailKey, post.getThumbnailData(), view, true, null);
+		}
+
+		// The image is only requested if it has not been cached on disk.
+		this.decodeInto(request, key, null, view, false, () -> {
+			Database.getInstance().requestMoodImage(post, (result, images) -> {
+				if (result == DatabaseResult.SUCCESS && !images.isEmpty()) {
+					byte[] imageData = images.get(0);
+					post.setImageData(imageData);
+
+					if (this.isCurrent(request, view)) {
+						this.decodeInto(request, key, imageData, view, false, null);
+					}
+				}
+			});
+		});
+	}
+
+	/**
+	 * Loads the thumbnail of the given {@code post} into the given
+	 * {@code view}, clearing the view if the post has no thumbnail. The
+	 * post's blurhash is shown while the thumbnail is decoded.
+	 *
+	 * @param post the post to show the thumbnail of
+	 * @param view the view to show the thumbnail in
+	 */
+	public void loadThumbnail(MoodPost post, ImageView view) {
+		this.loadThumbnail(post, view, null);
+	}
+
+	/**
+	 * Loads the thumbnail of the given {@code post} into the given
+	 * {@code view} as {@link #loadThumbnail(MoodPost, ImageView)} does,
+	 * running {@code onLoaded} on the main thread once a thumbnail which had
+	 * to be decoded is shown. It is not run if the thumbnail was shown at
+	 * once from the cache, or if the load is cancelled.
+	 *
+	 * @param post     the post to show the thumbnail of
+	 * @param view     the view to show the thumbnail in
+	 * @param onLoaded run once the decoded thumbnail is shown, may be
+	 *                 {@code null}
+	 */
+	public void loadThumbnail(MoodPost post, ImageView view, Runnable onLoaded) {
+		this.initialize(view.getContext());
+		LoadRequest request = this.startRequest(view);
+		String key = getKey(post, true);
+
+		if (this.showCached(key, view)) {
+			return;
+		}
+
+		if (post.getThumbnailData() == null) {
+			this.finishRequest(view, null);
+			return;
+		}
+
+		this.display(view, decodeBlurHash(post.getBlurHash()));
+		request.onFinished = onLoaded;
+		this.decodeInto(request, key, post.getThumbnailData(), view, false, null);
+	}
+
+	/**
+	 * Cancels any load into the given {@code view} that has not finished.
+	 *
+	 * @param view the view to cancel the load of
+	 */
+	public void cancel(ImageView view) {
+		LoadRequest request = this.requests.remove(view);
+
+		if (request != null) {
+			request.cancel();
+		}
+	}
+
+	/**
+	 * Removes every decoded image from the cache along with the bitmaps held
+	 * for reuse. The bytes of images cached on disk are kept.
+	 */
+	public void clearCache() {
+		this.cache.evictAll();
+		this.pool.clear();
+	}
+
+	/**
+	 * Releases the decoded images as the system runs low on memory, halving
+	 * the cache while the application is running and clearing it once the
+	 * application is in the background.
+	 *
+	 * @param level the level of memory pressure
+	 */
+	@Override
+	public void onTrimMemory(int level) {
+		if (level >= TRIM_MEMORY_UI_HIDDEN) {
+			this.clearCache();
+		}
+		else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+			this.cache.trimToSize(this.cache.maxSize() / 2);
+			this.pool.clear();
+		}
+	}
+
+	@Override
+	public void onLowMemory() {
+		this.clearCache();
+	}
+
+	@Override
+	public void onConfigurationChanged(Configuration newConfig) {
+		// The decoded images do not depend on the configuration.
+	}
+
+	/**
+	 * Returns the number of times the given image would need to be halved to
+	 * fit within the requested size without being smaller than it. Decoding
+	 * with this sample size avoids holding pixels that cannot be shown.
+	 *
+	 * @param width     the width of the image
+	 * @param height    the height of the image
+	 * @param reqWidth  the width the image is shown at
+	 * @param reqHeight the height the image is shown at
+	 *
+	 * @return the sample size to decode the image with, a power of two
+	 */
+	static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+		int sampleSize = 1;
+
+		if (reqWidth <= 0 || reqHeight <= 0) {
+			return sampleSize;
+		}
+
+		while ((width / (sampleSize * 2)) >= reqWidth
+			   && (height / (sampleSize * 2)) >= reqHeight) {
+			sampleSize *= 2;
+		}
+
+		return sampleSize;
+	}
+
+	/**
+	 * Creates the disk cache within the cache directory of the application
+	 * of the given {@code context} and listens for low memory the first time
+	 * an image is loaded.
+	 *
+	 * @param context the context of a view being loaded into
+	 */
+	private void initialize(Context context) {
+		if (this.diskCache == null) {
+			Context appContext = context.getApplicationContext();
+			File directory = new File(appContext.getCacheDir(), DISK_CACHE_DIR);
+			this.diskCache = new DiskImageCache(directory, MAX_DISK_CACHE_BYTES);
+			appContext.registerComponentCallbacks(this);
+		}
+	}
+
+	/**
+	 * Cancels the previous load into the given {@code view} and starts a new
+	 * one.
+	 *
+	 * @param view the view being loaded into
+	 *
+	 * @return the new load of the view
+	 */
+	private LoadRequest startRequest(ImageView view) {
+		this.cancel(view);
+		LoadRequest request = new LoadRequest();
+		this.requests.put(view, request);
+		return request;
+	}
+
+	/**
+	 * Finishes the load into the given {@code view} by showing the given
+	 * {@code bitmap}.
+	 *
+	 * @param view   the view being loaded into
+	 * @param bitmap the bitmap to show or {@code null} to clear the view
+	 */
+	private void finishRequest(ImageView view, Bitmap bitmap) {
+		LoadRequest request = this.requests.remove(view);
+		this.display(view, bitmap);
+
+		if (request != null && request.onFinished != null) {
+			request.onFinished.run();
+		}
+	}
+
+	/**
+	 * Returns whether the given {@code request} is still the current load
+	 * into the given {@code view}.
+	 *
+	 * @param request the load to check
+	 * @param view    the view being loaded into
+	 *
+	 * @return {@code true} if the load has not been cancelled or replaced
+	 */
+	private boolean isCurrent(LoadRequest request, ImageView view) {
+		return !request.isCancelled && this.requests.get(view) == request;
+	}
+
+	/**
+	 * Shows the cached image with the given {@code key} in the given
+	 * {@code view} if there is one.
+	 *
+	 * @param key  the key of the image
+	 * @param view the view being loaded into
+	 *
+	 * @return {@code true} if the image was cached and is now shown
+	 */
+	private boolean showCached(String key, ImageView view) {
+		Bitmap cached = this.getCached(key);
+
+		if (cached != null) {
+			this.finishRequest(view, cached);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the cached image with the given {@code key}.
+	 *
+	 * @param key the key of the image, may be {@code null}
+	 *
+	 * @return the decoded image or {@code null} if it is not cached
+	 */
+	private Bitmap getCached(String key) {
+		return (key != null) ? this.cache.get(key) : null;
+	}
+
+	/**
+	 * <p>Decodes the given {@code data} on a background thread, caching it
+	 * under the given {@code key} and showing it in the given {@code view}
+	 * as long as the {@code request} is still current.</p>
+	 *
+	 * <p>If {@code data} is {@code null} the bytes of the image are read
+	 * from the disk cache instead, running {@code onMissing} on the main
+	 * thread if they have not been cached. Otherwise the bytes are written to
+	 * the disk cache if they are not already in it.</p>
+	 *
+	 * @param request       the load the image is decoded for
+	 * @param key           the key to cache the image under or {@code null}
+	 *                      if it should not be cached
+	 * @param data          the bytes of the image or {@code null} to read
+	 *                      them from the disk cache
+	 * @param view          the view being loaded into
+	 * @param isPlaceholder whether the image is shown only until another
+	 *                      image of the same load has been decoded
+	 * @param onMissing     run if the image is not in the disk cache, may
+	 *                      be {@code null} if {@code data} is given
+	 */
+	private void decodeInto(LoadRequest request, String key, byte[] data, ImageView view,
+							boolean isPlaceholder, Runnable onMissing) {
+		int[] targetSize = getTargetSize(view);
+		DiskImageCache diskCache = this.diskCache;
+		request.task = this.decodeExecutor.submit(() -> {
+			if (request.isCancelled) {
+				return;
+			}
+
+			byte[] imageData = data;
+
+			if (key != null && imageData == null) {
+				imageData = diskCache.get(key);
+			}
+			else if (key != null && !diskCache.contains(key)) {
+				diskCache.put(key, imageData);
+			}
+
+			if (imageData == null) {
+				this.mainHandler.post(() -> {
+					if (this.isCurrent(request, view)) {
+						onMissing.run();
+					}
+				});
+				return;
+			}
+
+			Bitmap bitmap = this.decode(imageData, targetSize[0], targetSize[1]);
+
+			this.mainHandler.post(() -> {
+				if (bitmap == null) {
+					return;
+				}
+
+				// The bitmap is used until it has been cached and shown, so
+				// that it is not pooled in between.
+				this.retainBitmap(bitmap);
+
+				if (key != null) {
+					this.retainBitmap(bitmap);
+					this.cache.put(key, bitmap);
+				}
+
+				if (this.isCurrent(request, view)) {
+					if (isPlaceholder) {
+						this.display(view, bitmap);
+					}
+					else {
+						this.finishRequest(view, bitmap);
+					}
+				}
+
+				this.releaseBitmap(bitmap);
+			});
+		});
+	}
+
+	/**
+	 * Decodes the given {@code data} sampled down to the given size, reusing
+	 * a bitmap from the pool if there is one large enough.
+	 *
+	 * @param data      the bytes of the image
+	 * @param reqWidth  the width the image is shown at
+	 * @param reqHeight the height the image is shown at
+	 *
+	 * @return the decoded image or {@code null} if it could not be decoded
+	 */
+	private Bitmap decode(byte[] data, int reqWidth, int reqHeight) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		BitmapFactory.decodeByteArray(data, 0, data.length, options);
+
+		int sampleSize = calculateInSampleSize(options.outWidth, options.outHeight,
+											   reqWidth, reqHeight);
+		int width = (options.outWidth + sampleSize - 1) / sampleSize;
+		int height = (options.outHeight + sampleSize - 1) / sampleSize;
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = sampleSize;
+		options.inMutable = true;
+		options.inBitmap = this.pool.get(width, height, Bitmap.Config.ARGB_8888);
+
+		try {
+			return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+		}
+		catch (IllegalArgumentException e) {
+			// The pooled bitmap could not be reused for this image.
+			options.inBitmap = null;
+			return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+		}
+	}
+
+	/**
+	 * Shows the given {@code bitmap} in the given {@code view}, releasing
+	 * the bitmap it showed before.
+	 *
+	 * @param view   the view to show the bitmap in
+	 * @param bitmap the bitmap to show or {@code null} to clear the view
+	 */
+	private void display(ImageView view, Bitmap bitmap) {
+		Bitmap previous;
+
+		if (bitmap != null) {
+			view.setImageBitmap(bitmap);
+			previous = this.displayed.put(view, bitmap);
+		}
+		else {
+			view.setImageDrawable(null);
+			previous = this.displayed.remove(view);
+		}
+
+		if (previous == bitmap) {
+			return;
+		}
+
+		if (bitmap != null) {
+			this.retainBitmap(bitmap);
+		}
+
+		if (previous != null) {
+			this.releaseBitmap(previous);
+		}
+	}
+
+	/**
+	 * Adds a use of the given {@code bitmap}, which keeps it from being
+	 * pooled until the use is released.
+	 *
+	 * @param bitmap the bitmap being used
+	 */
+	private void retainBitmap(Bitmap bitmap) {
+		this.useCounts.merge(bitmap, 1, Integer::sum);
+	}
+
+	/**
+	 * Removes a use of the given {@code bitmap}, adding it to the pool to
+	 * be reused once it is neither shown by any view nor held by the cache.
+	 *
+	 * @param bitmap the bitmap which may no longer be used
+	 */
+	private void releaseBitmap(Bitmap bitmap) {
+		Integer useCount = this.useCounts.get(bitmap);
+
+		if (useCount != null && useCount > 1) {
+			this.useCounts.put(bitmap, useCount - 1);
+		}
+		else {
+			this.useCounts.remove(bitmap);
+			this.pool.put(bitmap);
+		}
+	}
+
+	/**
+	 * Draws the image described by the given blurhash. The placeholder is
+	 * small enough to be drawn on the main thread, the view scales it up.
+	 *
+	 * @param blurHash the blurhash of an image, may be {@code null}
+	 *
+	 * @return the drawn placeholder or {@code null} if there is no blurhash
+	 *         or it is not valid
+	 */
+	private static Bitmap decodeBlurHash(String blurHash) {
+		if (blurHash == null) {
+			return null;
+		}
+
+		try {
+			int[] pixels = BlurHash.decode(blurHash, BLUR_HASH_SIZE_PX, BLUR_HASH_SIZE_PX, 1f);
+			return Bitmap.createBitmap(pixels, BLUR_HASH_SIZE_PX, BLUR_HASH_SIZE_PX,
+									   Bitmap.Config.ARGB_8888);
+		}
+		catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the key of the image, or thumbnail, of the given {@code post}
+	 * within the cache. The key includes the hash of the image so that an
+	 * edited mood does not show its previous image.
+	 *
+	 * @param post        the post the image belongs to
+	 * @param isThumbnail whether the key is of the thumbnail of the image
+	 *
+	 * @return the key of the image or {@code null} if the post has not been
+	 *         stored and so cannot be cached
+	 */
+	private static String getKey(MoodPost post, boolean isThumbnail) {
+		if (post.getDocumentId() == null || post.getDocumentId().isEmpty()) {
+			return null;
+		}
+
+		String version = (post.getImageHash() != null) ? post.getImageHash() : "inline";
+		return post.getDocumentId() + "_" + version + (isThumbnail ? "_thumbnail" : "");
+	}
+
+	/**
+	 * Returns the size the given {@code view} shows its image at. Views that
+	 * have not been laid out yet use the size they are given by their layout
+	 * or otherwise the size of the screen.
+	 *
+	 * @param view the view to obtain the size of
+	 *
+	 * @return the width and height of the view
+	 */
+	private static int[] getTargetSize(ImageView view) {
+		DisplayMetrics metrics = view.getResources().getDisplayMetrics();
+		ViewGroup.LayoutParams params = view.getLayoutParams();
+		int width = view.getWidth();
+		int height = view.getHeight();
+
+		if (width <= 0) {
+			width = (params != null && params.width > 0) ? params.width : metrics.widthPixels;
+		}
+
+		if (height <= 0) {
+			height = (params != null && params.height > 0) ? params.height : metrics.heightPixels;
+		}
+
+		return new int[] {width, height};
+	}
+
+	/**
+	 * A single load of an image into a view, which may be cancelled while
+	 * it is being decoded.
+	 */
+	private static class LoadRequest {
+		private Future<?> task;
+		private volatile boolean isCancelled;
+		/** Run once the load finishes, may be {@code null}. */
+		private Runnable onFinished;
+
+		/**
+		 * Cancels this load, skipping the decoding of its image if it has
+		 * not yet started.
+		 */
+		private void cancel() {
+			this.isCancelled = true;
+
+			if (this.task != null) {
+				this.task.cancel(false);
+			}
+		}
+	}
+}
@@ -0,0 +1,415 @@
+package com.futuredevs.models;
+
+import com.futuredevs.database.Database;
+import com.futuredevs.database.DatabaseResult;
+import com.futuredevs.database.IDocument;
+import com.futuredevs.database.queries.DatabaseQuery;
+import com.futuredevs.database.queries.IQueryListener;
+import com.futuredevs.geo.GeoHash;
+import com.futuredevs.geo.MoodTileCache;
+import com.futuredevs.models.items.MoodPost;
+import com.futuredevs.models.items.UserProfile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>The {@code ModelMoodTiles} class represents a model containing the
+ * located moods of a user and of the users they follow within an area of
+ * the map, such as the area visible on screen.</p>
+ *
+ * <p>The moods are loaded a geohash cell, or tile, at a time and the loaded
+ * tiles are held in a {@link MoodTileCache}, so that only the tiles of the
+ * area which have not been loaded recently are queried when the area
+ * changes. The area may be limited to a circle, in which case only the tiles
+ * overlapping both the area and the circle are loaded. Only as many tiles
+ * as the cache holds are loaded for an area, so an area covering more tiles,
+ * such as the whole world, is only partly loaded. Listeners are notified
+ * each time a tile finishes loading.</p>
+ *
+ * <p>Moods posted before their geohash was stored are only found by a tile's
+ * query once their owner's data has been migrated. Until then, a tile whose
+ * query finds no moods instead holds the moods within it among the recent
+ * moods of the users who have not been migrated, which are loaded once an
+ * empty tile is found and expire along with the tiles.</p>
+ *
+ * @author Spencer Schmidt
+ */
+public class ModelMoodTiles extends ModelBase<MoodPost> {
+	/** The number of characters of the geohash of a tile, roughly 39 km by 20 km. */
+	private static final int TILE_PRECISION = 4;
+	/** The maximum number of tiles held in memory. */
+	private static final int MAX_TILES = 64;
+	/** The time for which a loaded tile is used before being loaded again. */
+	private static final long TILE_TTL_MILLIS = 5 * 60 * 1000;
+	/** The maximum number of moods of each query for moods without a geohash. */
+	private static final int MAX_UNINDEXED_POSTS = 100;
+	private final String username;
+	private final MoodTileCache tileCache = new MoodTileCache(MAX_TILES, TILE_TTL_MILLIS);
+	/** The tiles currently being loaded. */
+	private final Set<String> loadingCells = new HashSet<>();
+	private Set<String> areaCells = Collections.emptySet();
+	/** The tiles overlapping the circle, {@code null} if there is no circle. */
+	private Set<String> circleCells;
+	/** The tiles whose query found no moods. */
+	private final Set<String> emptyCells = new HashSet<>();
+	/**
+	 * The recent located moods of the users whose data has not been
+	 * migrated, whether or not they have a geohash, {@code null} until they
+	 * have been loaded.
+	 */
+	private List<MoodPost> unindexedPosts;
+	/** The time at which {@link #unindexedPosts} were loaded. */
+	private long unindexedLoadTime;
+	private boolean isLoadingUnindexed;
+	/** Whether the data of the user and of every user they follow has been migrated. */
+	private boolean isMigrated;
+
+	/**
+	 * Creates a {@code ModelMoodTiles} containing the located moods of the
+	 * user given by {@code username} and of the users they follow.
+	 *
+	 * @param username the name of the user to obtain the moods of
+	 */
+	public ModelMoodTiles(String username) {
+		this.username = username;
+	}
+
+	/**
+	 * Sets the area of the map whose moods are contained in this model to
+	 * the given bounds. An area whose eastern edge is to the west of its
+	 * western edge crosses the antimeridian.
+	 *
+	 * @param south the southern edge of the area
+	 * @param west  the western edge of the area
+	 * @param north the northern edge of the area
+	 * @param east  the eastern edge of the area
+	 */
+	public void setArea(double south, double west, double north, double east) {
+		if (east < west) {
+			east += 360;
+		}
+
+		this.areaCells = GeoHash.getCellsWithin(south, west, north, east, TILE_PRECISION);
+	}
+
+	/**
+	 * Limits the area of this model to the tiles overlapping the circle of
+	 * the given {@code radiusKm} around a location.
+	 *
+	 * @param latitude  the latitude of the centre of the circle
+	 * @param longitude the longitude of the centre of the circle
+	 * @param radiusKm  the radius of the circle in kilometres
+	 */
+	public void setCircle(double latitude, double longitude, double radiusKm) {
+		double[] deltas = GeoHash.getDegreesWithin(latitude, radiusKm);
+		this.circleCells = GeoHash.getCellsWithin(latitude - deltas[0], longitude - deltas[1],
+												  latitude + deltas[0], longitude + deltas[1],
+												  TILE_PRECISION);
+	}
+
+	/**
+	 * Updates the loaded tiles with the user's own moods which have changed,
+	 * removing the {@code removed} moods and adding the {@code added} moods,
+	 * so that the user's posts, edits and deletions are shown without loading
+	 * any tile again. An edited mood is given both as it was and as it now
+	 * is. Listeners are notified of the updated moods.
+	 *
+	 * @param removed the moods which were removed or replaced
+	 * @param added   the moods which were added or edited
+	 */
+	public void updatePosts(Collection<MoodPost> removed, Collection<MoodPost> added) {
+		for (MoodPost post : removed) {
+			if (post.hasValidLocation()) {
+				this.tileCache.remove(this.getCell(post), post);
+			}
+
+			// The loaded moods always have a document id.
+			if (this.unindexedPosts != null) {
+				this.unindexedPosts.removeIf(held -> held.getDocumentId().equals(post.getDocumentId()));
+			}
+		}
+
+		for (MoodPost post : added) {
+			if (post.hasValidLocation()) {
+				this.tileCache.add(this.getCell(post), post);
+			}
+		}
+
+		this.setData(this.tileCache.getPosts(this.getCells()));
+		this.notifyModelChanged();
+	}
+
+	/**
+	 * Sets the data of this model to the moods of the loaded tiles of the
+	 * area and loads the tiles of the area which are not loaded, or have
+	 * expired, and are not already being loaded.
+	 */
+	@Override
+	public void requestData() {
+		Set<String> cells = this.getCells();
+		long now = System.currentTimeMillis();
+		this.setData(this.tileCache.getPosts(cells));
+		this.notifyModelChanged();
+
+		for (String cell : cells) {
+			if (!this.tileCache.isFresh(cell, now) && this.loadingCells.add(cell)) {
+				this.loadTile(cell);
+			}
+		}
+	}
+
+	/**
+	 * Returns the tiles of the area overlapping the circle, if there is one,
+	 * up to the number of tiles held by the cache.
+	 *
+	 * @return the geohashes of the tiles of the area
+	 */
+	private Set<String> getCells() {
+		Set<String> cells = new LinkedHashSet<>();
+
+		for (String cell : this.areaCells) {
+			if (cells.size() == MAX_TILES) {
+				break;
+			}
+
+			if (this.circleCells == null || this.circleCells.contains(cell)) {
+				cells.add(cell);
+			}
+		}
+
+		return cells;
+	}
+
+	/**
+	 * Returns the geohash of the tile the given located {@code post} is
+	 * within.
+	 *
+	 * @param post the mood to find the tile of
+	 *
+	 * @return the geohash of the mood's tile
+	 */
+	private String getCell(MoodPost post) {
+		return GeoHash.encode(post.getLatitude(), post.getLongitude(), TILE_PRECISION);
+	}
+
+	/**
+	 * Queries the moods of the tile with the given geohash, storing them in
+	 * the cache and notifying listeners once they are obtained.
+	 *
+	 * @param cell the geohash of the tile
+	 */
+	private void loadTile(String cell) {
+		DatabaseQuery query = new DatabaseQuery.QueryBuilder()
+				.setType(DatabaseQuery.QueryType.CELL_POSTS)
+				.setSourceUser(this.username)
+				.setGeohash(cell)
+				.build();
+		Database.getInstance().performQuery(query, (documents, result) -> {
+			this.loadingCells.remove(cell);
+
+			// A tile which failed to load is loaded again on the next request.
+			if (result != DatabaseResult.SUCCESS) {
+				return;
+			}
+
+			List<MoodPost> posts = new ArrayList<>();
+
+			for (IDocument snapshot : documents) {
+				posts.add(Database.getInstance().parseMood(snapshot));
+			}
+
+			if (posts.isEmpty()) {
+				this.emptyCells.add(cell);
+				posts = this.getUnindexedPosts(cell);
+			}
+			else {
+				this.emptyCells.remove(cell);
+			}
+
+			this.tileCache.put(cell, posts, System.currentTimeMillis());
+			Set<String> cells = this.getCells();
+
+			if (cells.contains(cell)) {
+				this.setData(this.tileCache.getPosts(cells));
+				this.notifyModelChanged();
+			}
+		});
+	}
+
+	/**
+	 * Returns the moods within the tile with the given geohash among the
+	 * moods found without their geohash, loading those moods if they have
+	 * not been loaded or have expired.
+	 *
+	 * @param cell the geohash of the tile
+	 *
+	 * @return the moods within the tile, empty if they are not yet loaded
+	 */
+	private List<MoodPost> getUnindexedPosts(String cell) {
+		List<MoodPost> posts = new ArrayList<>();
+
+		if (this.isMigrated) {
+			return posts;
+		}
+
+		if (this.unindexedPosts == null
+				|| System.currentTimeMillis() - this.unindexedLoadTime >= TILE_TTL_MILLIS) {
+			this.loadUnindexedPosts();
+
+			if (this.unindexedPosts == null) {
+				return posts;
+			}
+		}
+
+		for (MoodPost post : this.unindexedPosts) {
+			if (this.getCell(post).equals(cell)) {
+				posts.add(post);
+			}
+		}
+
+		return posts;
+	}
+
+	/**
+	 * Obtains the profiles of the user and of the users they follow to find
+	 * those whose data has not been migrated, and then loads the recent
+	 * moods of those users. Once every user has been migrated the moods are
+	 * never loaded again, as the moods of a newly followed user are copied
+	 * into the feed with their geohash.
+	 */
+	private void loadUnindexedPosts() {
+		if (this.isLoadingUnindexed) {
+			return;
+		}
+
+		this.isLoadingUnindexed = true;
+		Database.getInstance().requestUserInformation(this.username, (result, profiles) -> {
+			if (result != DatabaseResult.SUCCESS) {
+				this.isLoadingUnindexed = false;
+				return;
+			}
+
+			UserProfile profile = profiles.get(0);
+			List<String> following = profile.getFollowing();
+			Set<String> unmigrated = new HashSet<>();
+			int[] remainingProfiles = {following.size()};
+			boolean[] hasFailed = {false};
+
+			if (!profile.isMigrated()) {
+				unmigrated.add(this.username);
+			}
+
+			if (following.isEmpty()) {
+				this.queryUnindexedPosts(unmigrated);
+				return;
+			}
+
+			for (String followee : following) {
+				Database.getInstance().requestUserInformation(followee, (r, followees) -> {
+					if (r != DatabaseResult.SUCCESS) {
+						hasFailed[0] = true;
+					}
+					else if (!followees.get(0).isMigrated()) {
+						unmigrated.add(followee);
+					}
+
+					if (--remainingProfiles[0] > 0) {
+						return;
+					}
+
+					if (hasFailed[0]) {
+						this.isLoadingUnindexed = false;
+					}
+					else {
+						this.queryUnindexedPosts(unmigrated);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Queries the most recent moods of the user, if their data has not been
+	 * migrated, and of their feed, if any user they follow has not been
+	 * migrated, keeping the located moods of the {@code unmigrated} users,
+	 * and then fills the empty tiles of the area with the moods within them,
+	 * notifying listeners once they are obtained.
+	 *
+	 * @param unmigrated the names of the users whose data has not been migrated
+	 */
+	private void queryUnindexedPosts(Set<String> unmigrated) {
+		List<DatabaseQuery.QueryType> types = new ArrayList<>();
+
+		if (unmigrated.contains(this.username)) {
+			types.add(DatabaseQuery.QueryType.USER_POSTS);
+		}
+
+		// Any other user who has not been migrated is one the user follows.
+		if (unmigrated.size() > types.size()) {
+			types.add(DatabaseQuery.QueryType.FOLLOWING_FEED);
+		}
+
+		if (types.isEmpty()) {
+			this.isMigrated = true;
+			this.isLoadingUnindexed = false;
+			this.unindexedPosts = null;
+			return;
+		}
+
+		List<MoodPost> posts = new ArrayList<>();
+		int[] remainingQueries = {types.size()};
+		boolean[] hasFailed = {false};
+		IQueryListener listener = (documents, result) -> {
+			if (result != DatabaseResult.SUCCESS) {
+				hasFailed[0] = true;
+			}
+
+			for (IDocument snapshot : documents) {
+				MoodPost post = Database.getInstance().parseMood(snapshot);
+
+				if (post.hasValidLocation() && unmigrated.contains(post.getUser())) {
+					posts.add(post);
+				}
+			}
+
+			if (--remainingQueries[0] > 0) {
+				return;
+			}
+
+			this.isLoadingUnindexed = false;
+
+			// The moods are loaded again once another empty tile is found.
+			if (hasFailed[0]) {
+				return;
+			}
+
+			this.unindexedPosts = posts;
+			this.unindexedLoadTime = System.currentTimeMillis();
+			Set<String> cells = this.getCells();
+
+			for (String cell : cells) {
+				if (this.emptyCells.contains(cell)) {
+					this.tileCache.put(cell, this.getUnindexedPosts(cell), this.unindexedLoadTime);
+				}
+			}
+
+			this.setData(this.tileCache.getPosts(cells));
+			this.notifyModelChanged();
+		};
+
+		for (DatabaseQuery.QueryType type : types) {
+			DatabaseQuery query = new DatabaseQuery.QueryBuilder()
+					.setType(type)
+					.setSourceUser(this.username)
+					.setPageSize(MAX_UNINDEXED_POSTS)
+					.build();
+			Database.getInstance().performQuery(query, listener);
+		}
+	}
+}
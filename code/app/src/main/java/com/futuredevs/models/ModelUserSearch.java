@@ -3,12 +3,12 @@ package com.futuredevs.models;
 import com.futuredevs.database.Database;
 import com.futuredevs.database.DatabaseFields;
 import com.futuredevs.database.DatabaseResult;
+import com.futuredevs.database.IDocument;
 import com.futuredevs.database.IQueryResult;
 import com.futuredevs.database.queries.DatabaseQuery;
 import com.futuredevs.database.queries.IQueryListener;
 import com.futuredevs.models.items.UserProfile;
 import com.futuredevs.models.items.UserSearchResult;
-import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -58,7 +58,7 @@ public class ModelUserSearch extends ModelBase<UserSearchResult> implements IQue
 	}
 
 	@Override
-	public void onQueryResult(List<DocumentSnapshot> documents, DatabaseResult result) {
+	public void onQueryResult(List<IDocument> documents, DatabaseResult result) {
 		List<UserSearchResult> searchResults = new ArrayList<>();
 
 		if (result == DatabaseResult.SUCCESS) {
@@ -66,7 +66,7 @@ public class ModelUserSearch extends ModelBase<UserSearchResult> implements IQue
 				if (r == DatabaseResult.SUCCESS) {
 					UserProfile user = data.get(0);
 
-					for (DocumentSnapshot snapshot : documents) {
+					for (IDocument snapshot : documents) {
 						String name = snapshot.getString(DatabaseFields.USER_NAME_FLD);
 						UserSearchResult searchResult;
 
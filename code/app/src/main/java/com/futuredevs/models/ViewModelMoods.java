@@ -8,26 +8,69 @@ import androidx.lifecycle.ViewModelProvider;
 import com.futuredevs.database.Database;
 import com.futuredevs.database.DatabaseFields;
 import com.futuredevs.database.DatabaseResult;
+import com.futuredevs.database.IDocument;
 import com.futuredevs.database.IResultListener;
 import com.futuredevs.database.queries.DatabaseQuery;
-import com.futuredevs.database.queries.IQueryListener;
+import com.futuredevs.database.queries.IListenerRegistration;
+import com.futuredevs.database.queries.MoodChange;
 import com.futuredevs.models.items.MoodPost;
-import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * The {@code ViewModelMoods} class is a model that holds a list of
+ * <p>The {@code ViewModelMoods} class is a model that holds a list of
  * {@code MoodPost} objects associated with a user. Provides methods
  * for requesting the mood posts for the user, updating moods, and
- * removing moods.
+ * removing moods.</p>
+ *
+ * <p>The moods of the user are obtained in pages ordered from newest to
+ * oldest. {@link #requestData()} obtains the first page of moods while
+ * {@link #loadNextPage()} appends the next page of moods to the data held
+ * by the model.</p>
+ *
+ * <p>A live model additionally listens to the moods of its first page and
+ * any newer moods, applying only the moods which were added, edited or
+ * removed to its data, so changes made to the moods do not require
+ * requesting the data again. Older pages are not listened to, so changes
+ * made through the model to their moods are applied to its data
+ * directly.</p>
  *
  * @author Spencer Schmidt
  */
-public class ViewModelMoods extends ViewModel implements IQueryListener {
+public class ViewModelMoods extends ViewModel {
+	/** The number of moods to obtain in a single page. */
+	public static final int PAGE_SIZE = 25;
+	/** Orders posts from newest to oldest. */
+	private static final Comparator<MoodPost> NEWEST_FIRST
+			= (first, second) -> Long.compare(second.getTimePosted(), first.getTimePosted());
 	private final String username;
+	/** Whether changes to the user's moods are listened to. */
+	private final boolean isLive;
 	private MutableLiveData<List<MoodPost>> moodData = new MutableLiveData<>();
+	/** The posts from every page that has been loaded so far. */
+	private final List<MoodPost> loadedPosts = new ArrayList<>();
+	/** The last document of the most recently loaded page. */
+	private IDocument lastPageCursor;
+	private boolean hasMorePages = true;
+	private boolean isLoadingPage;
+	/**
+	 * Incremented each time the data is requested from the first page so
+	 * that the results of pages requested before a refresh are discarded.
+	 */
+	private int requestGeneration;
+	/** The registration of the listener for changes to the loaded moods. */
+	private IListenerRegistration changeRegistration;
+	/** The post time of the oldest mood listened to, 0 if every mood is. */
+	private long listenedSince;
+	/** Whether the listener has yet to give its first changes. */
+	private boolean isAwaitingFirstChanges;
 
 	/**
 	 * Creates a {@code ViewModelMoods} which acts as a representation of a
@@ -37,22 +80,93 @@ public class ViewModelMoods extends ViewModel implements IQueryListener {
 	 * @param username the name of the user to model the moods of
 	 */
 	public ViewModelMoods(String username) {
+		this(username, false);
+	}
+
+	/**
+	 * Creates a {@code ViewModelMoods} which acts as a representation of a
+	 * model containing the mood posts of the user given by {@code username}.
+	 * If {@code isLive} is {@code true} the model will keep its data up to
+	 * date with the changes made to the user's moods. Also requests the
+	 * initial data for the given user.
+	 *
+	 * @param username the name of the user to model the moods of
+	 * @param isLive   whether to listen to changes to the user's moods
+	 */
+	public ViewModelMoods(String username, boolean isLive) {
 		this.username = username;
+		this.isLive = isLive;
 		this.requestData();
 	}
 
 	/**
-	 * Requests the most up to date data for the model. On obtaining new data,
-	 * the model data will notify observers of the new data.
+	 * Requests the most up to date data for the model starting from the
+	 * first page of moods. On obtaining new data, the model data will notify
+	 * observers of the new data. A live model that is already listening to
+	 * the user's moods is up to date, so its current data is given to the
+	 * observers instead.
 	 *
 	 * @see #getData()
 	 */
 	public void requestData() {
+		if (this.changeRegistration != null) {
+			this.setModelData(new ArrayList<>(this.loadedPosts));
+			return;
+		}
+
+		this.requestGeneration++;
+		this.lastPageCursor = null;
+		this.hasMorePages = true;
+		this.requestPage(true);
+	}
+
+	/**
+	 * Requests the next page of moods for the user if there are any remaining
+	 * and no page is currently being loaded. The moods of the page will be
+	 * appended to the existing data of the model.
+	 */
+	public void loadNextPage() {
+		if (this.hasMorePages && !this.isLoadingPage) {
+			this.requestPage(false);
+		}
+	}
+
+	/**
+	 * Returns whether or not there may be more pages of moods that have not
+	 * yet been loaded into the model.
+	 *
+	 * @return {@code true} if there may be more moods to load, {@code false}
+	 * 		   otherwise
+	 */
+	public boolean hasMorePages() {
+		return this.hasMorePages;
+	}
+
+	/**
+	 * Performs the query for a page of moods beginning after the last loaded
+	 * page or from the first page if {@code isFirstPage} is {@code true}.
+	 *
+	 * @param isFirstPage whether the first page of moods is being requested
+	 */
+	private void requestPage(boolean isFirstPage) {
+		final int generation = this.requestGeneration;
+		this.isLoadingPage = true;
 		DatabaseQuery.QueryBuilder builder = new DatabaseQuery.QueryBuilder();
 		builder.setType(DatabaseQuery.QueryType.USER_POSTS)
-			   .setSourceUser(this.username);
+			   .setSourceUser(this.username)
+			   .setPageSize(PAGE_SIZE)
+			   .setStartAfter(this.lastPageCursor);
 		DatabaseQuery query = builder.build();
-		Database.getInstance().performQuery(query, this);
+		Database.getInstance().performQuery(query, (documents, result) -> {
+			// A newer request has been made since this page was requested
+			// so the results no longer apply to the current data.
+			if (generation != requestGeneration) {
+				return;
+			}
+
+			isLoadingPage = false;
+			onPageResult(documents, result, isFirstPage);
+		});
 	}
 
 	private void setModelData(List<MoodPost> posts) {
@@ -69,7 +183,8 @@ public class ViewModelMoods extends ViewModel implements IQueryListener {
 	 */
 	public void addMood(MoodPost post, IResultListener listener) {
 		Database.getInstance().addMood(this.username, post, r -> {
-			if (r == DatabaseResult.SUCCESS) {
+			// A live model is given the change by its listener.
+			if (r == DatabaseResult.SUCCESS && !ViewModelMoods.this.isLive) {
 				ViewModelMoods.this.requestData();
 			}
 
@@ -87,9 +202,14 @@ public class ViewModelMoods extends ViewModel implements IQueryListener {
 	 */
 	public void updateMood(MoodPost post, IResultListener listener) {
 		Database.getInstance().editMood(this.username, post, r -> {
-			if (r == DatabaseResult.SUCCESS) {
+			// A live model is given the change by its listener unless the
+			// mood is older than the moods listened to.
+			if (r == DatabaseResult.SUCCESS && !ViewModelMoods.this.isLive) {
 				ViewModelMoods.this.requestData();
 			}
+			else if (r == DatabaseResult.SUCCESS && !ViewModelMoods.this.isListenedTo(post)) {
+				ViewModelMoods.this.replaceLoadedPost(post.getDocumentId(), post);
+			}
 
 			listener.onResult(r);
 		});
@@ -105,9 +225,14 @@ public class ViewModelMoods extends ViewModel implements IQueryListener {
 	 */
 	public void removeMood(MoodPost post, IResultListener listener) {
 		Database.getInstance().removeMood(this.username, post, r -> {
-			if (r == DatabaseResult.SUCCESS) {
+			// A live model is given the change by its listener unless the
+			// mood is older than the moods listened to.
+			if (r == DatabaseResult.SUCCESS && !ViewModelMoods.this.isLive) {
 				ViewModelMoods.this.requestData();
 			}
+			else if (r == DatabaseResult.SUCCESS && !ViewModelMoods.this.isListenedTo(post)) {
+				ViewModelMoods.this.replaceLoadedPost(post.getDocumentId(), null);
+			}
 
 			listener.onResult(r);
 		});
@@ -123,28 +248,206 @@ public class ViewModelMoods extends ViewModel implements IQueryListener {
 		return this.moodData;
 	}
 
-	@Override
-	public void onQueryResult(List<DocumentSnapshot> documents, DatabaseResult result) {
-		List<MoodPost> posts = new ArrayList<>();
+	/**
+	 * Parses the moods from the given {@code documents} and adds them to the
+	 * data of this model, replacing the existing data if {@code isFirstPage}.
+	 *
+	 * @param documents   the documents of the obtained page
+	 * @param result      the result of the page query
+	 * @param isFirstPage whether the documents are for the first page
+	 */
+	private void onPageResult(List<IDocument> documents,
+							  DatabaseResult result,
+							  boolean isFirstPage) {
+		if (result == DatabaseResult.FAILURE) {
+			return;
+		}
 
-		if (result != DatabaseResult.FAILURE) {
-			for (DocumentSnapshot snapshot : documents) {
-				MoodPost post = Database.getInstance().parseMood(snapshot);
+		if (isFirstPage) {
+			this.loadedPosts.clear();
+		}
 
-				if (snapshot.contains(DatabaseFields.MOOD_VIEW_STATUS_FLD)) {
-					boolean isPrivated = snapshot.getBoolean(DatabaseFields.MOOD_VIEW_STATUS_FLD);
+		for (IDocument snapshot : documents) {
+			MoodPost post = this.parseVisibleMood(snapshot);
 
-					if (isPrivated && !this.username.equals(Database.getInstance().getCurrentUser())) {
-						continue;
-					}
+			if (post != null) {
+				this.loadedPosts.add(post);
+			}
+		}
 
-					post.setPrivateStatus(isPrivated);
-				}
+		if (!documents.isEmpty()) {
+			this.lastPageCursor = documents.get(documents.size() - 1);
+		}
+
+		this.hasMorePages = (documents.size() == PAGE_SIZE);
+		this.setModelData(new ArrayList<>(this.loadedPosts));
+
+		if (this.isLive && isFirstPage) {
+			this.listenForChanges();
+		}
+	}
+
+	/**
+	 * Returns the {@code MoodPost} stored in the given {@code snapshot} or
+	 * {@code null} if the mood is private and this model is not for the
+	 * current user.
+	 *
+	 * @param snapshot the snapshot to parse the mood from
+	 *
+	 * @return the mood of the snapshot or {@code null} if it is not visible
+	 */
+	private MoodPost parseVisibleMood(IDocument snapshot) {
+		MoodPost post = Database.getInstance().parseMood(snapshot);
+
+		if (snapshot.contains(DatabaseFields.MOOD_VIEW_STATUS_FLD)) {
+			boolean isPrivated = snapshot.getBoolean(DatabaseFields.MOOD_VIEW_STATUS_FLD);
+
+			if (isPrivated && !this.username.equals(Database.getInstance().getCurrentUser())) {
+				return null;
+			}
+
+			post.setPrivateStatus(isPrivated);
+		}
+
+		return post;
+	}
+
+	/**
+	 * Listens to the changes of the moods of the first page as well as any
+	 * newer moods, replacing the previous listener if there is one. The
+	 * listener is only attached once the first page has been loaded, so
+	 * loading further pages never widens it.
+	 */
+	private void listenForChanges() {
+		this.listenedSince = 0;
+
+		if (this.hasMorePages && this.lastPageCursor != null) {
+			this.listenedSince = this.lastPageCursor.getLong(DatabaseFields.MOOD_TIME_FLD);
+		}
+
+		if (this.changeRegistration != null) {
+			this.changeRegistration.remove();
+		}
+
+		this.isAwaitingFirstChanges = true;
+		this.changeRegistration = Database.getInstance()
+										  .listenForMoodChanges(this.username, this.listenedSince,
+																this::onMoodChanges);
+	}
 
-				posts.add(post);
+	/**
+	 * Returns whether changes to the given {@code post} are given to this
+	 * model by its listener.
+	 *
+	 * @param post the post to check
+	 *
+	 * @return {@code true} if the post is listened to, {@code false}
+	 * 		   otherwise
+	 */
+	private boolean isListenedTo(MoodPost post) {
+		return this.changeRegistration != null && post.getTimePosted() >= this.listenedSince;
+	}
+
+	/**
+	 * Replaces the loaded post with the given {@code documentId} by the given
+	 * {@code post}, or removes it if {@code post} is {@code null}, and
+	 * notifies observers of the new data.
+	 *
+	 * @param documentId the id of the post to replace
+	 * @param post       the new version of the post or {@code null}
+	 */
+	private void replaceLoadedPost(String documentId, MoodPost post) {
+		this.loadedPosts.removeIf(p -> p.getDocumentId().equals(documentId));
+
+		if (post != null) {
+			this.insertLoadedPost(post);
+		}
+
+		this.setModelData(new ArrayList<>(this.loadedPosts));
+	}
+
+	/**
+	 * Inserts the given {@code post} into the loaded posts, keeping them
+	 * ordered from newest to oldest.
+	 *
+	 * @param post the post to insert
+	 */
+	private void insertLoadedPost(MoodPost post) {
+		int index = Collections.binarySearch(this.loadedPosts, post, NEWEST_FIRST);
+		this.loadedPosts.add((index < 0) ? -(index + 1) : index, post);
+	}
+
+	/**
+	 * Applies the given {@code changes} to the loaded moods, keeping them
+	 * ordered from newest to oldest. The changed moods are removed in a
+	 * single pass before the new versions are inserted. The first changes
+	 * given by the listener are every listened to mood, so those which are
+	 * already loaded are skipped.
+	 *
+	 * @param changes the changes to the user's moods
+	 * @param result  the status of the listener
+	 */
+	private void onMoodChanges(List<MoodChange> changes, DatabaseResult result) {
+		if (result == DatabaseResult.FAILURE) {
+			// The listener has stopped, so the data is requested normally
+			// the next time it is needed.
+			this.changeRegistration = null;
+			return;
+		}
+
+		Set<String> loadedIds = new HashSet<>();
+
+		if (this.isAwaitingFirstChanges) {
+			this.isAwaitingFirstChanges = false;
+
+			for (MoodPost post : this.loadedPosts) {
+				loadedIds.add(post.getDocumentId());
+			}
+		}
+
+		Set<String> changedIds = new HashSet<>();
+		// Only the last change to a mood that changed more than once applies.
+		Map<String, MoodPost> changedPosts = new HashMap<>();
+
+		for (MoodChange change : changes) {
+			String documentId = change.getDocument().getId();
+
+			if (loadedIds.contains(documentId)) {
+				continue;
 			}
 
-			this.setModelData(posts);
+			changedIds.add(documentId);
+			changedPosts.remove(documentId);
+
+			if (change.getType() != MoodChange.Type.REMOVED) {
+				MoodPost post = this.parseVisibleMood(change.getDocument());
+
+				if (post != null) {
+					changedPosts.put(documentId, post);
+				}
+			}
+		}
+
+		if (changedIds.isEmpty()) {
+			return;
+		}
+
+		this.loadedPosts.removeIf(p -> changedIds.contains(p.getDocumentId()));
+
+		for (MoodPost post : changedPosts.values()) {
+			this.insertLoadedPost(post);
+		}
+
+		this.setModelData(new ArrayList<>(this.loadedPosts));
+	}
+
+	@Override
+	protected void onCleared() {
+		super.onCleared();
+
+		if (this.changeRegistration != null) {
+			this.changeRegistration.remove();
+			this.changeRegistration = null;
 		}
 	}
 
@@ -158,6 +461,7 @@ public class ViewModelMoods extends ViewModel implements IQueryListener {
 	 */
 	public static class ViewModelMoodsFactory implements ViewModelProvider.Factory {
 		private final String username;
+		private final boolean isLive;
 
 		/**
 		 * Creates a {@code ViewModelMoodsFactory} instance to associate the
@@ -166,13 +470,26 @@ public class ViewModelMoods extends ViewModel implements IQueryListener {
 		 * @param username the name of the user to obtain the moods from
 		 */
 		public ViewModelMoodsFactory(String username) {
+			this(username, false);
+		}
+
+		/**
+		 * Creates a {@code ViewModelMoodsFactory} instance to associate the
+		 * given {@code username} with a {@code ViewModelMoods} which listens
+		 * to changes to the user's moods if {@code isLive} is {@code true}.
+		 *
+		 * @param username the name of the user to obtain the moods from
+		 * @param isLive   whether the model should listen to mood changes
+		 */
+		public ViewModelMoodsFactory(String username, boolean isLive) {
 			this.username = username;
+			this.isLive = isLive;
 		}
 
 		@NonNull
 		@Override
 		public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
-			return (T) new ViewModelMoods(this.username);
+			return (T) new ViewModelMoods(this.username, this.isLive);
 		}
 	}
 }
\ No newline at end of file
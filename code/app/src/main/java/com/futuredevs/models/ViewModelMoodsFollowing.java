@@ -8,10 +8,10 @@ import androidx.lifecycle.ViewModelProvider;
 import com.futuredevs.database.Database;
 import com.futuredevs.database.DatabaseFields;
 import com.futuredevs.database.DatabaseResult;
+import com.futuredevs.database.IDocument;
 import com.futuredevs.database.queries.DatabaseQuery;
 import com.futuredevs.database.queries.IQueryListener;
 import com.futuredevs.models.items.MoodPost;
-import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,13 +19,18 @@ import java.util.List;
 /**
  * The {@code ViewModelMoodsFollow} class is a model class that is intended to
  * represent a model containing the mood posts of the users that a given user
- * follows. This model will retrieve all moods of those users except for those
- * that are marked as private.
+ * follows. This model will retrieve the most recent moods of those users from
+ * the user's feed which never contains moods that are marked as private, or,
+ * if a number of posts per user is given, the most recent public moods of each
+ * of those users which are limited per user by the database.
  *
  * @author Spencer Schmidt
  */
 public class ViewModelMoodsFollowing extends ViewModel implements IQueryListener {
+	/** The number of the most recent feed entries to obtain. */
+	public static final int FEED_SIZE = 100;
 	private final String username;
+	private final int postsPerUser;
 	private MutableLiveData<List<MoodPost>> moodData = new MutableLiveData<>();
 
 	/**
@@ -36,18 +41,44 @@ public class ViewModelMoodsFollowing extends ViewModel implements IQueryListener
 	 * @param username the name of the user to obtain a follow list from
 	 */
 	public ViewModelMoodsFollowing(String username) {
+		this(username, 0);
+	}
+
+	/**
+	 * Creates a {@code ViewModelMoodsFollowing} which acts as a representation
+	 * of a model containing at most {@code postsPerUser} of the most recent
+	 * mood posts of each user that the user given by {@code username} follows.
+	 * If {@code postsPerUser} is 0 the posts are read from the user's feed
+	 * instead.
+	 *
+	 * @param username     the name of the user to obtain a follow list from
+	 * @param postsPerUser the maximum number of posts to obtain per user
+	 */
+	public ViewModelMoodsFollowing(String username, int postsPerUser) {
 		this.username = username;
+		this.postsPerUser = postsPerUser;
 		this.requestData();
 	}
 
 	/**
 	 * Requests the data for the model, attempting to obtain the posts of the
-	 * users a user follows if there are any.
+	 * users a user follows if there are any. The posts are either read from
+	 * the user's feed using a single query or, if a number of posts per user
+	 * was given, limited per followed user by the database.
 	 */
 	public void requestData() {
 		DatabaseQuery.QueryBuilder builder = new DatabaseQuery.QueryBuilder();
-		builder.setType(DatabaseQuery.QueryType.FOLLOWING_POSTS)
-			   .setSourceUser(this.username);
+		builder.setSourceUser(this.username);
+
+		if (this.postsPerUser > 0) {
+			builder.setType(DatabaseQuery.QueryType.FOLLOWING_POSTS)
+				   .setPostsPerUser(this.postsPerUser);
+		}
+		else {
+			builder.setType(DatabaseQuery.QueryType.FOLLOWING_FEED)
+				   .setPageSize(FEED_SIZE);
+		}
+
 		DatabaseQuery query = builder.build();
 		Database.getInstance().performQuery(query, this);
 	}
@@ -67,11 +98,11 @@ public class ViewModelMoodsFollowing extends ViewModel implements IQueryListener
 	}
 
 	@Override
-	public void onQueryResult(List<DocumentSnapshot> documents, DatabaseResult result) {
+	public void onQueryResult(List<IDocument> documents, DatabaseResult result) {
 		List<MoodPost> posts = new ArrayList<>();
 
 		if (result != DatabaseResult.FAILURE) {
-			for (DocumentSnapshot snapshot : documents) {
+			for (IDocument snapshot : documents) {
 				if (snapshot.contains(DatabaseFields.MOOD_VIEW_STATUS_FLD)) {
 					boolean isPrivated = snapshot.getBoolean(DatabaseFields.MOOD_VIEW_STATUS_FLD);
 
@@ -93,6 +124,7 @@ public class ViewModelMoodsFollowing extends ViewModel implements IQueryListener
 	 */
 	public static class ViewModelMoodsFollowingFactory implements ViewModelProvider.Factory {
 		private final String username;
+		private final int postsPerUser;
 
 		/**
 		 * Creates a {@code ViewModelMoodsFollowingFactory} instances associated
@@ -102,13 +134,26 @@ public class ViewModelMoodsFollowing extends ViewModel implements IQueryListener
 		 * @param username the name of the user to obtain the following from
 		 */
 		public ViewModelMoodsFollowingFactory(String username) {
+			this(username, 0);
+		}
+
+		/**
+		 * Creates a {@code ViewModelMoodsFollowingFactory} instances associated
+		 * with the given {@code username} whose models obtain at most
+		 * {@code postsPerUser} of the most recent posts of each followed user.
+		 *
+		 * @param username     the name of the user to obtain the following from
+		 * @param postsPerUser the maximum number of posts to obtain per user
+		 */
+		public ViewModelMoodsFollowingFactory(String username, int postsPerUser) {
 			this.username = username;
+			this.postsPerUser = postsPerUser;
 		}
 
 		@NonNull
 		@Override
 		public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
-			return (T) new ViewModelMoodsFollowing(this.username);
+			return (T) new ViewModelMoodsFollowing(this.username, this.postsPerUser);
 		}
 	}
 }
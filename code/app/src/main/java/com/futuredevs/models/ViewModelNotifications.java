@@ -8,11 +8,11 @@ import androidx.lifecycle.ViewModelProvider;
 import com.futuredevs.database.Database;
 import com.futuredevs.database.DatabaseFields;
 import com.futuredevs.database.DatabaseResult;
+import com.futuredevs.database.IDocument;
 import com.futuredevs.database.IResultListener;
 import com.futuredevs.database.queries.DatabaseQuery;
 import com.futuredevs.database.queries.IQueryListener;
 import com.futuredevs.models.items.Notification;
-import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -69,6 +69,29 @@ public class ViewModelNotifications extends ViewModel implements IQueryListener
 		});
 	}
 
+	/**
+	 * Attempts to accept every follow request currently held by the model
+	 * and if successful updates the data of the model.
+	 *
+	 * @param listener the callback to notify of the result
+	 */
+	public void acceptAllFollowRequests(IResultListener listener) {
+		List<Notification> pending = this.notifData.getValue();
+
+		if (pending == null || pending.isEmpty()) {
+			listener.onResult(DatabaseResult.SUCCESS);
+			return;
+		}
+
+		Database.getInstance().acceptAllFollowRequests(this.username, pending, r -> {
+			if (r == DatabaseResult.SUCCESS) {
+				requestData();
+			}
+
+			listener.onResult(r);
+		});
+	}
+
 	/**
 	 * Attempts to reject the follow request represented by the given
 	 * {@code notification} and if successful updates the data of the
@@ -102,11 +125,11 @@ public class ViewModelNotifications extends ViewModel implements IQueryListener
 	}
 
 	@Override
-	public void onQueryResult(List<DocumentSnapshot> documents, DatabaseResult result) {
+	public void onQueryResult(List<IDocument> documents, DatabaseResult result) {
 		List<Notification> notifications = new ArrayList<>();
 
 		if (result != DatabaseResult.FAILURE) {
-			for (DocumentSnapshot snapshot : documents) {
+			for (IDocument snapshot : documents) {
 				String docId = snapshot.getId();
 				String source = snapshot.getString(DatabaseFields.NOTIF_SENDER_FLD);
 				Notification notification = new Notification(docId, source, this.username);
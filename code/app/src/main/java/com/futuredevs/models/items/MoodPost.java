@@ -1,24 +1,18 @@
 package com.futuredevs.models.items;
 
-import android.content.Context;
-import android.location.Address;
-import android.location.Geocoder;
 import android.location.Location;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.util.Base64;
-import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.Date;
-import java.util.List;
-import java.util.Locale;
 import java.util.Objects;
 
 /**
@@ -73,12 +67,25 @@ public class MoodPost implements Parcelable {
 	 */
 	private String reasonSentence;
 	private SocialSituation situation;
-	/** A Base64 representation of the image data. */
-	private String imageData;
+	/**
+	 * The bytes of the image. This is only set once the image has been
+	 * requested or a new image has been chosen, see {@link #hasImage()}.
+	 */
+	private byte[] imageData;
+	/** The SHA-256 hash of the image's bytes used to reference the image. */
+	private String imageHash;
+	/** Whether this post has an image, even if it has not been loaded. */
+	private boolean hasImage;
+	/** The bytes of a small copy of the image shown in lists of posts. */
+	private byte[] thumbnailData;
+	/** The blurhash of the image drawn while the image is loading. */
+	private String blurHash;
 	/** The longitudinal coordinate of this post. */
 	private double longitude = INVALID_COORDINATE;
 	/** The latitudinal coordinate of this post. */
 	private double latitude = INVALID_COORDINATE;
+	/** The name of the city this post was created in, if it is known. */
+	private String city;
 	/**
 	 * Permission flag for posts that determines whether other uses can see it
 	 * or not.
@@ -142,9 +149,14 @@ public class MoodPost implements Parcelable {
 		}
 
 		this.reasonSentence = in.readString();
-		this.imageData = in.readString();
+		this.imageData = in.createByteArray();
+		this.imageHash = in.readString();
+		this.hasImage = (in.readInt() == 1);
+		this.thumbnailData = in.createByteArray();
+		this.blurHash = in.readString();
 		this.longitude = in.readDouble();
 		this.latitude = in.readDouble();
+		this.city = in.readString();
 		this.numTopLevelComments = in.readInt();
 		this.isPostPrivated = (in.readInt() == 1);
 		this.wasEdited = (in.readInt() == 1);
@@ -165,9 +177,14 @@ public class MoodPost implements Parcelable {
 		}
 
 		dest.writeString(Objects.requireNonNullElse(this.reasonSentence, ""));
-		dest.writeString(Objects.requireNonNullElse(this.imageData, ""));
+		dest.writeByteArray(this.imageData);
+		dest.writeString(this.imageHash);
+		dest.writeInt(this.hasImage ? 1 : 0);
+		dest.writeByteArray(this.thumbnailData);
+		dest.writeString(this.blurHash);
 		dest.writeDouble(this.longitude);
 		dest.writeDouble(this.latitude);
+		dest.writeString(this.city);
 		dest.writeInt(this.numTopLevelComments);
 		dest.writeInt(this.isPostPrivated ? 1 : 0);
 		dest.writeInt(this.wasEdited ? 1 : 0);
@@ -461,42 +478,25 @@ public class MoodPost implements Parcelable {
 	}
 
 	/**
-	 * Returns the name of the city based on the location of the post if it
-	 * has a valid location.
-	 *
-	 * @param context the context from which to obtain the geographical map
-	 *                location information from
+	 * Sets the name of the city this post was created in to the given
+	 * {@code city}. The city is looked up once when the post is created or
+	 * edited, so that it is not looked up by everyone viewing the post.
 	 *
-	 * @return the name of the city from which the post was created if it can
-	 * 		   be obtained; a string representation of the post's latitude and
-	 * 		   longitude if the name of the city cannot be obtained, and an
-	 * 		   empty string otherwise.
+	 * @param city the name of the city or {@code null} if it is not known
 	 */
-	public String getCityLocation(Context context) {
-		if (!this.hasValidLocation()) {
-			return "";
-		}
-
-		Geocoder geocoder = new Geocoder(context, Locale.getDefault());
-		String cityName = this.getLocation();
-
-		try {
-			List<Address> addresses = geocoder.getFromLocation(this.latitude, this.longitude, 1);
-
-			if (addresses != null && !addresses.isEmpty()) {
-				Address address = addresses.get(0);
-
-				if (address != null && address.getLocality() != null) {
-					cityName = addresses.get(0).getLocality();
-				}
-			}
-		}
-		catch (Exception e)
-		{
-			Log.e("MOOD_POST", "Failed to obtain the city location", e);
-		}
+	public void setCity(String city) {
+		this.city = city;
+	}
 
-		return cityName;
+	/**
+	 * Returns the name of the city this post was created in. Posts created
+	 * before cities were stored, or whose city could not be looked up, have
+	 * no city.
+	 *
+	 * @return the name of the city or {@code null} if it is not known
+	 */
+	public String getCity() {
+		return this.city;
 	}
 
 	/**
@@ -539,50 +539,161 @@ public class MoodPost implements Parcelable {
 
 
 	/**
-	 * <p>Sets the image data for this post to the given {@code base64Data}.
-	 * It is expected that the given data is in <i>Base64</i> format and as
-	 * such this method should only be used for reconstructing the image from
-	 * a saved base64 string.</p>
-	 * 
-	 * @see #setImageData(byte[])
+	 * <p>Sets the image data for this post to the given {@code imageData},
+	 * which should be the bytes of a compressed image. The reference to the
+	 * image is the SHA-256 hash of its bytes so that identical images are
+	 * only stored once, which is computed when it is first needed.</p>
 	 *
-	 * @param base64Data the base64 representation of an image
+	 * <p>Setting the data to {@code null} removes the image from this
+	 * post.</p>
+	 *
+	 * @param imageData the byte representation of the image
 	 */
-	public void setImageData(String base64Data) {
-		this.imageData = base64Data;
+	public void setImageData(byte[] imageData) {
+		this.imageData = imageData;
+		this.imageHash = null;
+		this.hasImage = (imageData != null);
 	}
 
 	/**
-	 * Sets the image data for this post to the given {@code imageDate}.
+	 * <p>Returns the image data for this post.</p>
 	 *
-	 * @see #setImageData(String)
+	 * <p>Images are stored separately from their posts and are not loaded
+	 * along with them, thus this will return {@code null} if the image has
+	 * not been loaded even if {@link #hasImage()} is {@code true}.</p>
 	 *
-	 * @param imageData the byte representation of the image
+	 * @return the bytes of this post's image if it has been set or loaded,
+	 *         {@code null} otherwise
 	 */
-	public void setImageData(byte[] imageData) {
-		if (imageData != null) {
-			int imageFlags = Base64.NO_PADDING | Base64.NO_WRAP | Base64.URL_SAFE;
-			this.imageData = Base64.encodeToString(imageData, imageFlags);
-		}
-		else {
-			this.imageData = null;
+	public byte[] getImageData() {
+		return this.imageData;
+	}
+
+	/**
+	 * Sets the reference to the image of this post without setting the
+	 * image data itself. This should only be used when reconstructing a post
+	 * as the image data is loaded separately.
+	 *
+	 * @param imageHash the SHA-256 hash of the image's bytes or {@code null}
+	 *                  if the post has no image
+	 */
+	public void setImageHash(String imageHash) {
+		this.imageHash = imageHash;
+		this.hasImage = (imageHash != null);
+	}
+
+	/**
+	 * Returns the reference to the image of this post, being the hex encoded
+	 * SHA-256 hash of the image's bytes.
+	 *
+	 * @return the hash of this post's image or {@code null} if the post has
+	 *         no image or its image was stored before images were hashed
+	 */
+	public String getImageHash() {
+		if (this.imageHash == null && this.imageData != null) {
+			this.imageHash = hashImage(this.imageData);
 		}
+
+		return this.imageHash;
 	}
 
 	/**
-	 * <p>Returns the image data for this post. The data for the image is
-	 * represented using a Base64 string that has no padding characters,
-	 * no wrapping, and is URL safe.</p>
+	 * <p>Sets whether this post has an image without setting the image data
+	 * or its reference. This is only needed for posts whose images were
+	 * stored within the post itself before images were hashed.</p>
 	 *
-	 * <p>It is possible for this to return either {@code null} or an empty
-	 * string if the image data is invalid or has not been set, thus both
-	 * should be checked before using the image data.</p>
+	 * <p>Setting the image data with {@link #setImageData(byte[])} or its
+	 * reference with {@link #setImageHash(String)} also sets this flag.</p>
 	 *
-	 * @return a Base64 representation of this post's image if it has been set
-	 *         and is a valid image, {@code null} if the image has not been set
+	 * @param hasImage whether this post has an image
 	 */
-	public String getImageData() {
-		return this.imageData;
+	public void setHasImage(boolean hasImage) {
+		this.hasImage = hasImage;
+	}
+
+	/**
+	 * Returns whether this post has an image. The image data itself may not
+	 * have been loaded, in which case it can be requested using
+	 * {@link com.futuredevs.database.Database#requestMoodImage}.
+	 *
+	 * @return {@code true} if this post has an image, {@code false} otherwise
+	 */
+	public boolean hasImage() {
+		return this.hasImage;
+	}
+
+	/**
+	 * <p>Sets the thumbnail of this post's image to the given
+	 * {@code thumbnailData}, which should be the bytes of a small compressed
+	 * copy of the image set with {@link #setImageData(byte[])}.</p>
+	 *
+	 * <p>Unlike the image itself the thumbnail is stored within the post,
+	 * so it is always available once the post has been loaded.</p>
+	 *
+	 * @param thumbnailData the byte representation of the thumbnail or
+	 *                      {@code null} if the post has no thumbnail
+	 */
+	public void setThumbnailData(byte[] thumbnailData) {
+		this.thumbnailData = thumbnailData;
+	}
+
+	/**
+	 * Returns the thumbnail of this post's image. Posts whose images were
+	 * stored before thumbnails were generated may have an image but no
+	 * thumbnail.
+	 *
+	 * @return the bytes of this post's thumbnail or {@code null} if the post
+	 *         has no thumbnail
+	 */
+	public byte[] getThumbnailData() {
+		return this.thumbnailData;
+	}
+
+	/**
+	 * Sets the blurhash of this post's image to the given {@code blurHash},
+	 * a short string from which a blurred placeholder of the image is drawn
+	 * while the image itself is loading.
+	 *
+	 * @param blurHash the blurhash of the image or {@code null} if the post
+	 *                 has no blurhash
+	 */
+	public void setBlurHash(String blurHash) {
+		this.blurHash = blurHash;
+	}
+
+	/**
+	 * Returns the blurhash of this post's image. Like thumbnails, posts whose
+	 * images were stored before blurhashes were computed may have none.
+	 *
+	 * @return the blurhash of this post's image or {@code null} if the post
+	 *         has no blurhash
+	 */
+	public String getBlurHash() {
+		return this.blurHash;
+	}
+
+	/**
+	 * Returns the hex encoded SHA-256 hash of the given {@code imageData}.
+	 *
+	 * @param imageData the bytes of the image to hash
+	 *
+	 * @return the hash of the image
+	 */
+	private static String hashImage(byte[] imageData) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(imageData);
+			StringBuilder hashBuilder = new StringBuilder(digest.length * 2);
+
+			for (byte b : digest) {
+				hashBuilder.append(String.format("%02x", b));
+			}
+
+			return hashBuilder.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256.
+			throw new IllegalStateException(e);
+		}
 	}
 
 	/**
@@ -16,6 +16,7 @@ public class UserProfile {
 	private List<String> followers;
 	private List<String> following;
 	private List<String> pending;
+	private boolean isMigrated;
 
 	/**
 	 * Creates a {@code UserProfile} instance that represents the user given by
@@ -66,4 +67,26 @@ public class UserProfile {
 	public List<String> getFollowing() {
 		return this.following;
 	}
+
+	/**
+	 * Sets whether the stored data of the user has been migrated to the
+	 * current version.
+	 *
+	 * @param isMigrated whether the user's data has been migrated
+	 */
+	public void setMigrated(boolean isMigrated) {
+		this.isMigrated = isMigrated;
+	}
+
+	/**
+	 * Returns whether the stored data of the user has been migrated to the
+	 * current version, in which case each of their located moods, and each
+	 * copy of them in their followers' feeds, holds its geohash.
+	 *
+	 * @return {@code true} if the user's data has been migrated,
+	 *         {@code false} otherwise
+	 */
+	public boolean isMigrated() {
+		return this.isMigrated;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.example.moodmento;
+
+import com.futuredevs.images.BlurHash;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the blurred placeholders of mood images, covering the
+ * length of a hash and that decoding a hash gives back the colours of the
+ * original image.
+ */
+public class BlurHashTest {
+
+    private int[] gradient(int width, int height) {
+        int[] pixels = new int[width * height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int red = 255 - x * 255 / (width - 1);
+                int blue = x * 255 / (width - 1);
+                pixels[y * width + x] = 0xFF000000 | (red << 16) | blue;
+            }
+        }
+
+        return pixels;
+    }
+
+    @Test
+    public void testHashIsShort() {
+        String hash = BlurHash.encode(gradient(32, 24), 32, 24, 4, 3);
+        assertEquals(28, hash.length());
+    }
+
+    @Test
+    public void testSolidColourIsDecoded() {
+        int[] pixels = new int[32 * 32];
+        Arrays.fill(pixels, 0xFF336699);
+
+        // The placeholder is blurred, so the colours are only close.
+        int[] decoded = BlurHash.decode(BlurHash.encode(pixels, 32, 32, 4, 3), 8, 8, 1);
+
+        for (int pixel : decoded) {
+            assertEquals(0x33, (pixel >> 16) & 0xFF, 16);
+            assertEquals(0x66, (pixel >> 8) & 0xFF, 16);
+            assertEquals(0x99, pixel & 0xFF, 16);
+        }
+    }
+
+    @Test
+    public void testGradientKeepsItsDirection() {
+        String hash = BlurHash.encode(gradient(32, 24), 32, 24, 4, 3);
+        int[] decoded = BlurHash.decode(hash, 32, 24, 1);
+        int left = decoded[12 * 32];
+        int right = decoded[12 * 32 + 31];
+
+        assertTrue(((left >> 16) & 0xFF) > ((right >> 16) & 0xFF));
+        assertTrue((left & 0xFF) < (right & 0xFF));
+    }
+
+    @Test
+    public void testInvalidHashIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.decode("not a hash", 8, 8, 1));
+    }
+}
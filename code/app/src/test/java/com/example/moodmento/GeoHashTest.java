@@ -0,0 +1,33 @@
+package com.example.moodmento;
+
+import com.futuredevs.geo.GeoHash;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the geohashes of locations, which the geocoding cache and
+ * the map group nearby moods by.
+ */
+public class GeoHashTest {
+
+    @Test
+    public void testKnownLocationIsEncoded() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+    }
+
+    @Test
+    public void testNearbyLocationsSharePrefix() {
+        String first = GeoHash.encode(53.5461, -113.4938, 9);
+        String second = GeoHash.encode(53.5462, -113.4937, 9);
+        assertEquals(first.substring(0, 6), second.substring(0, 6));
+        assertTrue(GeoHash.encode(53.5461, -113.4938, 12).startsWith(first));
+    }
+
+    @Test
+    public void testInvalidPrecisionIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> GeoHash.encode(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> GeoHash.encode(0, 0, 13));
+    }
+}
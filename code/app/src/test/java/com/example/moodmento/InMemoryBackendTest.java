@@ -0,0 +1,314 @@
+package com.example.moodmento;
+
+import com.futuredevs.database.Database;
+import com.futuredevs.database.DatabaseResult;
+import com.futuredevs.database.IDocument;
+import com.futuredevs.database.InMemoryBackend;
+import com.futuredevs.database.queries.DatabaseQuery;
+import com.futuredevs.database.queries.IListenerRegistration;
+import com.futuredevs.database.queries.MoodChange;
+import com.futuredevs.geo.GeoHash;
+import com.futuredevs.models.items.MoodPost;
+import com.futuredevs.models.items.Notification;
+import com.futuredevs.models.items.UserProfile;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the database using the in-memory backend, covering the
+ * paging of moods, the following feed, listening to mood changes, mood
+ * images and deleting accounts.
+ */
+public class InMemoryBackendTest {
+
+    private Database database;
+
+    @Before
+    public void setUp() {
+        Database.setBackend(new InMemoryBackend());
+        database = Database.getInstance();
+    }
+
+    private void postMood(String user, long time, boolean isPrivate) {
+        MoodPost post = new MoodPost(user, MoodPost.Emotion.HAPPY);
+        post.setTimePosted(time);
+        post.setPrivateStatus(isPrivate);
+        database.addMood(user, post, result -> assertEquals(DatabaseResult.SUCCESS, result));
+    }
+
+    private List<IDocument> query(DatabaseQuery query) {
+        List<IDocument> results = new ArrayList<>();
+        database.performQuery(query, (documents, result) -> {
+            assertEquals(DatabaseResult.SUCCESS, result);
+            results.addAll(documents);
+        });
+        return results;
+    }
+
+    private List<Long> times(List<IDocument> documents) {
+        List<Long> times = new ArrayList<>();
+
+        for (IDocument document : documents) {
+            times.add(database.parseMood(document).getTimePosted());
+        }
+
+        return times;
+    }
+
+    private void follow(String follower, String followee) {
+        database.sendFollowRequest(follower, followee);
+        IDocument request = query(new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.USER_NOTIFICATIONS)
+                .setSourceUser(followee)
+                .build()).get(0);
+        Notification notification = new Notification(request.getId(), follower, followee);
+        database.acceptFollowRequest(notification, result -> {});
+    }
+
+    @Test
+    public void testUserPostsArePagedNewestFirst() {
+        for (long time = 1; time <= 5; time++) {
+            postMood("alice", time, false);
+        }
+
+        List<IDocument> firstPage = query(new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.USER_POSTS)
+                .setSourceUser("alice")
+                .setPageSize(2)
+                .build());
+        assertEquals(List.of(5L, 4L), times(firstPage));
+
+        List<IDocument> secondPage = query(new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.USER_POSTS)
+                .setSourceUser("alice")
+                .setPageSize(2)
+                .setStartAfter(firstPage.get(1))
+                .build());
+        assertEquals(List.of(3L, 2L), times(secondPage));
+    }
+
+    @Test
+    public void testFeedHoldsOnlyPublicMoodsOfFollowedUsers() {
+        postMood("bob", 1, false);
+        follow("alice", "bob");
+        postMood("bob", 2, true);
+        postMood("bob", 3, false);
+
+        DatabaseQuery feedQuery = new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.FOLLOWING_FEED)
+                .setSourceUser("alice")
+                .build();
+        assertEquals(List.of(3L, 1L), times(query(feedQuery)));
+
+        database.removeFollower("bob", "alice", result -> {});
+        assertTrue(query(feedQuery).isEmpty());
+    }
+
+    @Test
+    public void testFollowingPostsAreLimitedPerUser() {
+        for (long time = 1; time <= 4; time++) {
+            postMood("bob", time, false);
+        }
+
+        follow("alice", "bob");
+
+        List<IDocument> posts = query(new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.FOLLOWING_POSTS)
+                .setSourceUser("alice")
+                .setPostsPerUser(3)
+                .build());
+        assertEquals(List.of(4L, 3L, 2L), times(posts));
+    }
+
+    @Test
+    public void testListenerReceivesOnlyChangedMoods() {
+        postMood("alice", 1, false);
+        List<MoodChange> changes = new ArrayList<>();
+        IListenerRegistration registration = database.listenForMoodChanges("alice", 0,
+                (moodChanges, result) -> changes.addAll(moodChanges));
+        assertEquals(1, changes.size());
+
+        changes.clear();
+        postMood("alice", 2, false);
+        assertEquals(1, changes.size());
+        assertEquals(MoodChange.Type.ADDED, changes.get(0).getType());
+
+        MoodPost added = database.parseMood(changes.get(0).getDocument());
+        changes.clear();
+        database.removeMood("alice", added, result -> {});
+        assertEquals(1, changes.size());
+        assertEquals(MoodChange.Type.REMOVED, changes.get(0).getType());
+
+        registration.remove();
+        changes.clear();
+        postMood("alice", 3, false);
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void testDeleteAccountRemovesUserFromOtherUsers() {
+        postMood("bob", 1, false);
+        follow("alice", "bob");
+        follow("bob", "alice");
+        database.sendFollowRequest("bob", "carol");
+        database.sendFollowRequest("dave", "bob");
+
+        List<Integer> progress = new ArrayList<>();
+        database.deleteAccount("bob", progress::add,
+                result -> assertEquals(DatabaseResult.SUCCESS, result));
+        assertFalse(progress.isEmpty());
+
+        assertTrue(query(new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.FOLLOWING_FEED)
+                .setSourceUser("alice")
+                .build()).isEmpty());
+        assertTrue(query(new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.USER_NOTIFICATIONS)
+                .setSourceUser("carol")
+                .build()).isEmpty());
+
+        List<UserProfile> profiles = new ArrayList<>();
+        database.requestUserInformation("alice", (result, users) -> profiles.addAll(users));
+        database.requestUserInformation("dave", (result, users) -> profiles.addAll(users));
+        assertTrue(profiles.get(0).getFollowers().isEmpty());
+        assertTrue(profiles.get(0).getFollowing().isEmpty());
+        assertTrue(profiles.get(1).getPending().isEmpty());
+    }
+
+    @Test
+    public void testImagesAreStoredOnceAndLoadedWhenRequested() {
+        byte[] imageData = {1, 2, 3};
+        MoodPost first = new MoodPost("alice", MoodPost.Emotion.HAPPY);
+        first.setImageData(imageData);
+        first.setThumbnailData(new byte[]{4});
+        first.setBlurHash("LEHV6nWB2yk8pyo0adR*.7kCMdnj");
+        database.addMood("alice", first, result -> assertEquals(DatabaseResult.SUCCESS, result));
+        MoodPost second = new MoodPost("bob", MoodPost.Emotion.FEAR);
+        second.setImageData(imageData.clone());
+        database.addMood("bob", second, result -> assertEquals(DatabaseResult.SUCCESS, result));
+
+        MoodPost listed = database.parseMood(query(new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.USER_POSTS)
+                .setSourceUser("alice")
+                .build()).get(0));
+        assertTrue(listed.hasImage());
+        assertNull(listed.getImageData());
+        assertEquals(first.getImageHash(), listed.getImageHash());
+        assertArrayEquals(new byte[]{4}, listed.getThumbnailData());
+        assertEquals("LEHV6nWB2yk8pyo0adR*.7kCMdnj", listed.getBlurHash());
+
+        // Editing a mood whose image was never loaded keeps the image.
+        listed.setReason("edited");
+        database.editMood("alice", listed, result -> {});
+        assertArrayEquals(imageData, requestImage(listed));
+
+        // The image is shared, so it is kept until neither mood uses it.
+        database.removeMood("alice", listed, result -> {});
+        assertArrayEquals(imageData, requestImage(listed));
+        database.deleteAccount("bob", null, result -> {});
+        assertNull(requestImage(listed));
+    }
+
+    @Test
+    public void testCityIsStoredAndRemovedWithLocation() {
+        MoodPost post = new MoodPost("alice", MoodPost.Emotion.HAPPY);
+        post.setLocation(53.5461, -113.4938);
+        post.setCity("Edmonton");
+        database.addMood("alice", post, result -> assertEquals(DatabaseResult.SUCCESS, result));
+
+        DatabaseQuery query = new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.USER_POSTS)
+                .setSourceUser("alice")
+                .build();
+        MoodPost listed = database.parseMood(query(query).get(0));
+        assertEquals("Edmonton", listed.getCity());
+
+        listed.setLocation(MoodPost.INVALID_COORDINATE, MoodPost.INVALID_COORDINATE);
+        listed.setCity(null);
+        database.editMood("alice", listed, result -> {});
+        assertNull(database.parseMood(query(query).get(0)).getCity());
+    }
+
+    @Test
+    public void testAcceptAllReportsStaleRequests() {
+        database.sendFollowRequest("bob", "alice");
+        IDocument request = query(new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.USER_NOTIFICATIONS)
+                .setSourceUser("alice")
+                .build()).get(0);
+        List<Notification> notifications = new ArrayList<>();
+        notifications.add(new Notification(request.getId(), "bob", "alice"));
+        // A request which was already handled elsewhere.
+        notifications.add(new Notification("handled", "carol", "alice"));
+
+        List<DatabaseResult> results = new ArrayList<>();
+        database.acceptAllFollowRequests("alice", notifications, results::add);
+        assertEquals(DatabaseResult.FAILURE, results.get(0));
+
+        List<UserProfile> profiles = new ArrayList<>();
+        database.requestUserInformation("alice", (result, data) -> profiles.addAll(data));
+        assertEquals(List.of("bob"), new ArrayList<>(profiles.get(0).getFollowers()));
+    }
+
+    @Test
+    public void testSetMoodCityOnlyChangesCity() {
+        follow("alice", "bob");
+        MoodPost post = new MoodPost("bob", MoodPost.Emotion.HAPPY);
+        post.setReason("stored");
+        post.setLocation(53.5461, -113.4938);
+        database.addMood("bob", post, result -> {});
+        DatabaseQuery query = new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.FOLLOWING_FEED)
+                .setSourceUser("alice")
+                .build();
+        String documentId = query(query).get(0).getId();
+
+        // The stale copy held by the viewer is not written back.
+        post.setReason("stale");
+        database.setMoodCity("bob", documentId, "Edmonton",
+                result -> assertEquals(DatabaseResult.SUCCESS, result));
+
+        MoodPost listed = database.parseMood(query(query).get(0));
+        assertEquals("Edmonton", listed.getCity());
+        assertEquals("stored", listed.getReason());
+    }
+
+    @Test
+    public void testCellPostsAreWithinCell() {
+        follow("alice", "bob");
+        MoodPost own = new MoodPost("alice", MoodPost.Emotion.HAPPY);
+        own.setLocation(53.5461, -113.4938);
+        database.addMood("alice", own, result -> {});
+        MoodPost followed = new MoodPost("bob", MoodPost.Emotion.SADNESS);
+        followed.setLocation(53.6000, -113.5000);
+        database.addMood("bob", followed, result -> {});
+        MoodPost distant = new MoodPost("bob", MoodPost.Emotion.ANGER);
+        distant.setLocation(51.0447, -114.0719);
+        database.addMood("bob", distant, result -> {});
+        postMood("bob", 1, false);
+
+        List<IDocument> inCell = query(new DatabaseQuery.QueryBuilder()
+                .setType(DatabaseQuery.QueryType.CELL_POSTS)
+                .setSourceUser("alice")
+                .setGeohash(GeoHash.encode(53.5461, -113.4938, 3))
+                .build());
+        assertEquals(2, inCell.size());
+
+        for (IDocument document : inCell) {
+            assertTrue(database.parseMood(document).hasValidLocation());
+            assertNotEquals(MoodPost.Emotion.ANGER, database.parseMood(document).getEmotion());
+        }
+    }
+
+    private byte[] requestImage(MoodPost post) {
+        List<byte[]> images = new ArrayList<>();
+        database.requestMoodImage(post, (result, data) -> images.addAll(data));
+        return images.isEmpty() ? null : images.get(0);
+    }
+}
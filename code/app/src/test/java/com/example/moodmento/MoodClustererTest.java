@@ -0,0 +1,53 @@
+package com.example.moodmento;
+
+import com.futuredevs.geo.MoodCluster;
+import com.futuredevs.geo.MoodClusterer;
+import com.futuredevs.models.items.MoodPost;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the clustering of moods on the map, covering how nearby
+ * moods are grouped at different zoom levels and the colour of a cluster.
+ */
+public class MoodClustererTest {
+
+    private MoodPost createMood(String id, MoodPost.Emotion emotion, double lat, double lon) {
+        MoodPost mood = new MoodPost(id, "user", emotion);
+        mood.setLocation(lat, lon);
+        return mood;
+    }
+
+    @Test
+    public void testNearbyMoodsAreClusteredWhenZoomedOut() {
+        List<MoodPost> posts = Arrays.asList(
+                createMood("a", MoodPost.Emotion.HAPPY, 53.5461, -113.4938),
+                createMood("b", MoodPost.Emotion.HAPPY, 53.5470, -113.4950),
+                createMood("c", MoodPost.Emotion.ANGER, 53.5480, -113.4960),
+                createMood("d", MoodPost.Emotion.FEAR, 51.0447, -114.0719));
+
+        List<MoodCluster> clusters = MoodClusterer.cluster(posts, 8);
+        assertEquals(2, clusters.size());
+        MoodCluster edmonton = (clusters.get(0).size() == 3) ? clusters.get(0) : clusters.get(1);
+        assertEquals(3, edmonton.size());
+        assertEquals(MoodPost.Emotion.HAPPY, edmonton.getDominantEmotion());
+        assertEquals(53.547, edmonton.getLatitude(), 0.001);
+
+        // Zoomed in far enough every mood has its own marker.
+        assertEquals(4, MoodClusterer.cluster(posts, 20).size());
+    }
+
+    @Test
+    public void testClusterKeysAreStableAtTheSameZoom() {
+        MoodPost first = createMood("a", MoodPost.Emotion.HAPPY, 53.5461, -113.4938);
+        MoodPost second = createMood("b", MoodPost.Emotion.SADNESS, 53.5462, -113.4939);
+        String key = MoodClusterer.cluster(Arrays.asList(first, second), 10).get(0).getCellKey();
+        assertEquals(key, MoodClusterer.cluster(Arrays.asList(second, first), 10).get(0).getCellKey());
+        assertNotEquals(key, MoodClusterer.cluster(Arrays.asList(first, second), 11).get(0).getCellKey());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.moodmento;
+
+import com.futuredevs.geo.MoodHeatmap;
+import com.futuredevs.models.items.MoodPost;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the emotion heatmap of the map, covering which tiles a mood
+ * is drawn on and which moods are reported as changed.
+ */
+public class MoodHeatmapTest {
+
+    private MoodPost createMood(String id, MoodPost.Emotion emotion, double lat, double lon) {
+        MoodPost mood = new MoodPost(id, "user", emotion);
+        mood.setLocation(lat, lon);
+        return mood;
+    }
+
+    @Test
+    public void testMoodIsDrawnOnlyOnItsTile() {
+        Map<MoodPost.Emotion, Integer> colours = new EnumMap<>(MoodPost.Emotion.class);
+        colours.put(MoodPost.Emotion.HAPPY, 0x00ff00);
+        MoodHeatmap heatmap = new MoodHeatmap(colours);
+        heatmap.setPosts(Collections.singletonList(
+                createMood("a", MoodPost.Emotion.HAPPY, 0.0001, 0.0001)));
+
+        // At zoom level 1 the mood lies at the corner shared by all four tiles.
+        int[] pixels = heatmap.render(1, 1, 1);
+        assertNotNull(pixels);
+        assertEquals(0x00ff00, pixels[0] & 0xffffff);
+        assertTrue((pixels[0] >>> 24) > 0);
+        assertNotNull(heatmap.render(1, 0, 0));
+        assertNull(heatmap.render(3, 0, 0));
+    }
+
+    @Test
+    public void testOnlyChangedMoodsAreReported() {
+        MoodHeatmap heatmap = new MoodHeatmap(new EnumMap<>(MoodPost.Emotion.class));
+        MoodPost edmonton = createMood("a", MoodPost.Emotion.HAPPY, 53.5461, -113.4938);
+        MoodPost calgary = createMood("b", MoodPost.Emotion.FEAR, 51.0447, -114.0719);
+        assertEquals(2, heatmap.setPosts(Arrays.asList(edmonton, calgary)).size());
+
+        MoodPost moved = createMood("b", MoodPost.Emotion.FEAR, 51.05, -114.07);
+        List<MoodPost> changed = heatmap.setPosts(Arrays.asList(edmonton, moved));
+        assertEquals(2, changed.size());
+        assertTrue(changed.contains(calgary));
+        assertTrue(changed.contains(moved));
+        assertTrue(heatmap.setPosts(Arrays.asList(edmonton, moved)).isEmpty());
+
+        assertTrue(MoodHeatmap.touches(10, 187, 342, calgary));
+        assertFalse(MoodHeatmap.touches(10, 187, 342, edmonton));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.moodmento;
+
+import com.futuredevs.geo.MoodSpatialIndex;
+import com.futuredevs.models.items.MoodPost;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the spatial index of the mood map, covering radius searches
+ * against measuring every mood and updating the index as moods change.
+ */
+public class MoodSpatialIndexTest {
+
+    private static final double EDMONTON_LAT = 53.5461;
+    private static final double EDMONTON_LON = -113.4938;
+
+    private MoodPost createMood(String id, double lat, double lon) {
+        MoodPost mood = new MoodPost(id, "user", MoodPost.Emotion.HAPPY);
+        mood.setLocation(lat, lon);
+        return mood;
+    }
+
+    @Test
+    public void testSearchMatchesMeasuringEveryMood() {
+        Random random = new Random(42);
+        List<MoodPost> posts = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            posts.add(createMood("mood" + i,
+                    EDMONTON_LAT + (random.nextDouble() - 0.5),
+                    EDMONTON_LON + (random.nextDouble() - 0.5)));
+        }
+
+        MoodSpatialIndex index = new MoodSpatialIndex();
+        index.setPosts(posts);
+        assertEquals(5000, index.size());
+
+        for (int radius = 1; radius <= 10; radius++) {
+            HashSet<MoodPost> expected = new HashSet<>();
+
+            for (MoodPost post : posts) {
+                if (MoodSpatialIndex.distanceKm(EDMONTON_LAT, EDMONTON_LON,
+                        post.getLatitude(), post.getLongitude()) <= radius) {
+                    expected.add(post);
+                }
+            }
+
+            List<MoodPost> found = index.findWithin(EDMONTON_LAT, EDMONTON_LON, radius);
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<>(found));
+        }
+    }
+
+    @Test
+    public void testIndexFollowsUpdatedMoods() {
+        MoodPost near = createMood("near", 53.5462, -113.4939);
+        MoodPost far = createMood("far", 54.0, -113.0);
+        MoodPost invalid = createMood("invalid", 0.0, 0.0);
+        MoodSpatialIndex index = new MoodSpatialIndex();
+        index.setPosts(Arrays.asList(near, far, invalid));
+        assertEquals(2, index.size());
+        assertEquals(Collections.singletonList(near), index.findWithin(EDMONTON_LAT, EDMONTON_LON, 5));
+
+        // The far mood is edited to be nearby and the near mood is deleted.
+        MoodPost moved = createMood("far", 53.55, -113.5);
+        index.setPosts(Collections.singletonList(moved));
+        assertEquals(1, index.size());
+        assertEquals(Collections.singletonList(moved), index.findWithin(EDMONTON_LAT, EDMONTON_LON, 5));
+    }
+
+    @Test
+    public void testSearchAcrossTheAntimeridian() {
+        MoodPost east = createMood("east", 0.5, 179.99);
+        MoodPost west = createMood("west", 0.5, -179.99);
+        MoodSpatialIndex index = new MoodSpatialIndex();
+        index.setPosts(Arrays.asList(east, west));
+        assertEquals(2, index.findWithin(0.5, 179.999, 5).size());
+    }
+}
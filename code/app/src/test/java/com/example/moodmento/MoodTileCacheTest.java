@@ -0,0 +1,60 @@
+package com.example.moodmento;
+
+import com.futuredevs.geo.MoodTileCache;
+import com.futuredevs.models.items.MoodPost;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the cache of the map tiles which have been loaded, covering
+ * when a tile expires and which tile is removed once the cache is full.
+ */
+public class MoodTileCacheTest {
+
+    @Test
+    public void testTileExpiresButKeepsItsMoods() {
+        MoodTileCache cache = new MoodTileCache(4, 1000);
+        MoodPost post = new MoodPost("a", "user", MoodPost.Emotion.HAPPY);
+        cache.put("c3x2", Collections.singletonList(post), 0);
+
+        assertTrue(cache.isFresh("c3x2", 999));
+        assertFalse(cache.isFresh("c3x2", 1000));
+        assertFalse(cache.isFresh("c3x3", 0));
+        assertEquals(Collections.singletonList(post), cache.getPosts(Arrays.asList("c3x2", "c3x3")));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTileIsRemoved() {
+        MoodTileCache cache = new MoodTileCache(2, 1000);
+        cache.put("c3x1", Collections.emptyList(), 0);
+        cache.put("c3x2", Collections.emptyList(), 0);
+        cache.getPosts(Collections.singletonList("c3x1"));
+        cache.put("c3x3", Collections.emptyList(), 0);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.isFresh("c3x1", 0));
+        assertFalse(cache.isFresh("c3x2", 0));
+        assertTrue(cache.isFresh("c3x3", 0));
+    }
+
+    @Test
+    public void testChangedMoodReplacesItsOtherVersion() {
+        MoodTileCache cache = new MoodTileCache(4, 1000);
+        MoodPost original = new MoodPost("a", "user", MoodPost.Emotion.HAPPY);
+        MoodPost edited = new MoodPost("a", "user", MoodPost.Emotion.SADNESS);
+        cache.put("c3x2", Collections.singletonList(original), 0);
+        cache.add("c3x2", edited);
+        cache.add("c3x3", edited);
+
+        assertEquals(Collections.singletonList(edited), cache.getPosts(Arrays.asList("c3x2", "c3x3")));
+        assertTrue(cache.isFresh("c3x2", 999));
+
+        cache.remove("c3x2", original);
+        assertTrue(cache.getPosts(Collections.singletonList("c3x2")).isEmpty());
+    }
+}
@@ -107,7 +107,8 @@ public class US01MoodTest {
         mood.setReason("missed deadline");
         mood.setSocialSituation(MoodPost.SocialSituation.ALONE);
         mood.setPrivateStatus(true);
-        mood.setImageData("fakeBase64ImageData");
+        byte[] imageData = "fakeImageData".getBytes();
+        mood.setImageData(imageData);
         mood.setLocation(53.5461, -113.4938); // Edmonton coords
         mood.setNumTopLevelComments(3);
         mood.setEdited(true);
@@ -119,7 +120,8 @@ public class US01MoodTest {
         assertEquals(MoodPost.SocialSituation.ALONE, mood.getSocialSituation());
         assertEquals(timestamp, mood.getTimePosted(),5);
         assertTrue(mood.isPrivate());
-        assertEquals("fakeBase64ImageData", mood.getImageData());
+        assertArrayEquals(imageData, mood.getImageData());
+        assertTrue(mood.hasImage());
         assertEquals(53.5461, mood.getLatitude(), 0.0001);
         assertEquals(-113.4938, mood.getLongitude(), 0.0001);
         assertEquals(3, mood.getNumTopLevelComments());
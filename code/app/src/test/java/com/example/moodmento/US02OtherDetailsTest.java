@@ -147,6 +147,21 @@ public class US02OtherDetailsTest {
     public void testNullImageHandled() {
         mood.setImageData((byte[]) null);
         assertNull(mood.getImageData());
+        assertNull(mood.getImageHash());
+        assertFalse(mood.hasImage());
+    }
+
+    // Edge Case - Identical images share a reference
+    @Test
+    public void testIdenticalImagesHaveSameHash() {
+        MoodPost other = new MoodPost("tester", MoodPost.Emotion.HAPPY);
+        mood.setImageData(new byte[] {1, 2, 3});
+        other.setImageData(new byte[] {1, 2, 3});
+        assertEquals(64, mood.getImageHash().length());
+        assertEquals(mood.getImageHash(), other.getImageHash());
+
+        other.setImageData(new byte[] {1, 2, 4});
+        assertNotEquals(mood.getImageHash(), other.getImageHash());
     }
 
 